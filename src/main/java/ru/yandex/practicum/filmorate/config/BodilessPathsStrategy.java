@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.util.AntPathMatcher;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Locale;
+
+// На частых запросах (лайки, друзья, популярные фильмы, списки, загрузки) Logbook пишет только метод, путь,
+// статус и длительность. Тело ему пришлось бы буферизовать целиком и сериализовать в журнал на каждый запрос.
+// Шаблон - путь в стиле Ant, перед ним можно указать метод через пробел: "GET /films".
+// Загрузки и выгрузки NDJSON пропускаются при любом списке путей: их тело Logbook копировал бы в память целиком.
+// Решение о теле ответа принимается до вызова контроллера, поэтому выгрузка узнаётся по заголовку Accept
+final class BodilessPathsStrategy implements Strategy {
+
+    private static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final List<Rule> rules;
+
+    BodilessPathsStrategy(List<String> patterns) {
+        this.rules = patterns.stream()
+                .map(String::trim)
+                .filter(pattern -> !pattern.isEmpty())
+                .map(BodilessPathsStrategy::parse)
+                .toList();
+    }
+
+    @Override
+    public HttpRequest process(HttpRequest request) throws IOException {
+        return isBodiless(request) ? request.withoutBody() : request.withBody();
+    }
+
+    @Override
+    public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+        return isBodiless(request) ? response.withoutBody() : response.withBody();
+    }
+
+    private boolean isBodiless(HttpRequest request) {
+        if (isNdjson(request.getContentType())) {
+            return true;
+        }
+        for (String accept : request.getHeaders().getOrDefault("Accept", List.of())) {
+            if (accept.toLowerCase(Locale.ROOT).contains(APPLICATION_NDJSON)) {
+                return true;
+            }
+        }
+        for (Rule rule : rules) {
+            if ((rule.method == null || rule.method.equalsIgnoreCase(request.getMethod()))
+                    && matcher.match(rule.path, request.getPath())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isNdjson(String mediaType) {
+        return mediaType != null && mediaType.toLowerCase(Locale.ROOT).startsWith(APPLICATION_NDJSON);
+    }
+
+    private static Rule parse(String pattern) {
+        int separator = pattern.indexOf(' ');
+        return separator < 0
+                ? new Rule(null, pattern)
+                : new Rule(pattern.substring(0, separator), pattern.substring(separator + 1).trim());
+    }
+
+    private record Rule(String method, String path) {
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.zalando.logbook.Strategy;
+
+import java.util.List;
+
+@Configuration
+public class LogbookConfig {
+
+    @Bean
+    public Strategy logbookStrategy(@Value("${filmorate.logging.bodiless-paths:}") List<String> bodilessPaths) {
+        return new BodilessPathsStrategy(bodilessPaths);
+    }
+}
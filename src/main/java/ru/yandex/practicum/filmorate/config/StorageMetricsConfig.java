@@ -0,0 +1,30 @@
+package ru.yandex.practicum.filmorate.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MeteredFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.MeteredUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+// Сервисы получают хранилища через декораторы с метриками. Хранилище активного профиля - единственный
+// другой бин своего типа, поэтому оно и внедряется в декоратор; сам декоратор Spring в него не подставляет
+@Configuration
+@ConditionalOnProperty(name = "filmorate.metrics.storage.enabled", matchIfMissing = true)
+public class StorageMetricsConfig {
+
+    @Bean
+    @Primary
+    public FilmStorage meteredFilmStorage(FilmStorage filmStorage, MeterRegistry meterRegistry) {
+        return new MeteredFilmStorage(filmStorage, meterRegistry);
+    }
+
+    @Bean
+    @Primary
+    public UserStorage meteredUserStorage(UserStorage userStorage, MeterRegistry meterRegistry) {
+        return new MeteredUserStorage(userStorage, meterRegistry);
+    }
+}
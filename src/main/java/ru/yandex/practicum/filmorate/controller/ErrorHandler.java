@@ -6,6 +6,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
@@ -45,4 +46,11 @@ public class ErrorHandler {
     public ErrorResponse handleValidationExceptions(MethodArgumentNotValidException e) {
         return new ErrorResponse("Ошибка валидации", e.getMessage());
     }
+
+    // Реактивный вариант API сообщает о нарушении ограничений тела запроса этим исключением
+    @ExceptionHandler(WebExchangeBindException.class)
+    @ResponseStatus(HttpStatus.BAD_REQUEST)
+    public ErrorResponse handleReactiveValidationExceptions(WebExchangeBindException e) {
+        return new ErrorResponse("Ошибка валидации", e.getMessage());
+    }
 }
\ No newline at end of file
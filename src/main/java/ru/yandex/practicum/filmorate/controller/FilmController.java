@@ -1,25 +1,47 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.service.film.FilmService;
 
 import java.util.List;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/films")
 public class FilmController {
 
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
+    // Без limit возвращается весь список, с limit - страница после фильма с id = after,
+    // курсор следующей страницы передаётся в заголовке X-Next-Cursor
     @GetMapping
-    public List<Film> getFilmsList() {
-        return filmService.getFilmsList();
+    public ResponseEntity<List<Film>> getFilmsList(@RequestParam(required = false) Integer limit,
+                                                   @RequestParam(defaultValue = "0") long after) {
+        if (limit == null) {
+            return ResponseEntity.ok(filmService.getFilmsList());
+        }
+        Page<Film> page = filmService.getFilmsPage(after, limit);
+        return Pages.toResponse(page);
+    }
+
+    // Выгрузка всех фильмов в формате NDJSON (Accept: application/x-ndjson) потоком из хранилища
+    @GetMapping(produces = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        return NdjsonStreams.toResponse(objectMapper, Film.class, filmService::forEachFilm);
     }
 
     @PostMapping
@@ -42,8 +64,28 @@ public class FilmController {
         filmService.deleteLike(id, userId);
     }
 
+    // Пакетная постановка и снятие лайков, результат по каждой операции в порядке запроса
+    @PostMapping("/likes:batch")
+    public List<LikeResult> applyLikes(@RequestBody List<LikeOperation> operations) {
+        return filmService.applyLikes(operations);
+    }
+
     @GetMapping("/popular")
     public List<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
         return filmService.getPopularFilms(count);
     }
+
+    @GetMapping("/trending")
+    public List<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    // Поиск по названию и описанию с подсказками по началу последнего слова
+    @GetMapping("/search")
+    public List<Film> searchFilms(@RequestParam String q,
+                                  @RequestParam(defaultValue = "10") int limit,
+                                  @RequestParam(defaultValue = "false") boolean boostByLikes) {
+        return filmService.searchFilms(q, limit, boostByLikes);
+    }
 }
\ No newline at end of file
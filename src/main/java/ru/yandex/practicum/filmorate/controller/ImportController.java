@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.user.UserService;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+// Загрузка каталогов в формате NDJSON (Content-Type: application/x-ndjson), по одной сущности на строку.
+// Пути с двоеточием не продолжают /films и /users через слеш, поэтому у контроллера нет общего префикса
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
+public class ImportController {
+
+    private final FilmService filmService;
+    private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @PostMapping(path = "/films:import", consumes = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public ImportReport importFilms(InputStream body) throws IOException {
+        log.info("Получен запрос на загрузку фильмов");
+        return NdjsonImport.run(body, objectMapper.readerFor(Film.class), validator, filmService::importFilms);
+    }
+
+    @PostMapping(path = "/users:import", consumes = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public ImportReport importUsers(InputStream body) throws IOException {
+        log.info("Получен запрос на загрузку пользователей");
+        return NdjsonImport.run(body, objectMapper.readerFor(User.class), validator, userService::importUsers);
+    }
+}
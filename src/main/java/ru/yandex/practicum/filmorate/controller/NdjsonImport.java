@@ -0,0 +1,131 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Загрузка сущностей из NDJSON. Тело читается построчно и не собирается в памяти целиком: строки копятся
+// порциями по CHUNK_SIZE, разбор и проверка аннотаций порции идут параллельно, а прошедшие проверку
+// сущности уходят в сервис одним пакетом. Ошибка в строке попадает в отчёт и не прерывает загрузку
+@Slf4j
+final class NdjsonImport {
+
+    static final int CHUNK_SIZE = 10_000;
+    static final int MAX_REPORTED_ERRORS = 1000;
+
+    private NdjsonImport() {
+    }
+
+    static <T> ImportReport run(InputStream body, ObjectReader reader, Validator validator,
+                                Function<List<T>, String[]> importer) throws IOException {
+        Progress progress = new Progress();
+        BufferedReader lines = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8), 1 << 16);
+        List<String> chunk = new ArrayList<>(CHUNK_SIZE);
+        List<Long> lineNumbers = new ArrayList<>(CHUNK_SIZE);
+        long lineNumber = 0;
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            chunk.add(line);
+            lineNumbers.add(lineNumber);
+            if (chunk.size() == CHUNK_SIZE) {
+                importChunk(chunk, lineNumbers, reader, validator, importer, progress);
+                chunk.clear();
+                lineNumbers.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            importChunk(chunk, lineNumbers, reader, validator, importer, progress);
+        }
+        log.info("Загрузка закончена: строк - {}, добавлено - {}, отклонено - {}",
+                progress.lines, progress.imported, progress.failed);
+        return new ImportReport(progress.lines, progress.imported, progress.failed, progress.errors);
+    }
+
+    private static <T> void importChunk(List<String> chunk, List<Long> lineNumbers, ObjectReader reader,
+                                        Validator validator, Function<List<T>, String[]> importer,
+                                        Progress progress) {
+        Object[] entities = new Object[chunk.size()];
+        String[] errors = new String[chunk.size()];
+        IntStream.range(0, chunk.size()).parallel().forEach(i -> {
+            // Любая ошибка остаётся ошибкой своей строки: исключение из параллельного потока прервало бы загрузку
+            try {
+                T entity = reader.readValue(chunk.get(i));
+                if (entity == null) {
+                    errors[i] = "Ожидался объект, а не null";
+                    return;
+                }
+                errors[i] = violations(validator.validate(entity));
+                entities[i] = entity;
+            } catch (JsonProcessingException e) {
+                errors[i] = "Некорректный JSON: " + e.getOriginalMessage();
+            } catch (RuntimeException e) {
+                errors[i] = "Строку не удалось обработать: " + e.getMessage();
+            }
+        });
+
+        List<T> valid = new ArrayList<>(chunk.size());
+        List<Integer> validIndexes = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            if (errors[i] == null) {
+                @SuppressWarnings("unchecked")
+                T entity = (T) entities[i];
+                valid.add(entity);
+                validIndexes.add(i);
+            }
+        }
+        if (!valid.isEmpty()) {
+            String[] rejected = importer.apply(valid);
+            for (int i = 0; i < rejected.length; i++) {
+                errors[validIndexes.get(i)] = rejected[i];
+            }
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            progress.lines++;
+            if (errors[i] == null) {
+                progress.imported++;
+                continue;
+            }
+            progress.failed++;
+            if (progress.errors.size() < MAX_REPORTED_ERRORS) {
+                progress.errors.add(new ImportReport.LineError(lineNumbers.get(i), errors[i]));
+            }
+        }
+    }
+
+    // Нарушения сортируются по полю, чтобы текст ошибки не зависел от порядка проверок
+    private static <T> String violations(Set<ConstraintViolation<T>> violations) {
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                .sorted()
+                .collect(Collectors.joining("; "));
+    }
+
+    private static final class Progress {
+        private long lines;
+        private long imported;
+        private long failed;
+        private final List<ImportReport.LineError> errors = new ArrayList<>();
+    }
+}
@@ -0,0 +1,55 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+final class NdjsonStreams {
+
+    static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private NdjsonStreams() {
+    }
+
+    static <T> ResponseEntity<StreamingResponseBody> toResponse(ObjectMapper objectMapper, Class<T> type,
+                                                               Consumer<Consumer<T>> source) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON_VALUE))
+                .body(stream(objectMapper, type, source));
+    }
+
+    // Каждая сущность пишется отдельной строкой сразу по мере обхода хранилища,
+    // ответ целиком в памяти не собирается. Сброс буфера после каждой записи отключён,
+    // в сеть данные уходят порциями по мере заполнения буферов генератора и контейнера
+    static <T> StreamingResponseBody stream(ObjectMapper objectMapper, Class<T> type,
+                                            Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writerFor(type)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        return outputStream -> {
+            // Разделитель корневых значений Jackson (пробел) не нужен: строки разделяются переводом строки
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)
+                    .setRootValueSeparator(null)) {
+                try {
+                    source.accept(entity -> {
+                        try {
+                            writer.writeValue(generator, entity);
+                            generator.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                } catch (UncheckedIOException e) {
+                    throw e.getCause();
+                }
+            }
+        };
+    }
+}
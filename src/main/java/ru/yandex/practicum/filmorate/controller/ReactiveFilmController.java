@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.service.film.ReactiveFilmService;
+
+import java.util.List;
+
+// Те же пути и ответы, что у FilmController, для запуска с spring.main.web-application-type=reactive
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/films")
+public class ReactiveFilmController {
+
+    private final ReactiveFilmService filmService;
+
+    // Массив JSON пишется в ответ по мере чтения страниц из хранилища
+    @GetMapping(params = "!limit")
+    public Flux<Film> getFilmsList() {
+        return filmService.getFilmsList();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<List<Film>>> getFilmsPage(@RequestParam int limit,
+                                                         @RequestParam(defaultValue = "0") long after) {
+        return filmService.getFilmsPage(after, limit).map(Pages::toResponse);
+    }
+
+    @GetMapping(produces = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public Flux<Film> exportFilms() {
+        return filmService.getFilmsList();
+    }
+
+    @PostMapping
+    public Mono<Film> createFilm(@Valid @RequestBody Film film) {
+        return filmService.createFilm(film);
+    }
+
+    @PutMapping
+    public Mono<Film> updateFilm(@Valid @RequestBody Film newFilm) {
+        return filmService.updateFilm(newFilm);
+    }
+
+    @PutMapping("/{id}/like/{userId}")
+    public Mono<Void> addLike(@PathVariable long id, @PathVariable long userId) {
+        return filmService.addLike(id, userId);
+    }
+
+    @DeleteMapping("/{id}/like/{userId}")
+    public Mono<Void> deleteLike(@PathVariable long id, @PathVariable long userId) {
+        return filmService.deleteLike(id, userId);
+    }
+
+    @PostMapping("/likes:batch")
+    public Mono<List<LikeResult>> applyLikes(@RequestBody List<LikeOperation> operations) {
+        return filmService.applyLikes(operations);
+    }
+
+    @GetMapping("/popular")
+    public Flux<Film> getPopularFilms(@RequestParam(defaultValue = "10") int count) {
+        return filmService.getPopularFilms(count);
+    }
+
+    @GetMapping("/trending")
+    public Flux<Film> getTrendingFilms(@RequestParam(defaultValue = "24h") String window,
+                                       @RequestParam(defaultValue = "10") int count) {
+        return filmService.getTrendingFilms(window, count);
+    }
+
+    @GetMapping("/search")
+    public Flux<Film> searchFilms(@RequestParam String q,
+                                  @RequestParam(defaultValue = "10") int limit,
+                                  @RequestParam(defaultValue = "false") boolean boostByLikes) {
+        return filmService.searchFilms(q, limit, boostByLikes);
+    }
+}
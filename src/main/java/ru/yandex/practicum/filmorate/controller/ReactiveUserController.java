@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.user.ReactiveUserService;
+
+import java.util.List;
+
+// Те же пути и ответы, что у UserController, для запуска с spring.main.web-application-type=reactive
+@Slf4j
+@RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RequestMapping("/users")
+public class ReactiveUserController {
+
+    private final ReactiveUserService userService;
+
+    @GetMapping(params = "!limit")
+    public Flux<User> getUsersList() {
+        return userService.getUserList();
+    }
+
+    @GetMapping(params = "limit")
+    public Mono<ResponseEntity<List<User>>> getUsersPage(@RequestParam int limit,
+                                                         @RequestParam(defaultValue = "0") long after) {
+        return userService.getUsersPage(after, limit).map(Pages::toResponse);
+    }
+
+    @GetMapping(produces = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public Flux<User> exportUsers() {
+        return userService.getUserList();
+    }
+
+    @PostMapping
+    public Mono<User> createUser(@Valid @RequestBody User user) {
+        return userService.createUser(user);
+    }
+
+    @PutMapping
+    public Mono<User> updateUser(@Valid @RequestBody User newUser) {
+        return userService.updateUser(newUser);
+    }
+
+    @PutMapping("/{id}/friends/{friendId}")
+    public Mono<Void> addFriend(@PathVariable long id, @PathVariable long friendId) {
+        return userService.addFriend(id, friendId);
+    }
+
+    @DeleteMapping("/{id}/friends/{friendId}")
+    public Mono<Void> deleteFriend(@PathVariable long id, @PathVariable long friendId) {
+        return userService.deleteFriend(id, friendId);
+    }
+
+    @GetMapping("/{id}/friends")
+    public Flux<User> getFriendsList(@PathVariable long id) {
+        return userService.getFriendsList(id);
+    }
+
+    @GetMapping("/{id}/friends/common/{otherId}")
+    public Flux<User> getCommonFriendsList(@PathVariable long id, @PathVariable long otherId) {
+        return userService.getCommonFriendsList(id, otherId);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public Flux<FriendSuggestion> getFriendSuggestions(@PathVariable long id,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/likes")
+    public Flux<Film> getLikedFilms(@PathVariable long id) {
+        return userService.getLikedFilms(id);
+    }
+
+    @DeleteMapping("/{id}/likes")
+    public Mono<Void> deleteUserLikes(@PathVariable long id) {
+        return userService.deleteUserLikes(id);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public Flux<Film> getRecommendations(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        return userService.getRecommendations(id, limit);
+    }
+}
@@ -1,27 +1,53 @@
 package ru.yandex.practicum.filmorate.controller;
 
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationService;
 import ru.yandex.practicum.filmorate.service.user.UserService;
 
 import java.util.*;
 
 @Slf4j
 @RestController
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RequestMapping("/users")
 public class UserController {
 
     private final UserService userService;
+    private final FilmService filmService;
+    private final RecommendationService recommendationService;
+    private final ObjectMapper objectMapper;
 
 
+    // Без limit возвращается весь список, с limit - страница после пользователя с id = after,
+    // курсор следующей страницы передаётся в заголовке X-Next-Cursor
     @GetMapping
-    public List<User> getUsersList() {
-        return userService.getUserList();
+    public ResponseEntity<List<User>> getUsersList(@RequestParam(required = false) Integer limit,
+                                                   @RequestParam(defaultValue = "0") long after) {
+        if (limit == null) {
+            return ResponseEntity.ok(userService.getUserList());
+        }
+        Page<User> page = userService.getUsersPage(after, limit);
+        return Pages.toResponse(page);
+    }
+
+    // Выгрузка всех пользователей в формате NDJSON (Accept: application/x-ndjson) потоком из хранилища
+    @GetMapping(produces = NdjsonStreams.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return NdjsonStreams.toResponse(objectMapper, User.class, userService::forEachUser);
     }
 
     @PostMapping
@@ -54,4 +80,25 @@ public class UserController {
     public List<User> getCommonFriendsList(@PathVariable long id, @PathVariable long otherId) {
         return userService.getCommonFriendsList(id, otherId);
     }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<FriendSuggestion> getFriendSuggestions(@PathVariable long id,
+                                                       @RequestParam(defaultValue = "10") int limit) {
+        return userService.getFriendSuggestions(id, limit);
+    }
+
+    @GetMapping("/{id}/likes")
+    public List<Film> getLikedFilms(@PathVariable long id) {
+        return filmService.getLikedFilms(id);
+    }
+
+    @DeleteMapping("/{id}/likes")
+    public void deleteUserLikes(@PathVariable long id) {
+        filmService.deleteUserLikes(id);
+    }
+
+    @GetMapping("/{id}/recommendations")
+    public List<Film> getRecommendations(@PathVariable long id, @RequestParam(defaultValue = "10") int limit) {
+        return recommendationService.getRecommendations(id, limit);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,6 @@
+package ru.yandex.practicum.filmorate.model;
+
+// Кандидат в друзья и число общих друзей с пользователем, для которого подобраны рекомендации.
+// approximate - общие друзья посчитаны по выборке друзей, и настоящее их число может быть больше
+public record FriendSuggestion(User user, int mutualFriends, boolean approximate) {
+}
@@ -0,0 +1,11 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+// Итог загрузки NDJSON: lines - сколько непустых строк прочитано, imported - сколько сущностей добавлено,
+// failed - сколько строк отклонено. В errors попадают только первые отклонённые строки, номера строк с единицы
+public record ImportReport(long lines, long imported, long failed, List<LineError> errors) {
+
+    public record LineError(long line, String message) {
+    }
+}
@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Элемент пакетной постановки лайков: поставить или убрать лайк пользователя userId фильму filmId
+public record LikeOperation(Long filmId, Long userId, Op op) {
+
+    public enum Op {
+        @JsonProperty("add")
+        ADD,
+        @JsonProperty("delete")
+        DELETE
+    }
+}
@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.model;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+// Результат одной операции пакета, результаты идут в том же порядке, что и операции
+public record LikeResult(long filmId, long userId, Status status) {
+
+    public enum Status {
+        // Лайк поставлен или убран
+        @JsonProperty("applied")
+        APPLIED,
+        // Лайк уже стоял или его и так не было
+        @JsonProperty("unchanged")
+        UNCHANGED,
+        @JsonProperty("film_not_found")
+        FILM_NOT_FOUND,
+        @JsonProperty("user_not_found")
+        USER_NOT_FOUND
+    }
+}
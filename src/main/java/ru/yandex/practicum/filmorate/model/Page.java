@@ -0,0 +1,7 @@
+package ru.yandex.practicum.filmorate.model;
+
+import java.util.List;
+
+// Страница выдачи по курсору: nextCursor - id последнего элемента страницы или null, если страница последняя
+public record Page<T>(List<T> items, Long nextCursor) {
+}
@@ -0,0 +1,248 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+// Кэш популярных фильмов перед FilmServiceImpl. Запись кэша - выдача для одного count с номером версии,
+// при котором она посчитана. Любое изменение лайков или фильмов увеличивает версию, и все записи
+// становятся устаревшими без очистки кэша. Повторный лайк, снятие несуществующего лайка и отклонённые
+// операции ничего не меняют и версию не трогают. Одинаковые одновременные промахи считаются один раз.
+// С stale-while-revalidate устаревшая запись отдаётся сразу, а пересчёт идёт в фоне: на каждый count
+// в очереди стоит не больше одного пересчёта, и он пропускается, если запись уже актуальна
+@Slf4j
+@Service
+@Primary
+public class CachingFilmService implements FilmService {
+
+    private final FilmService delegate;
+    private final int maxEntries;
+    private final boolean staleWhileRevalidate;
+
+    private final AtomicLong version = new AtomicLong();
+    private final AtomicLong accessClock = new AtomicLong();
+    private final Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+    private final Map<Integer, CompletableFuture<Entry>> loads = new ConcurrentHashMap<>();
+    private final Set<Integer> pendingRefresh = ConcurrentHashMap.newKeySet();
+    private final ExecutorService refreshExecutor;
+
+    private final Counter hits;
+    private final Counter staleHits;
+    private final Counter misses;
+
+    public CachingFilmService(@Qualifier("filmServiceImpl") FilmService delegate,
+                              MeterRegistry meterRegistry,
+                              @Value("${filmorate.cache.popular.max-entries:64}") int maxEntries,
+                              @Value("${filmorate.cache.popular.stale-while-revalidate:false}")
+                              boolean staleWhileRevalidate) {
+        this.delegate = delegate;
+        this.maxEntries = maxEntries;
+        this.staleWhileRevalidate = staleWhileRevalidate;
+        this.refreshExecutor = staleWhileRevalidate
+                ? Executors.newSingleThreadExecutor(Thread.ofPlatform().daemon().name("popular-films-refresh").factory())
+                : null;
+        hits = meterRegistry.counter("filmorate.cache.popular.requests", "result", "hit");
+        staleHits = meterRegistry.counter("filmorate.cache.popular.requests", "result", "stale");
+        misses = meterRegistry.counter("filmorate.cache.popular.requests", "result", "miss");
+        Gauge.builder("filmorate.cache.popular.size", entries, Map::size).register(meterRegistry);
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        return delegate.getFilmsList();
+    }
+
+    @Override
+    public Page<Film> getFilmsPage(long after, int limit) {
+        return delegate.getFilmsPage(after, limit);
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        delegate.forEachFilm(action);
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        Film created = delegate.createFilm(film);
+        version.incrementAndGet();
+        return created;
+    }
+
+    @Override
+    public String[] importFilms(List<Film> films) {
+        String[] errors = delegate.importFilms(films);
+        changed(Arrays.asList(errors).contains(null));
+        return errors;
+    }
+
+    @Override
+    public Film updateFilm(Film newFilm) {
+        Film updated = delegate.updateFilm(newFilm);
+        version.incrementAndGet();
+        return updated;
+    }
+
+    @Override
+    public boolean addLike(long id, long userId) {
+        return changed(delegate.addLike(id, userId));
+    }
+
+    @Override
+    public boolean deleteLike(long id, long userId) {
+        return changed(delegate.deleteLike(id, userId));
+    }
+
+    @Override
+    public List<Film> getLikedFilms(long userId) {
+        return delegate.getLikedFilms(userId);
+    }
+
+    @Override
+    public int deleteUserLikes(long userId) {
+        int deleted = delegate.deleteUserLikes(userId);
+        changed(deleted > 0);
+        return deleted;
+    }
+
+    @Override
+    public List<LikeResult> applyLikes(List<LikeOperation> operations) {
+        List<LikeResult> results = delegate.applyLikes(operations);
+        changed(results.stream().anyMatch(result -> result.status() == LikeResult.Status.APPLIED));
+        return results;
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        long currentVersion = version.get();
+        Entry entry = entries.get(count);
+        if (entry != null && entry.version == currentVersion) {
+            entry.lastAccess = accessClock.incrementAndGet();
+            hits.increment();
+            return entry.films;
+        }
+        if (entry != null && staleWhileRevalidate) {
+            entry.lastAccess = accessClock.incrementAndGet();
+            staleHits.increment();
+            if (pendingRefresh.add(count)) {
+                refreshExecutor.execute(() -> refreshQuietly(count));
+            }
+            return entry.films;
+        }
+        misses.increment();
+        return load(count, currentVersion).films;
+    }
+
+    @Override
+    public List<Film> getTrendingFilms(String window, int count) {
+        return delegate.getTrendingFilms(window, count);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        return delegate.searchFilms(query, limit, boostByLikes);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshExecutor != null) {
+            refreshExecutor.shutdownNow();
+        }
+    }
+
+    private boolean changed(boolean changed) {
+        if (changed) {
+            version.incrementAndGet();
+        }
+        return changed;
+    }
+
+    // Версия читается до расчёта: если лайк придёт во время расчёта, запись сразу окажется устаревшей
+    private Entry load(int count, long currentVersion) {
+        CompletableFuture<Entry> created = new CompletableFuture<>();
+        CompletableFuture<Entry> running = loads.putIfAbsent(count, created);
+        if (running != null) {
+            try {
+                return running.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            Entry entry = new Entry(currentVersion, List.copyOf(delegate.getPopularFilms(count)));
+            store(count, entry);
+            created.complete(entry);
+            return entry;
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            loads.remove(count, created);
+        }
+    }
+
+    // Отметка снимается после расчёта: чтения, пришедшие во время него, новый пересчёт не ставят,
+    // а первое чтение после него увидит либо актуальную запись, либо лайк, пришедший во время расчёта
+    private void refreshQuietly(int count) {
+        try {
+            long currentVersion = version.get();
+            Entry entry = entries.get(count);
+            if (entry == null || entry.version != currentVersion) {
+                load(count, currentVersion);
+            }
+        } catch (RuntimeException e) {
+            log.warn("Не удалось обновить кэш популярных фильмов для count = {}", count, e);
+        } finally {
+            pendingRefresh.remove(count);
+        }
+    }
+
+    // Запись с более старой версией не заменяет более новую. При переполнении вытесняется запись,
+    // к которой дольше всех не обращались: перебор maxEntries записей нужен только при добавлении нового count
+    private void store(int count, Entry entry) {
+        entry.lastAccess = accessClock.incrementAndGet();
+        Entry previous = entries.merge(count, entry, (old, updated) -> updated.version >= old.version ? updated : old);
+        if (previous == entry && entries.size() > maxEntries) {
+            entries.entrySet().stream()
+                    .filter(candidate -> candidate.getKey() != count)
+                    .min((first, second) -> Long.compare(first.getValue().lastAccess, second.getValue().lastAccess))
+                    .ifPresent(eldest -> entries.remove(eldest.getKey(), eldest.getValue()));
+        }
+    }
+
+    private static final class Entry {
+        private final long version;
+        private final List<Film> films;
+        private volatile long lastAccess;
+
+        private Entry(long version, List<Film> films) {
+            this.version = version;
+            this.films = films;
+        }
+    }
+}
@@ -1,21 +1,47 @@
 package ru.yandex.practicum.filmorate.service.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface FilmService {
 
     List<Film> getFilmsList();
 
+    Page<Film> getFilmsPage(long after, int limit);
+
+    void forEachFilm(Consumer<Film> action);
+
     Film createFilm(Film film);
 
+    // Фильмы уже прошли проверку аннотаций. Для каждого возвращается null, если он добавлен, или причина отказа
+    String[] importFilms(List<Film> films);
+
     Film updateFilm(Film newFilm);
 
-    void addLike(long id, long userId);
+    // Возвращают, изменился ли набор лайков фильма
+    boolean addLike(long id, long userId);
+
+    boolean deleteLike(long id, long userId);
 
-    void deleteLike(long id, long userId);
+    // Фильмы, которые лайкнул пользователь, по возрастанию id
+    List<Film> getLikedFilms(long userId);
+
+    // Убирает все лайки пользователя и возвращает, сколько их было
+    int deleteUserLikes(long userId);
+
+    List<LikeResult> applyLikes(List<LikeOperation> operations);
 
     List<Film> getPopularFilms(int count);
 
+    // Фильмы с наибольшим числом лайков за последние window (1h, 24h или 7d)
+    List<Film> getTrendingFilms(String window, int count);
+
+    // Поиск по названию и описанию, последнее слово запроса может быть началом слова
+    List<Film> searchFilms(String query, int limit, boolean boostByLikes);
+
 }
@@ -6,18 +6,26 @@ import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
-import java.util.List;
-import java.util.Optional;
+import java.util.*;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class FilmServiceImpl implements FilmService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_LIKE_BATCH_SIZE = 100_000;
+    private static final int MAX_SEARCH_RESULTS = 100;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
+    private final TrendingFilms trendingFilms;
 
 
     @Override
@@ -26,6 +34,26 @@ public class FilmServiceImpl implements FilmService {
     }
 
 
+    @Override
+    public Page<Film> getFilmsPage(long after, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        // Запрашиваем на один элемент больше, чтобы понять, есть ли следующая страница
+        List<Film> films = filmStorage.getFilmsPage(after, limit + 1);
+        if (films.size() <= limit) {
+            return new Page<>(films, null);
+        }
+        List<Film> page = films.subList(0, limit);
+        return new Page<>(page, page.get(limit - 1).getId());
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        filmStorage.forEachFilm(action);
+    }
+
+
     @Override
     public Film createFilm(Film film) {
         if (filmStorage.existByNameAndReleaseDate(film)) { // сравнивает только name и releaseDate
@@ -35,6 +63,34 @@ public class FilmServiceImpl implements FilmService {
     }
 
 
+    // Дубликаты по названию и дате выхода отсеивает само хранилище одним пакетом, без отдельной проверки на фильм
+    @Override
+    public String[] importFilms(List<Film> films) {
+        boolean[] created;
+        try {
+            created = filmStorage.createFilms(films);
+        } catch (DuplicatedDataException e) {
+            // Пакет откатился из-за параллельного добавления такого же фильма - добавляем по одному
+            created = new boolean[films.size()];
+            for (int i = 0; i < films.size(); i++) {
+                try {
+                    filmStorage.createFilm(films.get(i));
+                    created[i] = true;
+                } catch (DuplicatedDataException duplicate) {
+                    created[i] = false;
+                }
+            }
+        }
+        String[] errors = new String[films.size()];
+        for (int i = 0; i < films.size(); i++) {
+            if (!created[i]) {
+                errors[i] = "Фильм с таким названием и годом выпуска уже есть в списке";
+            }
+        }
+        return errors;
+    }
+
+
     @Override
     public Film updateFilm(Film newFilm) {
         Long newFilmId = newFilm.getId();
@@ -53,30 +109,139 @@ public class FilmServiceImpl implements FilmService {
 
 
     @Override
-    public void addLike(long id, long userId) {
+    public boolean addLike(long id, long userId) {
         if (!filmStorage.containsFilmById(id)) {
             throw new NotFoundException("Фильм c id = " + id + " не найден");
         }
         if (!userStorage.containsUserById(userId)) {
             throw new NotFoundException("Пользователь c id = " + id + " не найден");
         }
-        filmStorage.addLike(id, userId);
+        if (!filmStorage.addLike(id, userId)) {
+            return false;
+        }
+        trendingFilms.record(id, 1);
+        return true;
     }
 
 
     @Override
-    public void deleteLike(long id, long userId) {
+    public boolean deleteLike(long id, long userId) {
         if (!filmStorage.containsFilmById(id)) {
             throw new NotFoundException("Фильм c id = " + id + " не найден");
         }
         if (!userStorage.containsUserById(userId)) {
             throw new NotFoundException("Пользователь c id = " + id + " не найден");
         }
-        filmStorage.deleteLike(id, userId);
+        if (!filmStorage.deleteLike(id, userId)) {
+            return false;
+        }
+        trendingFilms.record(id, -1);
+        return true;
+    }
+
+    // id берутся из обратного индекса пользователь -> фильмы, а фильмы читаются одним пакетом
+    @Override
+    public List<Film> getLikedFilms(long userId) {
+        if (!userStorage.containsUserById(userId)) {
+            throw new NotFoundException("Пользователь c id = " + userId + " не найден");
+        }
+        long[] filmIds = filmStorage.getLikedFilmIds(userId);
+        List<Long> ids = new ArrayList<>(filmIds.length);
+        for (long filmId : filmIds) {
+            ids.add(filmId);
+        }
+        return filmStorage.findFilmsByIds(ids);
+    }
+
+
+    @Override
+    public int deleteUserLikes(long userId) {
+        if (!userStorage.containsUserById(userId)) {
+            throw new NotFoundException("Пользователь c id = " + userId + " не найден");
+        }
+        long[] filmIds = filmStorage.deleteUserLikes(userId);
+        for (long filmId : filmIds) {
+            trendingFilms.record(filmId, -1);
+        }
+        return filmIds.length;
+    }
+
+    // Существование фильмов и пользователей проверяется двумя запросами на весь пакет. Операции с
+    // несуществующими id не прерывают пакет, а получают свой статус в ответе
+    @Override
+    public List<LikeResult> applyLikes(List<LikeOperation> operations) {
+        if (operations.size() > MAX_LIKE_BATCH_SIZE) {
+            throw new ValidationException("В пакете может быть не больше " + MAX_LIKE_BATCH_SIZE + " операций");
+        }
+        Set<Long> filmIds = new HashSet<>();
+        Set<Long> userIds = new HashSet<>();
+        for (LikeOperation operation : operations) {
+            if (operation == null || operation.filmId() == null || operation.userId() == null
+                    || operation.op() == null) {
+                throw new ValidationException("У каждой операции должны быть указаны filmId, userId и op");
+            }
+            filmIds.add(operation.filmId());
+            userIds.add(operation.userId());
+        }
+        Set<Long> existingFilms = filmStorage.findExistingIds(filmIds);
+        Set<Long> existingUsers = userStorage.findExistingIds(userIds);
+
+        LikeResult.Status[] statuses = new LikeResult.Status[operations.size()];
+        List<LikeOperation> valid = new ArrayList<>(operations.size());
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            if (!existingFilms.contains(operation.filmId())) {
+                statuses[i] = LikeResult.Status.FILM_NOT_FOUND;
+            } else if (!existingUsers.contains(operation.userId())) {
+                statuses[i] = LikeResult.Status.USER_NOT_FOUND;
+            } else {
+                valid.add(operation);
+            }
+        }
+        boolean[] changed = valid.isEmpty() ? new boolean[0] : filmStorage.applyLikes(valid);
+
+        List<LikeResult> results = new ArrayList<>(operations.size());
+        int applied = 0;
+        for (int i = 0; i < operations.size(); i++) {
+            LikeOperation operation = operations.get(i);
+            LikeResult.Status status = statuses[i];
+            if (status == null) {
+                status = changed[applied++] ? LikeResult.Status.APPLIED : LikeResult.Status.UNCHANGED;
+                if (status == LikeResult.Status.APPLIED) {
+                    trendingFilms.record(operation.filmId(), operation.op() == LikeOperation.Op.ADD ? 1 : -1);
+                }
+            }
+            results.add(new LikeResult(operation.filmId(), operation.userId(), status));
+        }
+        return results;
     }
 
     @Override
     public List<Film> getPopularFilms(int count) {
         return filmStorage.getPopularFilms(count);
     }
+
+    @Override
+    public List<Film> getTrendingFilms(String window, int count) {
+        if (count <= 0 || count > TrendingFilms.MAX_TRENDING) {
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + TrendingFilms.MAX_TRENDING);
+        }
+        long[] filmIds = trendingFilms.top(TrendingWindow.of(window), count);
+        List<Long> ids = new ArrayList<>(filmIds.length);
+        for (long filmId : filmIds) {
+            ids.add(filmId);
+        }
+        return filmStorage.findFilmsByIds(ids);
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        if (query == null || query.isBlank()) {
+            throw new ValidationException("Строка поиска не может быть пустой");
+        }
+        if (limit <= 0 || limit > MAX_SEARCH_RESULTS) {
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + MAX_SEARCH_RESULTS);
+        }
+        return filmStorage.searchFilms(query, limit, boostByLikes);
+    }
 }
@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.List;
+
+public interface ReactiveFilmService {
+
+    // Весь список отдаётся потоком: следующая страница из хранилища читается, только когда подписчик
+    // запросил элементы сверх уже прочитанных
+    Flux<Film> getFilmsList();
+
+    Mono<Page<Film>> getFilmsPage(long after, int limit);
+
+    Mono<Film> createFilm(Film film);
+
+    Mono<Film> updateFilm(Film newFilm);
+
+    Mono<Void> addLike(long id, long userId);
+
+    Mono<Void> deleteLike(long id, long userId);
+
+    Mono<List<LikeResult>> applyLikes(List<LikeOperation> operations);
+
+    Flux<Film> getPopularFilms(int count);
+
+    Flux<Film> getTrendingFilms(String window, int count);
+
+    Flux<Film> searchFilms(String query, int limit, boolean boostByLikes);
+}
@@ -0,0 +1,95 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.Page;
+
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// Реактивная обёртка над FilmService: проверки и кэш остаются общими с сервлетной версией.
+// Все вызовы сервиса уходят в boundedElastic, а не выполняются в потоке цикла событий: блокируют не только
+// JDBC-хранилища, но и хранилища в памяти - ожиданием fsync журнала при включённом сохранении на диск
+@Service
+public class ReactiveFilmServiceImpl implements ReactiveFilmService {
+
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final FilmService filmService;
+    private final Scheduler scheduler;
+
+    public ReactiveFilmServiceImpl(FilmService filmService) {
+        this.filmService = filmService;
+        this.scheduler = Schedulers.boundedElastic();
+    }
+
+    // expand запрашивает следующую страницу по курсору предыдущей только при спросе подписчика,
+    // concatMapIterable держит в запасе не больше одной прочитанной страницы
+    @Override
+    public Flux<Film> getFilmsList() {
+        return getFilmsPage(0, STREAM_PAGE_SIZE)
+                .expand(page -> page.nextCursor() == null
+                        ? Mono.empty()
+                        : getFilmsPage(page.nextCursor(), STREAM_PAGE_SIZE))
+                .concatMapIterable(Page::items, 1);
+    }
+
+    @Override
+    public Mono<Page<Film>> getFilmsPage(long after, int limit) {
+        return call(() -> filmService.getFilmsPage(after, limit));
+    }
+
+    @Override
+    public Mono<Film> createFilm(Film film) {
+        return call(() -> filmService.createFilm(film));
+    }
+
+    @Override
+    public Mono<Film> updateFilm(Film newFilm) {
+        return call(() -> filmService.updateFilm(newFilm));
+    }
+
+    @Override
+    public Mono<Void> addLike(long id, long userId) {
+        return run(() -> filmService.addLike(id, userId));
+    }
+
+    @Override
+    public Mono<Void> deleteLike(long id, long userId) {
+        return run(() -> filmService.deleteLike(id, userId));
+    }
+
+    @Override
+    public Mono<List<LikeResult>> applyLikes(List<LikeOperation> operations) {
+        return call(() -> filmService.applyLikes(operations));
+    }
+
+    @Override
+    public Flux<Film> getPopularFilms(int count) {
+        return call(() -> filmService.getPopularFilms(count)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Flux<Film> getTrendingFilms(String window, int count) {
+        return call(() -> filmService.getTrendingFilms(window, count)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Flux<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        return call(() -> filmService.searchFilms(query, limit, boostByLikes)).flatMapIterable(films -> films);
+    }
+
+    private <T> Mono<T> call(Callable<T> action) {
+        return Mono.fromCallable(action).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
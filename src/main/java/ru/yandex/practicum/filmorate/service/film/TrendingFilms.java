@@ -0,0 +1,205 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Лайки фильмов за последние час, сутки и неделю. У фильма, которому ставили лайк, есть массив счётчиков:
+// подряд кольца корзин всех окон из TrendingWindow. Лайк прибавляет единицу к текущей корзине каждого окна,
+// снятие лайка вычитает её - по одному атомарному сложению на окно, без блокировок. Корзина обнуляется у всех
+// фильмов до первой записи в неё: обычно заранее, в rotate, а если ротация отстала - первым записывающим.
+// Раз в refresh-interval rotate ещё и кучей на MAX_TRENDING элементов отбирает лидеров каждого окна.
+// Запрос трендов читает готовый список и стоит O(count), но видит лайки с опозданием до refresh-interval.
+// Счётчики фильма не удаляются: их число ограничено каталогом
+@Slf4j
+@Component
+public class TrendingFilms {
+
+    static final int MAX_TRENDING = 100;
+
+    private static final TrendingWindow[] WINDOWS = TrendingWindow.values();
+    // Начало кольца каждого окна в массиве счётчиков фильма
+    private static final int[] OFFSETS = new int[WINDOWS.length];
+    private static final int SLOTS;
+    // Худший кандидат в вершине кучи: меньше лайков, при равенстве - больший id
+    private static final Comparator<long[]> WORST_FIRST = Comparator.<long[]>comparingLong(entry -> entry[1])
+            .thenComparing(entry -> entry[0], Comparator.reverseOrder());
+
+    static {
+        int slots = 0;
+        for (int w = 0; w < WINDOWS.length; w++) {
+            OFFSETS[w] = slots;
+            slots += WINDOWS[w].buckets();
+        }
+        SLOTS = slots;
+    }
+
+    private final Clock clock;
+    private final Duration refreshInterval;
+    private final Map<Long, AtomicIntegerArray> counters = new ConcurrentHashMap<>();
+    // Последняя уже обнулённая корзина каждого окна, в номерах корзин от начала эпохи. Растёт под clearLock.
+    // clearLock может взять поток запроса, поэтому блокировки не synchronized и не закрепляют виртуальный поток
+    private final AtomicLongArray clearedThrough = new AtomicLongArray(WINDOWS.length);
+    private final ReentrantLock clearLock = new ReentrantLock();
+    private final ReentrantLock rotateLock = new ReentrantLock();
+    private final ScheduledExecutorService rotateScheduler;
+    // id лидеров каждого окна по убыванию лайков
+    private volatile long[][] tops = new long[WINDOWS.length][0];
+
+    @Autowired
+    public TrendingFilms(@Value("${filmorate.trending.refresh-interval:10s}") Duration refreshInterval) {
+        this(Clock.systemUTC(), refreshInterval);
+    }
+
+    public TrendingFilms(Clock clock, Duration refreshInterval) {
+        this.clock = clock;
+        this.refreshInterval = refreshInterval;
+        this.rotateScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("trending-films-rotate").factory());
+        long now = clock.millis();
+        for (int w = 0; w < WINDOWS.length; w++) {
+            clearedThrough.set(w, now / WINDOWS[w].bucketMillis() + 1);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (refreshInterval.isPositive()) {
+            rotateScheduler.scheduleWithFixedDelay(this::rotateQuietly, refreshInterval.toMillis(),
+                    refreshInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        rotateScheduler.shutdownNow();
+    }
+
+    // delta: 1 - лайк поставлен, -1 - снят
+    public void record(long filmId, int delta) {
+        AtomicIntegerArray filmCounters = counters.get(filmId);
+        if (filmCounters == null) {
+            filmCounters = counters.computeIfAbsent(filmId, id -> new AtomicIntegerArray(SLOTS));
+        }
+        long now = clock.millis();
+        for (int w = 0; w < WINDOWS.length; w++) {
+            long bucket = now / WINDOWS[w].bucketMillis();
+            if (clearedThrough.get(w) < bucket) {
+                clearThrough(w, bucket);
+            }
+            filmCounters.getAndAdd(slot(w, bucket), delta);
+        }
+    }
+
+    public long[] top(TrendingWindow window, int count) {
+        long[] top = tops[window.ordinal()];
+        return Arrays.copyOf(top, Math.min(count, top.length));
+    }
+
+    // Корзина, которая станет текущей следующей, обнуляется заранее: в неё сейчас никто не пишет
+    public void rotate() {
+        rotateLock.lock();
+        try {
+            rotateLocked();
+        } finally {
+            rotateLock.unlock();
+        }
+    }
+
+    private void rotateLocked() {
+        long startedAt = System.nanoTime();
+        long now = clock.millis();
+        for (int w = 0; w < WINDOWS.length; w++) {
+            clearThrough(w, now / WINDOWS[w].bucketMillis() + 1);
+        }
+
+        // Кандидат - пара {id фильма, лайки за окно}
+        List<PriorityQueue<long[]>> heaps = new ArrayList<>(WINDOWS.length);
+        for (int w = 0; w < WINDOWS.length; w++) {
+            heaps.add(new PriorityQueue<>(MAX_TRENDING + 1, WORST_FIRST));
+        }
+        counters.forEach((filmId, filmCounters) -> {
+            for (int w = 0; w < WINDOWS.length; w++) {
+                long likes = 0;
+                for (int slot = OFFSETS[w]; slot < OFFSETS[w] + WINDOWS[w].buckets(); slot++) {
+                    likes += filmCounters.get(slot);
+                }
+                if (likes <= 0) {
+                    continue;
+                }
+                PriorityQueue<long[]> heap = heaps.get(w);
+                if (heap.size() < MAX_TRENDING) {
+                    heap.add(new long[]{filmId, likes});
+                    continue;
+                }
+                long[] worst = heap.peek();
+                if (likes > worst[1] || likes == worst[1] && filmId < worst[0]) {
+                    heap.poll();
+                    heap.add(new long[]{filmId, likes});
+                }
+            }
+        });
+        long[][] updated = new long[WINDOWS.length][];
+        for (int w = 0; w < WINDOWS.length; w++) {
+            updated[w] = new long[heaps.get(w).size()];
+            for (int i = updated[w].length - 1; i >= 0; i--) {
+                updated[w][i] = heaps.get(w).poll()[0];
+            }
+        }
+        tops = updated;
+        log.debug("Тренды пересчитаны за {} мкс, фильмов со счётчиками: {}",
+                TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startedAt), counters.size());
+    }
+
+    private void rotateQuietly() {
+        try {
+            rotate();
+        } catch (RuntimeException e) {
+            log.warn("Не удалось пересчитать тренды", e);
+        }
+    }
+
+    // Обнуляет все ещё не обнулённые корзины окна до bucket включительно, но не больше одного круга
+    private void clearThrough(int window, long bucket) {
+        clearLock.lock();
+        try {
+            long cleared = clearedThrough.get(window);
+            if (cleared >= bucket) {
+                return;
+            }
+            for (long next = Math.max(cleared + 1, bucket - WINDOWS[window].buckets() + 1); next <= bucket; next++) {
+                int slot = slot(window, next);
+                for (AtomicIntegerArray filmCounters : counters.values()) {
+                    filmCounters.set(slot, 0);
+                }
+            }
+            clearedThrough.set(window, bucket);
+        } finally {
+            clearLock.unlock();
+        }
+    }
+
+    private static int slot(int window, long bucket) {
+        return OFFSETS[window] + (int) (bucket % WINDOWS[window].buckets());
+    }
+}
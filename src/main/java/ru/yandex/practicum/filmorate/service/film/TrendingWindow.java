@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+
+import java.time.Duration;
+
+// Окно трендов делится на корзины по времени. Корзин на одну больше, чем помещается в окно: пока текущая
+// корзина заполняется, самая старая уже обнулена под следующую, поэтому окно сдвигается шагами по одной
+// корзине, а не целиком
+public enum TrendingWindow {
+
+    HOUR("1h", Duration.ofMinutes(5), 12),
+    DAY("24h", Duration.ofHours(1), 24),
+    WEEK("7d", Duration.ofHours(6), 28);
+
+    private final String label;
+    private final long bucketMillis;
+    private final int buckets;
+
+    TrendingWindow(String label, Duration bucket, int bucketsPerWindow) {
+        this.label = label;
+        this.bucketMillis = bucket.toMillis();
+        this.buckets = bucketsPerWindow + 1;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    long bucketMillis() {
+        return bucketMillis;
+    }
+
+    int buckets() {
+        return buckets;
+    }
+
+    public static TrendingWindow of(String label) {
+        for (TrendingWindow window : values()) {
+            if (window.label.equals(label)) {
+                return window;
+            }
+        }
+        throw new ValidationException("Окно должно быть одним из: 1h, 24h, 7d");
+    }
+}
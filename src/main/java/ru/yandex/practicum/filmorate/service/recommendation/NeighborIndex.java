@@ -0,0 +1,310 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// Снимок для рекомендаций: лайки всех пользователей, корзины LSH и таблица NEIGHBORS ближайших соседей
+// каждого пользователя по сходству Жаккара. После постройки не меняется и читается без блокировок.
+// Кандидаты в соседи - только пользователи из общих корзин, поэтому постройка не сравнивает все пары:
+// на пользователя приходится не больше MAX_EXACT точных сравнений из BANDS * BUCKET_WINDOW кандидатов
+final class NeighborIndex {
+
+    static final int NEIGHBORS = 20;
+    // Сколько соседей по корзине смотрится в каждой полосе: у популярных сочетаний фильмов корзины огромные
+    static final int BUCKET_WINDOW = 16;
+    // Сколько кандидатов с наибольшим числом общих корзин проверяется точно. Число общих полос из BANDS -
+    // оценка сходства по MinHash, и точный Жаккар для остальных почти никогда не попадает в лучшие NEIGHBORS
+    static final int MAX_EXACT = 2 * NEIGHBORS;
+    // Пользователей в одной задаче параллельной постройки
+    private static final int CHUNK = 4096;
+
+    static final NeighborIndex EMPTY = new NeighborIndex(new long[0], new int[1], new long[0],
+            new long[MinHash.BANDS][0], new int[0], new float[0]);
+
+    // userIds по возрастанию. Лайки пользователя userIds[i] по возрастанию - filmIds[likeOffsets[i]]
+    // до filmIds[likeOffsets[i + 1]]: один массив вместо миллиона мелких, и чтение лайков кандидата
+    // стоит одного промаха кэша, а не двух
+    private final long[] userIds;
+    private final int[] likeOffsets;
+    private final long[] filmIds;
+    // Для каждой полосы: (ключ корзины << 32) | номер пользователя, по возрастанию - корзина занимает отрезок
+    private final long[][] buckets;
+    // Соседи пользователя i - номера в neighbors[i * NEIGHBORS ...], по убыванию сходства, -1 - пусто
+    private final int[] neighbors;
+    private final float[] similarities;
+
+    private NeighborIndex(long[] userIds, int[] likeOffsets, long[] filmIds, long[][] buckets, int[] neighbors,
+                          float[] similarities) {
+        this.userIds = userIds;
+        this.likeOffsets = likeOffsets;
+        this.filmIds = filmIds;
+        this.buckets = buckets;
+        this.neighbors = neighbors;
+        this.similarities = similarities;
+    }
+
+    // Сигнатуры, сортировка корзин и поиск соседей идут частями в pool. После сортировки запоминается
+    // место каждого пользователя в каждой полосе: окно корзины читается подряд от него, без двоичного
+    // поиска по массиву на миллионы записей, где каждый шаг - промах кэша
+    static NeighborIndex build(long[] userIds, long[][] likes, ForkJoinPool pool) {
+        int size = userIds.length;
+        int chunks = (size + CHUNK - 1) / CHUNK;
+        int[] likeOffsets = new int[size + 1];
+        for (int i = 0; i < size; i++) {
+            likeOffsets[i + 1] = likeOffsets[i] + likes[i].length;
+        }
+        long[] filmIds = new long[likeOffsets[size]];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(likes[i], 0, filmIds, likeOffsets[i], likes[i].length);
+        }
+        long[][] buckets = new long[MinHash.BANDS][size];
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            for (int i = chunk * CHUNK; i < Math.min(size, (chunk + 1) * CHUNK); i++) {
+                int[] bandKeys = MinHash.bandKeys(MinHash.signature(filmIds, likeOffsets[i], likeOffsets[i + 1]));
+                for (int band = 0; band < MinHash.BANDS; band++) {
+                    buckets[band][i] = entry(bandKeys[band], i);
+                }
+            }
+        })).join();
+        int[] positions = new int[size * MinHash.BANDS];
+        pool.submit(() -> IntStream.range(0, MinHash.BANDS).parallel().forEach(band -> {
+            long[] bucket = buckets[band];
+            Arrays.sort(bucket);
+            for (int position = 0; position < size; position++) {
+                positions[(int) bucket[position] * MinHash.BANDS + band] = position;
+            }
+        })).join();
+
+        int[] neighbors = new int[size * NEIGHBORS];
+        float[] similarities = new float[size * NEIGHBORS];
+        NeighborIndex index = new NeighborIndex(userIds, likeOffsets, filmIds, buckets, neighbors, similarities);
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            int[] userPositions = new int[MinHash.BANDS];
+            int[] candidates = new int[MinHash.BANDS * BUCKET_WINDOW];
+            int[] collisions = new int[MinHash.BANDS * BUCKET_WINDOW];
+            for (int i = chunk * CHUNK; i < Math.min(size, (chunk + 1) * CHUNK); i++) {
+                System.arraycopy(positions, i * MinHash.BANDS, userPositions, 0, MinHash.BANDS);
+                index.findNeighbors(filmIds, likeOffsets[i], likeOffsets[i + 1], null, userPositions, i, userIds[i],
+                        candidates, collisions, neighbors, similarities, i * NEIGHBORS);
+            }
+        })).join();
+        return index;
+    }
+
+    int size() {
+        return userIds.length;
+    }
+
+    // Лайки пользователя на момент постройки
+    long[] likes(long userId) {
+        int index = Arrays.binarySearch(userIds, userId);
+        return index < 0 ? new long[0] : Arrays.copyOfRange(filmIds, likeOffsets[index], likeOffsets[index + 1]);
+    }
+
+    // Соседи из таблицы, если лайки пользователя с постройки не менялись. Иначе соседи ищутся заново
+    // по корзинам снимка для текущих лайков: так новый пользователь или поменявший вкусы получает соседей
+    // сразу, не дожидаясь перестройки
+    Neighbors neighbors(long userId, long[] currentLikes) {
+        int index = Arrays.binarySearch(userIds, userId);
+        int[] found;
+        float[] foundSimilarities;
+        int offset;
+        if (index >= 0 && Arrays.equals(filmIds, likeOffsets[index], likeOffsets[index + 1],
+                currentLikes, 0, currentLikes.length)) {
+            found = neighbors;
+            foundSimilarities = similarities;
+            offset = index * NEIGHBORS;
+        } else {
+            found = new int[NEIGHBORS];
+            foundSimilarities = new float[NEIGHBORS];
+            offset = 0;
+            if (currentLikes.length > 0) {
+                findNeighbors(currentLikes, 0, currentLikes.length, MinHash.bandKeys(MinHash.signature(currentLikes)),
+                        null, index, userId, new int[MinHash.BANDS * BUCKET_WINDOW],
+                        new int[MinHash.BANDS * BUCKET_WINDOW], found, foundSimilarities, 0);
+            } else {
+                Arrays.fill(found, -1);
+            }
+        }
+        int count = 0;
+        while (count < NEIGHBORS && found[offset + count] >= 0) {
+            count++;
+        }
+        long[] neighborIds = new long[count];
+        float[] neighborSimilarities = new float[count];
+        for (int i = 0; i < count; i++) {
+            neighborIds[i] = userIds[found[offset + i]];
+            neighborSimilarities[i] = foundSimilarities[offset + i];
+        }
+        return new Neighbors(currentLikes, neighborIds, neighborSimilarities);
+    }
+
+    // Кандидаты из корзин пользователя во всех полосах, точное сходство с каждым, лучшие NEIGHBORS - в out
+    // с позиции offset. Корзины задаются ключами bandKeys или местами самого пользователя в полосах positions.
+    // self - номер пользователя в снимке или отрицательное число, если его там нет
+    private void findNeighbors(long[] userLikes, int likesFrom, int likesTo, int[] bandKeys, int[] positions,
+                               int self, long userId, int[] candidates, int[] collisions, int[] out,
+                               float[] outSimilarities, int offset) {
+        int count = 0;
+        for (int band = 0; band < MinHash.BANDS; band++) {
+            int position = positions != null
+                    ? positions[band]
+                    : positionInBucket(buckets[band], bandKeys[band], userId);
+            if (position >= 0) {
+                count = collectCandidates(buckets[band], position, candidates, count);
+            }
+        }
+        // Кандидат встречается столько раз, во скольких полосах совпал с пользователем. После сортировки
+        // повторы идут подряд и сжимаются в пары: номер в начале массива, число совпадений в collisions
+        Arrays.sort(candidates, 0, count);
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (candidates[i] == self) {
+                continue;
+            }
+            if (unique > 0 && candidates[unique - 1] == candidates[i]) {
+                collisions[unique - 1]++;
+            } else {
+                candidates[unique] = candidates[i];
+                collisions[unique++] = 1;
+            }
+        }
+        Arrays.fill(out, offset, offset + NEIGHBORS, -1);
+        int found = 0;
+        int checked = 0;
+        for (int band = MinHash.BANDS; band > 0 && checked < MAX_EXACT; band--) {
+            for (int i = 0; i < unique && checked < MAX_EXACT; i++) {
+                if (collisions[i] == band) {
+                    checked++;
+                    int candidate = candidates[i];
+                    float similarity = jaccard(userLikes, likesFrom, likesTo,
+                            filmIds, likeOffsets[candidate], likeOffsets[candidate + 1]);
+                    found = offer(candidate, similarity, found,
+                            out, outSimilarities, offset);
+                }
+            }
+        }
+    }
+
+    // Вставка кандидата в список лучших по убыванию сходства, при равенстве - по возрастанию номера,
+    // то есть id. Возвращает новую длину списка
+    private static int offer(int candidate, float similarity, int found, int[] out, float[] outSimilarities,
+                             int offset) {
+        if (similarity == 0 || (found == NEIGHBORS && !better(similarity, candidate,
+                outSimilarities[offset + NEIGHBORS - 1], out[offset + NEIGHBORS - 1]))) {
+            return found;
+        }
+        int position = found < NEIGHBORS ? found++ : NEIGHBORS - 1;
+        while (position > 0 && better(similarity, candidate,
+                outSimilarities[offset + position - 1], out[offset + position - 1])) {
+            out[offset + position] = out[offset + position - 1];
+            outSimilarities[offset + position] = outSimilarities[offset + position - 1];
+            position--;
+        }
+        out[offset + position] = candidate;
+        outSimilarities[offset + position] = similarity;
+        return found;
+    }
+
+    private static boolean better(float similarity, int candidate, float otherSimilarity, int other) {
+        return similarity > otherSimilarity || (similarity == otherSimilarity && candidate < other);
+    }
+
+    // Место в корзине key, от которого читается окно для пользователя не из снимка: задаётся его id,
+    // чтобы повторные запросы давали тех же соседей. -1, если корзина пуста
+    private static int positionInBucket(long[] bucket, int key, long userId) {
+        int from = firstWithKeyAtLeast(bucket, key);
+        int to = firstWithKeyAtLeast(bucket, key + 1L);
+        return from == to ? -1 : from + (int) Math.floorMod(MinHash.mix(userId), (long) (to - from));
+    }
+
+    // Не больше BUCKET_WINDOW записей той же корзины вокруг position: вся корзина, если она мала.
+    // Окно расширяется в обе стороны, пока не упрётся в границы корзины
+    private static int collectCandidates(long[] bucket, int position, int[] candidates, int count) {
+        long key = bucket[position] >> 32;
+        int from = position;
+        int to = position + 1;
+        while (to - from < BUCKET_WINDOW) {
+            boolean grown = false;
+            if (from > 0 && (bucket[from - 1] >> 32) == key) {
+                from--;
+                grown = true;
+            }
+            if (to - from < BUCKET_WINDOW && to < bucket.length && (bucket[to] >> 32) == key) {
+                to++;
+                grown = true;
+            }
+            if (!grown) {
+                break;
+            }
+        }
+        for (int i = from; i < to; i++) {
+            candidates[count++] = (int) bucket[i];
+        }
+        return count;
+    }
+
+    // Записи упорядочены по ключу корзины в старших 32 битах: номер пользователя в младших неотрицателен
+    private static int firstWithKeyAtLeast(long[] bucket, long key) {
+        int low = 0;
+        int high = bucket.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if ((bucket[middle] >> 32) < key) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long entry(int key, int index) {
+        return ((long) key << 32) | index;
+    }
+
+    static float jaccard(long[] first, long[] second) {
+        return jaccard(first, 0, first.length, second, 0, second.length);
+    }
+
+    // Оба отрезка отсортированы. При сильном перекосе размеров элементы меньшего ищутся в большем двоичным поиском
+    private static float jaccard(long[] first, int firstFrom, int firstTo,
+                                 long[] second, int secondFrom, int secondTo) {
+        int firstSize = firstTo - firstFrom;
+        int secondSize = secondTo - secondFrom;
+        if (firstSize > secondSize) {
+            return jaccard(second, secondFrom, secondTo, first, firstFrom, firstTo);
+        }
+        if (firstSize == 0) {
+            return 0;
+        }
+        int common = 0;
+        if (secondSize / firstSize > 16) {
+            for (int i = firstFrom; i < firstTo; i++) {
+                if (Arrays.binarySearch(second, secondFrom, secondTo, first[i]) >= 0) {
+                    common++;
+                }
+            }
+        } else {
+            int i = firstFrom;
+            int j = secondFrom;
+            while (i < firstTo && j < secondTo) {
+                if (first[i] < second[j]) {
+                    i++;
+                } else if (first[i] > second[j]) {
+                    j++;
+                } else {
+                    common++;
+                    i++;
+                    j++;
+                }
+            }
+        }
+        return (float) common / (firstSize + secondSize - common);
+    }
+
+    // Соседи пользователя по убыванию сходства и лайки, по которым они найдены
+    record Neighbors(long[] likes, long[] userIds, float[] similarities) {
+    }
+}
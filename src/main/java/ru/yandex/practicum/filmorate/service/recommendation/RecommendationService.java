@@ -0,0 +1,14 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+
+public interface RecommendationService {
+
+    // Фильмы, которые лайкали пользователи с похожими вкусами, а сам пользователь ещё нет
+    List<Film> getRecommendations(long userId, int limit);
+
+    // Перестраивает таблицу соседей по текущим лайкам и дожидается окончания
+    void rebuild();
+}
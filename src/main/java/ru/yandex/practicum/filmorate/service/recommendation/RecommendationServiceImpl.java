@@ -0,0 +1,181 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.edge.IdCounter;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+// Рекомендации по соседям из NeighborIndex: каждый фильм соседа получает очки, равные сходству с ним, фильмы
+// самого пользователя отбрасываются. Снимок перестраивается в фоне раз в rebuild-interval на parallelism
+// потоках. Между перестройками пользователи, чьи лайки изменились, получают соседей, найденных заново по
+// корзинам снимка; они хранятся в refreshed до следующей перестройки
+@Slf4j
+@Service
+public class RecommendationServiceImpl implements RecommendationService {
+
+    private static final int MAX_RECOMMENDATIONS = 100;
+    // Сколько лайков каждого соседа учитывается: у соседа с огромным числом лайков берётся выборка
+    private static final int MAX_NEIGHBOR_LIKES = 500;
+    // После стольких пересчитанных пользователей снимок перестраивается, не дожидаясь расписания
+    private static final int MAX_REFRESHED = 100_000;
+    // Сходство переводится в целые очки для IdCounter
+    private static final int SCORE_SCALE = 1000;
+
+    private final FilmStorage filmStorage;
+    private final UserStorage userStorage;
+    private final Duration rebuildInterval;
+    private final ForkJoinPool rebuildPool;
+    private final ScheduledExecutorService rebuildScheduler;
+    private final AtomicReference<CompletableFuture<Void>> rebuilding = new AtomicReference<>();
+    private final Map<Long, NeighborIndex.Neighbors> refreshed = new ConcurrentHashMap<>();
+    private volatile NeighborIndex index = NeighborIndex.EMPTY;
+
+    public RecommendationServiceImpl(FilmStorage filmStorage,
+                                     UserStorage userStorage,
+                                     @Value("${filmorate.recommendations.rebuild-interval:10m}")
+                                     Duration rebuildInterval,
+                                     @Value("${filmorate.recommendations.parallelism:0}") int parallelism) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.rebuildInterval = rebuildInterval;
+        this.rebuildPool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        this.rebuildScheduler = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().daemon().name("recommendations-rebuild").factory());
+    }
+
+    // Первая постройка - после восстановления хранилищ, когда приложение уже принимает запросы.
+    // До её окончания рекомендации считаются по пустому снимку и пусты
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (rebuildInterval.isZero()) {
+            rebuildScheduler.execute(this::rebuildQuietly);
+        } else {
+            rebuildScheduler.scheduleWithFixedDelay(this::rebuildQuietly, 0, rebuildInterval.toMillis(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        rebuildScheduler.shutdownNow();
+        rebuildPool.shutdownNow();
+    }
+
+    @Override
+    public List<Film> getRecommendations(long userId, int limit) {
+        if (limit <= 0 || limit > MAX_RECOMMENDATIONS) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_RECOMMENDATIONS);
+        }
+        if (!userStorage.containsUserById(userId)) {
+            throw new NotFoundException("Пользователь c id = " + userId + " не найден");
+        }
+        long[] liked = filmStorage.getLikedFilmIds(userId);
+        NeighborIndex current = index;
+        NeighborIndex.Neighbors neighbors = neighbors(current, userId, liked);
+
+        long[] neighborIds = neighbors.userIds();
+        IdCounter scores = new IdCounter(neighborIds.length * 16);
+        for (int i = 0; i < neighborIds.length; i++) {
+            long[] neighborLikes = likesOf(current, neighborIds[i]);
+            int weight = Math.max(1, Math.round(neighbors.similarities()[i] * SCORE_SCALE));
+            int taken = Math.min(neighborLikes.length, MAX_NEIGHBOR_LIKES);
+            for (int j = 0; j < taken; j++) {
+                scores.add(neighborLikes[(int) ((long) j * neighborLikes.length / taken)], weight);
+            }
+        }
+        long[] best = scores.top(limit, filmId -> Arrays.binarySearch(liked, filmId) >= 0);
+        List<Long> filmIds = new ArrayList<>(best.length);
+        for (long filmId : best) {
+            filmIds.add(filmId);
+        }
+        return filmStorage.findFilmsByIds(filmIds);
+    }
+
+    // Одновременная перестройка не запускается: вызов, заставший идущую перестройку, дожидается её окончания
+    @Override
+    public void rebuild() {
+        CompletableFuture<Void> created = new CompletableFuture<>();
+        CompletableFuture<Void> running = rebuilding.compareAndExchange(null, created);
+        if (running != null) {
+            try {
+                running.join();
+                return;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        try {
+            long startedAt = System.nanoTime();
+            List<Long> userIds = new ArrayList<>();
+            List<long[]> likes = new ArrayList<>();
+            filmStorage.forEachUserLikes((userId, filmIds) -> {
+                userIds.add(userId);
+                likes.add(filmIds);
+            });
+            long[] ids = userIds.stream().mapToLong(Long::longValue).toArray();
+            index = NeighborIndex.build(ids, likes.toArray(long[][]::new), rebuildPool);
+            refreshed.clear();
+            log.info("Таблица соседей для рекомендаций построена за {} мс, пользователей: {}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), ids.length);
+            created.complete(null);
+        } catch (RuntimeException e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            rebuilding.set(null);
+        }
+    }
+
+    private NeighborIndex.Neighbors neighbors(NeighborIndex current, long userId, long[] liked) {
+        NeighborIndex.Neighbors cached = refreshed.get(userId);
+        if (cached != null && Arrays.equals(cached.likes(), liked)) {
+            return cached;
+        }
+        NeighborIndex.Neighbors neighbors = current.neighbors(userId, liked);
+        if (!Arrays.equals(current.likes(userId), liked)) {
+            refreshed.put(userId, neighbors);
+            if (refreshed.size() > MAX_REFRESHED && rebuilding.get() == null) {
+                rebuildScheduler.execute(this::rebuildQuietly);
+            }
+        }
+        return neighbors;
+    }
+
+    private long[] likesOf(NeighborIndex current, long userId) {
+        NeighborIndex.Neighbors cached = refreshed.get(userId);
+        return cached != null ? cached.likes() : current.likes(userId);
+    }
+
+    private void rebuildQuietly() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Не удалось перестроить таблицу соседей для рекомендаций", e);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+
+public interface ReactiveUserService {
+
+    // Весь список отдаётся потоком: следующая страница из хранилища читается, только когда подписчик
+    // запросил элементы сверх уже прочитанных
+    Flux<User> getUserList();
+
+    Mono<Page<User>> getUsersPage(long after, int limit);
+
+    Mono<User> createUser(User user);
+
+    Mono<User> updateUser(User newUser);
+
+    Mono<Void> addFriend(long id, long friendId);
+
+    Mono<Void> deleteFriend(long id, long friendId);
+
+    Flux<User> getFriendsList(long id);
+
+    Flux<User> getCommonFriendsList(long id, long otherId);
+
+    Flux<FriendSuggestion> getFriendSuggestions(long id, int limit);
+
+    Flux<Film> getLikedFilms(long id);
+
+    Mono<Void> deleteUserLikes(long id);
+
+    Flux<Film> getRecommendations(long id, int limit);
+}
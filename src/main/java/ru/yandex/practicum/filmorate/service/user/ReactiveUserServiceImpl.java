@@ -0,0 +1,109 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationService;
+
+import java.util.concurrent.Callable;
+
+// Реактивная обёртка над UserService, устроена так же, как ReactiveFilmServiceImpl.
+// Кроме журнала, поток блокируют подбор друзей в общем ForkJoinPool и расчёт рекомендаций
+@Service
+public class ReactiveUserServiceImpl implements ReactiveUserService {
+
+    private static final int STREAM_PAGE_SIZE = 1000;
+
+    private final UserService userService;
+    private final FilmService filmService;
+    private final RecommendationService recommendationService;
+    private final Scheduler scheduler;
+
+    public ReactiveUserServiceImpl(UserService userService, FilmService filmService,
+                                   RecommendationService recommendationService) {
+        this.userService = userService;
+        this.filmService = filmService;
+        this.recommendationService = recommendationService;
+        this.scheduler = Schedulers.boundedElastic();
+    }
+
+    @Override
+    public Flux<User> getUserList() {
+        return getUsersPage(0, STREAM_PAGE_SIZE)
+                .expand(page -> page.nextCursor() == null
+                        ? Mono.empty()
+                        : getUsersPage(page.nextCursor(), STREAM_PAGE_SIZE))
+                .concatMapIterable(Page::items, 1);
+    }
+
+    @Override
+    public Mono<Page<User>> getUsersPage(long after, int limit) {
+        return call(() -> userService.getUsersPage(after, limit));
+    }
+
+    @Override
+    public Mono<User> createUser(User user) {
+        return call(() -> userService.createUser(user));
+    }
+
+    @Override
+    public Mono<User> updateUser(User newUser) {
+        return call(() -> userService.updateUser(newUser));
+    }
+
+    @Override
+    public Mono<Void> addFriend(long id, long friendId) {
+        return run(() -> userService.addFriend(id, friendId));
+    }
+
+    @Override
+    public Mono<Void> deleteFriend(long id, long friendId) {
+        return run(() -> userService.deleteFriend(id, friendId));
+    }
+
+    // Постраничного чтения друзей у хранилища нет: список загружается целиком, до первого элемента потока
+    @Override
+    public Flux<User> getFriendsList(long id) {
+        return call(() -> userService.getFriendsList(id)).flatMapIterable(users -> users);
+    }
+
+    @Override
+    public Flux<User> getCommonFriendsList(long id, long otherId) {
+        return call(() -> userService.getCommonFriendsList(id, otherId)).flatMapIterable(users -> users);
+    }
+
+    @Override
+    public Flux<FriendSuggestion> getFriendSuggestions(long id, int limit) {
+        return call(() -> userService.getFriendSuggestions(id, limit)).flatMapIterable(suggestions -> suggestions);
+    }
+
+    @Override
+    public Flux<Film> getLikedFilms(long id) {
+        return call(() -> filmService.getLikedFilms(id)).flatMapIterable(films -> films);
+    }
+
+    @Override
+    public Mono<Void> deleteUserLikes(long id) {
+        return run(() -> filmService.deleteUserLikes(id));
+    }
+
+    @Override
+    public Flux<Film> getRecommendations(long id, int limit) {
+        return call(() -> recommendationService.getRecommendations(id, limit)).flatMapIterable(films -> films);
+    }
+
+    private <T> Mono<T> call(Callable<T> action) {
+        return Mono.fromCallable(action).subscribeOn(scheduler);
+    }
+
+    private Mono<Void> run(Runnable action) {
+        return Mono.fromRunnable(action).subscribeOn(scheduler).then();
+    }
+}
@@ -1,15 +1,25 @@
 package ru.yandex.practicum.filmorate.service.user;
 
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public interface UserService {
 
     List<User> getUserList();
 
+    Page<User> getUsersPage(long after, int limit);
+
+    void forEachUser(Consumer<User> action);
+
     User createUser(User user);
 
+    // Пользователи уже прошли проверку аннотаций. Для каждого возвращается null, если он добавлен, или причина отказа
+    String[] importUsers(List<User> users);
+
     User updateUser(User newUser);
 
     void addFriend(long id, long friendId);
@@ -19,4 +29,7 @@ public interface UserService {
     List<User> getFriendsList(long id);
 
     List<User> getCommonFriendsList(long id, long otherId);
+
+    // Пользователи, с которыми больше всего общих друзей, по убыванию их числа
+    List<FriendSuggestion> getFriendSuggestions(long id, int limit);
 }
@@ -5,15 +5,22 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.Page;
 import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Service
 @RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_SUGGESTIONS = 100;
+
     private final UserStorage userStorage;
 
 
@@ -22,6 +29,25 @@ public class UserServiceImpl implements UserService {
         return userStorage.getUserList();
     }
 
+    @Override
+    public Page<User> getUsersPage(long after, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+        // Запрашиваем на один элемент больше, чтобы понять, есть ли следующая страница
+        List<User> users = userStorage.getUsersPage(after, limit + 1);
+        if (users.size() <= limit) {
+            return new Page<>(users, null);
+        }
+        List<User> page = users.subList(0, limit);
+        return new Page<>(page, page.get(limit - 1).getId());
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        userStorage.forEachUser(action);
+    }
+
     @Override
     public User createUser(User user) {
         if (userStorage.existByEmail(user.getEmail())) {
@@ -33,6 +59,38 @@ public class UserServiceImpl implements UserService {
         return userStorage.createUser(user);
     }
 
+    // Занятые имейлы отсеивает само хранилище одним пакетом, без отдельной проверки на пользователя
+    @Override
+    public String[] importUsers(List<User> users) {
+        for (User user : users) {
+            if (user.getName() == null || user.getName().isBlank()) {
+                user.setName(user.getLogin());
+            }
+        }
+        boolean[] created;
+        try {
+            created = userStorage.createUsers(users);
+        } catch (DuplicatedDataException e) {
+            // Пакет откатился из-за параллельной регистрации того же имейла - добавляем по одному
+            created = new boolean[users.size()];
+            for (int i = 0; i < users.size(); i++) {
+                try {
+                    userStorage.createUser(users.get(i));
+                    created[i] = true;
+                } catch (DuplicatedDataException duplicate) {
+                    created[i] = false;
+                }
+            }
+        }
+        String[] errors = new String[users.size()];
+        for (int i = 0; i < users.size(); i++) {
+            if (!created[i]) {
+                errors[i] = "Этот имейл уже используется";
+            }
+        }
+        return errors;
+    }
+
     @Override
     public User updateUser(User newUser) {
         Long newUserId = newUser.getId();
@@ -43,7 +101,8 @@ public class UserServiceImpl implements UserService {
             throw new NotFoundException("Пользователь с id = " + newUserId + " не найден");
         }
 
-        if (userStorage.existByEmail(newUser.getEmail())) {
+        Optional<Long> emailOwnerId = userStorage.findIdByEmail(newUser.getEmail());
+        if (emailOwnerId.isPresent() && !emailOwnerId.get().equals(newUserId)) {
             throw new DuplicatedDataException("Этот имейл уже используется");
         }
         return userStorage.updateUser(newUser);
@@ -95,4 +154,15 @@ public class UserServiceImpl implements UserService {
         return userStorage.getCommonFriendsList(id, otherId);
     }
 
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long id, int limit) {
+        if (limit <= 0 || limit > MAX_SUGGESTIONS) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_SUGGESTIONS);
+        }
+        if (!userStorage.containsUserById(id)) {
+            throw new NotFoundException("Пользователь c id = " + id + " не найден");
+        }
+        return userStorage.getFriendSuggestions(id, limit);
+    }
+
 }
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Набор блокировок, между которыми распределяются id сущностей.
+// Операции над разными сущностями почти всегда идут параллельно, над одной - по очереди.
+// ReentrantLock, а не synchronized: виртуальный поток, ждущий блокировку, освобождает несущий поток
+public class StripedLocks {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    public StripedLocks(int stripes) {
+        int size = Integer.highestOneBit(Math.max(1, stripes - 1)) << 1;
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    public void runLocked(long id, Runnable action) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            action.run();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public <T> T callLocked(long id, Supplier<T> action) {
+        ReentrantLock lock = lockFor(id);
+        lock.lock();
+        try {
+            return action.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Блокировки двух сущностей берутся всегда в порядке номеров, поэтому встречные операции
+    // (addFriend(1, 2) и addFriend(2, 1)) не могут заблокировать друг друга
+    public <T> T callLocked(long id, long otherId, Supplier<T> action) {
+        int index = stripe(id);
+        int otherIndex = stripe(otherId);
+        if (index == otherIndex) {
+            return callLocked(id, action);
+        }
+        ReentrantLock first = locks[Math.min(index, otherIndex)];
+        ReentrantLock second = locks[Math.max(index, otherIndex)];
+        first.lock();
+        try {
+            second.lock();
+            try {
+                return action.get();
+            } finally {
+                second.unlock();
+            }
+        } finally {
+            first.unlock();
+        }
+    }
+
+    public void runLocked(long id, long otherId, Runnable action) {
+        callLocked(id, otherId, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private ReentrantLock lockFor(long id) {
+        return locks[stripe(id)];
+    }
+
+    private int stripe(long id) {
+        long hash = id * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
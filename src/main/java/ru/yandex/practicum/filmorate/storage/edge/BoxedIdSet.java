@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+// Прежнее представление связей через HashSet<Long>, оставлено для сравнения и как запасной вариант
+public class BoxedIdSet implements IdSet {
+
+    private final Set<Long> ids = new HashSet<>();
+
+    @Override
+    public boolean add(long id) {
+        return ids.add(id);
+    }
+
+    @Override
+    public boolean remove(long id) {
+        return ids.remove(id);
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return ids.contains(id);
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        for (Long id : ids) {
+            action.accept(id);
+        }
+    }
+
+    @Override
+    public long[] toArray() {
+        return ids.stream().mapToLong(Long::longValue).toArray();
+    }
+}
@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+// Счётчик вхождений id: открытая адресация с линейным пробированием по массивам long и int, без упаковки
+// ключей и значений. Ключ 0 означает пустую ячейку - id начинаются с 1. Не потокобезопасен
+public final class IdCounter {
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] keys;
+    private int[] counts;
+    private int size;
+
+    public IdCounter(int expectedKeys) {
+        int capacity = Integer.highestOneBit(Math.max(MIN_CAPACITY, expectedKeys * 2) - 1) << 1;
+        keys = new long[capacity];
+        counts = new int[capacity];
+    }
+
+    public void increment(long id) {
+        add(id, 1);
+    }
+
+    public void add(long id, int count) {
+        int slot = slot(keys, id);
+        if (keys[slot] == 0) {
+            keys[slot] = id;
+            if (++size * 2 > keys.length) {
+                counts[slot] = count;
+                grow();
+                return;
+            }
+        }
+        counts[slot] += count;
+    }
+
+    public void addAll(IdCounter other) {
+        for (int i = 0; i < other.keys.length; i++) {
+            if (other.keys[i] != 0) {
+                add(other.keys[i], other.counts[i]);
+            }
+        }
+    }
+
+    public int get(long id) {
+        int slot = slot(keys, id);
+        return keys[slot] == 0 ? 0 : counts[slot];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Не больше limit id с наибольшим счётом: по убыванию счёта, при равенстве - по возрастанию id.
+    // id, для которых exclude вернул true, пропускаются. Лучшие держатся в отсортированных массивах
+    // длины limit, поэтому выбор стоит O(size * log(limit)) сравнений и почти всегда одно сравнение на ключ
+    public long[] top(int limit, LongPredicate exclude) {
+        if (limit <= 0) {
+            return new long[0];
+        }
+        long[] topIds = new long[limit];
+        int[] topCounts = new int[limit];
+        int found = 0;
+        for (int i = 0; i < keys.length; i++) {
+            long id = keys[i];
+            if (id == 0 || exclude.test(id)) {
+                continue;
+            }
+            int count = counts[i];
+            if (found == limit && !better(count, id, topCounts[limit - 1], topIds[limit - 1])) {
+                continue;
+            }
+            int position = found < limit ? found++ : limit - 1;
+            while (position > 0 && better(count, id, topCounts[position - 1], topIds[position - 1])) {
+                topIds[position] = topIds[position - 1];
+                topCounts[position] = topCounts[position - 1];
+                position--;
+            }
+            topIds[position] = id;
+            topCounts[position] = count;
+        }
+        return found == limit ? topIds : Arrays.copyOf(topIds, found);
+    }
+
+    private static boolean better(int count, long id, int otherCount, long otherId) {
+        return count > otherCount || count == otherCount && id < otherId;
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        int[] oldCounts = counts;
+        keys = new long[oldKeys.length * 2];
+        counts = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slot(keys, oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+    }
+
+    // Перемешивание битов перед маской: последовательные id иначе легли бы в соседние ячейки длинными сериями
+    private static int slot(long[] keys, long id) {
+        int mask = keys.length - 1;
+        int slot = (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & mask;
+        while (keys[slot] != 0 && keys[slot] != id) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+}
@@ -0,0 +1,52 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import java.util.function.LongConsumer;
+
+// Множество id - одна сторона связи "фильм - лайкнувшие пользователи" или "пользователь - друзья".
+// Реализации не потокобезопасны: хранилища изменяют и читают их под блокировкой владельца
+public interface IdSet {
+
+    boolean add(long id);
+
+    boolean remove(long id);
+
+    boolean contains(long id);
+
+    int size();
+
+    void forEach(LongConsumer action);
+
+    long[] toArray();
+
+    // Передаёт в action limit id, взятых через равные промежутки начиная с позиции offset
+    // (0 <= offset < size / limit), или все id, если их не больше limit. Так обход соседей вершины
+    // с огромной степенью стоит не больше limit шагов там, где реализация позволяет обращаться по позиции
+    default void forEachSample(int limit, int offset, LongConsumer action) {
+        int size = size();
+        if (size <= limit) {
+            forEach(action);
+            return;
+        }
+        int[] position = new int[1];
+        int[] taken = new int[1];
+        forEach(id -> {
+            if (taken[0] < limit && position[0] == offset + (int) ((long) taken[0] * size / limit)) {
+                action.accept(id);
+                taken[0]++;
+            }
+            position[0]++;
+        });
+    }
+
+    // Передаёт в action id, которые есть в обоих множествах, без промежуточной коллекции.
+    // По умолчанию обходит меньшее множество и проверяет вхождение в большее
+    default void forEachCommon(IdSet other, LongConsumer action) {
+        IdSet smaller = size() <= other.size() ? this : other;
+        IdSet larger = smaller == this ? other : this;
+        smaller.forEach(id -> {
+            if (larger.contains(id)) {
+                action.accept(id);
+            }
+        });
+    }
+}
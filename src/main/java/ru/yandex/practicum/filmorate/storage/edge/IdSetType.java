@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import java.util.function.Supplier;
+
+// Выбор представления связей в хранилищах, настраивается свойством filmorate.storage.edge-set
+public enum IdSetType {
+
+    SORTED_ARRAY(SortedArrayIdSet::new),
+    BOXED(BoxedIdSet::new);
+
+    private final Supplier<IdSet> factory;
+
+    IdSetType(Supplier<IdSet> factory) {
+        this.factory = factory;
+    }
+
+    public IdSet create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+// Отсортированный массив примитивных long: 8 байт на связь вместо упакованного Long и узла HashMap.
+// Поиск - двоичный, вставка и удаление сдвигают хвост массива, что для типичных степеней дешевле хеширования.
+// Массив растёт порциями: на маленьких множествах на CHUNK элементов, дальше - на половину текущего размера
+public class SortedArrayIdSet implements IdSet {
+
+    private static final int CHUNK = 4;
+    // Во сколько раз одно множество должно быть больше другого, чтобы вместо слияния искать галопом
+    private static final int GALLOP_RATIO = 16;
+    private static final long[] EMPTY = new long[0];
+
+    private long[] ids = EMPTY;
+    private int size;
+
+    @Override
+    public boolean add(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            return false;
+        }
+        int insertAt = -index - 1;
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size + Math.max(CHUNK, size >>> 1));
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        size++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(long id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        size--;
+        if (size == 0) {
+            ids = EMPTY;
+        } else if (ids.length - size > Math.max(CHUNK, size)) {
+            ids = Arrays.copyOf(ids, size + Math.max(CHUNK, size >>> 1));
+        }
+        return true;
+    }
+
+    @Override
+    public boolean contains(long id) {
+        return Arrays.binarySearch(ids, 0, size, id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void forEach(LongConsumer action) {
+        for (int i = 0; i < size; i++) {
+            action.accept(ids[i]);
+        }
+    }
+
+    @Override
+    public void forEachSample(int limit, int offset, LongConsumer action) {
+        if (size <= limit) {
+            forEach(action);
+            return;
+        }
+        for (int i = 0; i < limit; i++) {
+            action.accept(ids[offset + (int) ((long) i * size / limit)]);
+        }
+    }
+
+    @Override
+    public long[] toArray() {
+        return Arrays.copyOf(ids, size);
+    }
+
+    // Пересечение двух отсортированных массивов: при сравнимых размерах - линейное слияние за O(n + m),
+    // при сильном перекосе (знаменитость со 100k друзей и обычный пользователь) - галопирующий поиск
+    // элементов меньшего массива в большем за O(n log(m / n))
+    @Override
+    public void forEachCommon(IdSet other, LongConsumer action) {
+        if (!(other instanceof SortedArrayIdSet sorted)) {
+            IdSet.super.forEachCommon(other, action);
+            return;
+        }
+        if (size <= sorted.size) {
+            intersect(ids, size, sorted.ids, sorted.size, action);
+        } else {
+            intersect(sorted.ids, sorted.size, ids, size, action);
+        }
+    }
+
+    private static void intersect(long[] small, int smallSize, long[] large, int largeSize, LongConsumer action) {
+        if (smallSize == 0) {
+            return;
+        }
+        if ((long) smallSize * GALLOP_RATIO < largeSize) {
+            gallop(small, smallSize, large, largeSize, action);
+        } else {
+            merge(small, smallSize, large, largeSize, action);
+        }
+    }
+
+    private static void merge(long[] small, int smallSize, long[] large, int largeSize, LongConsumer action) {
+        int i = 0;
+        int j = 0;
+        while (i < smallSize && j < largeSize) {
+            if (small[i] < large[j]) {
+                i++;
+            } else if (small[i] > large[j]) {
+                j++;
+            } else {
+                action.accept(small[i]);
+                i++;
+                j++;
+            }
+        }
+    }
+
+    private static void gallop(long[] small, int smallSize, long[] large, int largeSize, LongConsumer action) {
+        int from = 0;
+        for (int i = 0; i < smallSize && from < largeSize; i++) {
+            long id = small[i];
+            // Удваиваем шаг, пока не перескочим искомый id, затем ищем двоичным поиском в последнем отрезке
+            int step = 1;
+            int bound = from;
+            while (bound < largeSize && large[bound] < id) {
+                from = bound + 1;
+                bound += step;
+                step <<= 1;
+            }
+            int index = Arrays.binarySearch(large, from, Math.min(bound + 1, largeSize), id);
+            if (index >= 0) {
+                action.accept(id);
+                from = index + 1;
+            } else {
+                from = -index - 1;
+            }
+        }
+    }
+}
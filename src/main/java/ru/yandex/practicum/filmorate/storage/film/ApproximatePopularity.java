@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+// Приближённый индекс популярности для каталогов, где точный индекс с узлом на каждый фильм слишком велик.
+// Число лайков фильма оценивается Count-Min Sketch фиксированного размера, а рейтинг ведётся только для
+// CAPACITY кандидатов, как в Space-Saving: фильм, чья оценка после изменения выше худшего кандидата, вытесняет
+// его. Оценка кандидата не меньше истинного числа лайков и превышает его не больше чем на errorBound()
+// с вероятностью 1 - e^-DEPTH, поэтому фильм из выдачи может стоять выше фильма, у которого на самом деле
+// больше лайков, только если их разница не больше errorBound(). Фильмы за пределами CAPACITY не ранжируются.
+// Память - WIDTH * DEPTH счётчиков и CAPACITY кандидатов при любом числе фильмов
+class ApproximatePopularity implements Popularity {
+
+    static final int WIDTH = 1 << 16;
+    static final int DEPTH = 4;
+    static final int CAPACITY = 1024;
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingLong(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final CountMinSketch sketch = new CountMinSketch(WIDTH, DEPTH);
+    private final AtomicLong total = new AtomicLong();
+    // Кандидаты и их ранги меняются только под lock, candidates читается и без неё.
+    // Как и в StripedLocks, это ReentrantLock: update вызывается из виртуальных потоков запросов
+    private final ReentrantLock lock = new ReentrantLock();
+    private final NavigableSet<Rank> ranks = new TreeSet<>(ORDER);
+    private final Map<Long, Rank> candidates = new ConcurrentHashMap<>();
+    // Оценка худшего кандидата, когда все места заняты, иначе 0. Фильм с оценкой меньше порога, который
+    // не входит в кандидаты, пропускается без блокировки
+    private volatile long threshold;
+
+    @Override
+    public void add(long filmId) {
+    }
+
+    @Override
+    public void update(long filmId, int oldLikes, int newLikes) {
+        long delta = (long) newLikes - oldLikes;
+        if (delta == 0) {
+            return;
+        }
+        sketch.add(filmId, delta);
+        total.addAndGet(delta);
+        long estimate = sketch.estimate(filmId);
+        if (estimate < threshold && !candidates.containsKey(filmId)) {
+            return;
+        }
+        lock.lock();
+        try {
+            Rank current = candidates.remove(filmId);
+            if (current != null) {
+                ranks.remove(current);
+            }
+            Rank updated = new Rank(filmId, estimate);
+            if (estimate > 0 && (current != null || ranks.size() < CAPACITY
+                    || ORDER.compare(updated, ranks.last()) < 0)) {
+                if (current == null && ranks.size() == CAPACITY) {
+                    candidates.remove(ranks.pollLast().filmId());
+                }
+                ranks.add(updated);
+                candidates.put(filmId, updated);
+            }
+            threshold = ranks.size() < CAPACITY ? 0 : ranks.last().likes();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public List<Long> top(int count) {
+        List<Long> filmIds = new ArrayList<>(Math.min(Math.max(0, count), CAPACITY));
+        lock.lock();
+        try {
+            Iterator<Rank> iterator = ranks.iterator();
+            while (filmIds.size() < count && iterator.hasNext()) {
+                filmIds.add(iterator.next().filmId());
+            }
+        } finally {
+            lock.unlock();
+        }
+        return filmIds;
+    }
+
+    @Override
+    public int maxLikes() {
+        lock.lock();
+        try {
+            return ranks.isEmpty() ? 0 : (int) Math.min(Integer.MAX_VALUE, ranks.first().likes());
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    long estimate(long filmId) {
+        return sketch.estimate(filmId);
+    }
+
+    // На сколько оценка может превышать истинное число лайков при текущем общем числе лайков
+    long errorBound() {
+        return sketch.errorBound(total.get());
+    }
+
+    private record Rank(long filmId, long likes) {
+    }
+}
@@ -0,0 +1,62 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Count-Min Sketch: depth строк по width счётчиков, id попадает в каждую строку своей хеш-функцией.
+// Оценка - минимум по строкам, она не меньше истинного значения, пока все истинные значения неотрицательны
+// (снятый лайк вычитается из тех же ячеек). С вероятностью не меньше 1 - e^-depth оценка превышает истину
+// не больше чем на e / width * total, где total - сумма всех значений. Память не зависит от числа id.
+// Обновления - атомарные сложения без блокировок
+final class CountMinSketch {
+
+    private final int width;
+    private final int depth;
+    private final AtomicLongArray counts;
+    private final long[] seeds;
+
+    // width - степень двойки
+    CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("Ширина должна быть степенью двойки: " + width);
+        }
+        this.width = width;
+        this.depth = depth;
+        this.counts = new AtomicLongArray(width * depth);
+        this.seeds = new long[depth];
+        long seed = 0x9E3779B97F4A7C15L;
+        for (int row = 0; row < depth; row++) {
+            seed = mix(seed + row);
+            seeds[row] = seed;
+        }
+    }
+
+    void add(long id, long delta) {
+        for (int row = 0; row < depth; row++) {
+            counts.getAndAdd(cell(row, id), delta);
+        }
+    }
+
+    long estimate(long id) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counts.get(cell(row, id)));
+        }
+        return estimate;
+    }
+
+    // Граница ошибки e / width * total для данного total
+    long errorBound(long total) {
+        return (long) Math.ceil(Math.E / width * total);
+    }
+
+    private int cell(int row, long id) {
+        return row * width + (int) (mix(id ^ seeds[row]) & (width - 1));
+    }
+
+    // Финализатор SplitMix64
+    private static long mix(long value) {
+        value = (value ^ (value >>> 30)) * 0xBF58476D1CE4E5B9L;
+        value = (value ^ (value >>> 27)) * 0x94D049BB133111EBL;
+        return value ^ (value >>> 31);
+    }
+}
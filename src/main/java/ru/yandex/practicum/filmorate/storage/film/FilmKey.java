@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+// Естественный ключ фильма - те же поля, по которым сравнивает Film.equals
+record FilmKey(String name, LocalDate releaseDate) {
+
+    static FilmKey of(Film film) {
+        return new FilmKey(film.getName(), film.getReleaseDate());
+    }
+}
@@ -1,27 +1,71 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     List<Film> getFilmsList();
 
+    List<Film> getFilmsPage(long after, int limit);
+
+    void forEachFilm(Consumer<Film> action);
+
     Film createFilm(Film film);
 
+    // Добавляет фильмы пакетом и возвращает для каждого, добавлен ли он. Фильм, чьи название и дата выхода
+    // уже заняты (в том числе фильмом раньше в этом же пакете), пропускается
+    boolean[] createFilms(List<Film> films);
+
     Film updateFilm(Film newFilm);
 
-    void addLike(long id, long userId);
+    // Возвращают, изменился ли набор лайков: повторный лайк и снятие несуществующего ничего не меняют
+    boolean addLike(long id, long userId);
+
+    boolean deleteLike(long id, long userId);
 
-    void deleteLike(long id, long userId);
+    // Убирает все лайки пользователя и возвращает id фильмов, с которых они сняты, по возрастанию.
+    // Время зависит от числа лайков пользователя, а не от размера каталога
+    long[] deleteUserLikes(long userId);
+
+    // Применяет операции по порядку и возвращает для каждой, изменила ли она что-нибудь.
+    // Существование фильмов и пользователей проверяет вызывающий
+    boolean[] applyLikes(List<LikeOperation> operations);
 
     List<Film> getPopularFilms(int count);
 
+    // Фильмы, в названии или описании которых есть все слова запроса, последнее - и как начало слова.
+    // Не больше limit, самые подходящие первыми; boostByLikes поднимает фильмы с большим числом лайков
+    List<Film> searchFilms(String query, int limit, boolean boostByLikes);
+
     boolean containsFilmById(long id);
 
+    // Фильмы в порядке переданных id, отсутствующие id пропускаются
+    List<Film> findFilmsByIds(List<Long> ids);
+
+    // id фильмов, которые лайкнул пользователь, по возрастанию
+    long[] getLikedFilmIds(long userId);
+
+    // Обход всех пользователей с лайками по возрастанию id: id пользователя и его лайки по возрастанию
+    void forEachUserLikes(BiConsumer<Long, long[]> action);
+
+    Set<Long> findExistingIds(Collection<Long> ids);
+
     boolean existByNameAndReleaseDate(Film film);
 
     Optional<Film> findByNameAndReleaseDate(Film newFilm);
+
+    // Размеры хранилища для метрик. Считаются при каждом вызове, поэтому вызываются редко - при сборе метрик
+    long countFilms();
+
+    long countLikes();
+
+    int maxLikesPerFilm();
 }
@@ -1,25 +1,79 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
+import ru.yandex.practicum.filmorate.storage.edge.IdSet;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 @Slf4j
 @Component
+@Profile("!jdbc")
 public class InMemoryFilmStorage implements FilmStorage {
 
-    private final Map<Long, Film> films = new HashMap<>();
+    private static final int LOCK_STRIPES = 256;
+
+    // Фильмы упорядочены по id, чтобы страницы выдачи читались с курсора без копирования всей коллекции
+    private final ConcurrentNavigableMap<Long, Film> films = new ConcurrentSkipListMap<>();
+
+    // Уникальный индекс: (название, дата выхода) -> id фильма
+    private final Map<FilmKey, Long> filmKeys = new ConcurrentHashMap<>();
 
     //Long - id фильма, у которого есть лайки
-    // Set<Long> - сет id-шников пользователей, которые поставили лайки этому фильму
-    private final Map<Long, Set<Long>> likes = new HashMap<>();
-    private long counterId = 0;
+    // IdSet - id-шники пользователей, которые поставили лайки этому фильму.
+    // Сеты изменяются и читаются только под блокировкой фильма
+    private final Map<Long, IdSet> likes = new ConcurrentHashMap<>();
+    // Обратный индекс: id пользователя -> id фильмов, которые он лайкнул. Меняется вместе с likes под блокировкой
+    // фильма, к которой добавляется блокировка пользователя из userLocks; читается только под блокировкой
+    // пользователя. Порядок всегда фильм, потом пользователь, поэтому взаимных блокировок не бывает
+    private final Map<Long, IdSet> userLikes = new ConcurrentHashMap<>();
+    private final Popularity popularityIndex;
+    // Поисковый индекс обновляется под блокировкой фильма, поэтому порядок всегда фильм, потом индекс
+    private final FilmSearchIndex searchIndex = new FilmSearchIndex();
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final StripedLocks userLocks = new StripedLocks(LOCK_STRIPES);
+    private final AtomicLong counterId = new AtomicLong();
+    private final IdSetType idSetType;
+    private volatile MutationLog mutationLog = MutationLog.NONE;
+
+    public InMemoryFilmStorage() {
+        this(IdSetType.SORTED_ARRAY);
+    }
+
+    public InMemoryFilmStorage(IdSetType idSetType) {
+        this(idSetType, PopularityMode.EXACT);
+    }
+
+    @Autowired
+    public InMemoryFilmStorage(@Value("${filmorate.storage.edge-set:sorted-array}") IdSetType idSetType,
+                               @Value("${filmorate.storage.popularity:exact}") PopularityMode popularityMode) {
+        this.idSetType = idSetType;
+        this.popularityIndex = popularityMode.create();
+    }
 
     private long getNextId() {
-        return ++counterId;
+        return counterId.incrementAndGet();
+    }
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
     }
 
 
@@ -28,75 +82,449 @@ public class InMemoryFilmStorage implements FilmStorage {
         return new ArrayList<>(films.values());
     }
 
+    @Override
+    public List<Film> getFilmsPage(long after, int limit) {
+        return films.tailMap(after, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Обход без копирования коллекции: итератор ConcurrentSkipListMap слабо согласован
+    // и не мешает параллельным изменениям
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        films.values().forEach(action);
+    }
+
 
     @Override
     public Film createFilm(Film film) {
-        log.info("Получен запрос на добавление фильма: {}", film);
-        film.setId(getNextId());
-        films.put(film.getId(), film);
-        log.info("Добавление фильма: {} - закончено, присвоен id: {}", film, film.getId());
+        log.debug("Получен запрос на добавление фильма: {}", film);
+        long id = getNextId();
+        // Ключ резервируется атомарно, поэтому параллельные запросы не создадут двух одинаковых фильмов
+        if (filmKeys.putIfAbsent(FilmKey.of(film), id) != null) {
+            throw new DuplicatedDataException("Фильм с таким названием и годом выпуска уже есть в списке");
+        }
+        film.setId(id);
+        locks.runLocked(id, () -> {
+            films.put(id, film);
+            popularityIndex.add(id);
+            searchIndex.index(film);
+            mutationLog.filmSaved(film);
+        });
+        mutationLog.commit();
+        log.info("Добавлен фильм с id: {}", film.getId());
         return film;
     }
 
+    // id выделяются одним блоком на весь пакет, ключ каждого фильма резервируется так же атомарно, как в createFilm.
+    // Id пропущенных фильмов достаются следующим, поэтому пропуски в нумерации остаются только в конце блока
+    @Override
+    public boolean[] createFilms(List<Film> newFilms) {
+        log.info("Получен пакет из {} фильмов на добавление", newFilms.size());
+        boolean[] created = new boolean[newFilms.size()];
+        long firstId = counterId.getAndAdd(newFilms.size()) + 1;
+        long nextId = firstId;
+        for (int i = 0; i < newFilms.size(); i++) {
+            Film film = newFilms.get(i);
+            long id = nextId;
+            if (filmKeys.putIfAbsent(FilmKey.of(film), id) != null) {
+                continue;
+            }
+            nextId++;
+            film.setId(id);
+            locks.runLocked(id, () -> {
+                films.put(id, film);
+                popularityIndex.add(id);
+                searchIndex.index(film);
+                mutationLog.filmSaved(film);
+            });
+            created[i] = true;
+        }
+        mutationLog.commit();
+        log.info("Пакет фильмов обработан, добавлено: {}", nextId - firstId);
+        return created;
+    }
+
     @Override
     public boolean containsFilmById(long id) {
         return films.containsKey(id);
     }
 
+    @Override
+    public List<Film> findFilmsByIds(List<Long> ids) {
+        List<Film> found = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Film film = films.get(id);
+            if (film != null) {
+                found.add(film);
+            }
+        }
+        return found;
+    }
+
+    @Override
+    public long[] getLikedFilmIds(long userId) {
+        long[] filmIds = userLocks.callLocked(userId, () -> {
+            IdSet userFilmIds = userLikes.get(userId);
+            return userFilmIds == null ? new long[0] : userFilmIds.toArray();
+        });
+        // У SortedArrayIdSet массив уже упорядочен, и сортировка только проверяет это за один проход
+        Arrays.sort(filmIds);
+        return filmIds;
+    }
+
+    // Лайки каждого пользователя копируются под его блокировкой, action вызывается уже без неё
+    @Override
+    public void forEachUserLikes(BiConsumer<Long, long[]> action) {
+        long[] userIds = userLikes.keySet().stream().mapToLong(Long::longValue).sorted().toArray();
+        for (long userId : userIds) {
+            long[] filmIds = getLikedFilmIds(userId);
+            if (filmIds.length > 0) {
+                action.accept(userId, filmIds);
+            }
+        }
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (Long id : ids) {
+            if (films.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
     @Override
     public boolean existByNameAndReleaseDate(Film film) {
-        return films.containsValue(film);
+        return filmKeys.containsKey(FilmKey.of(film));
     }
 
     @Override
     public Optional<Film> findByNameAndReleaseDate(Film newFilm) {
-        return films.values().stream()
-                .filter(oldFilm -> oldFilm.equals(newFilm))
-                .findFirst();
+        return Optional.ofNullable(filmKeys.get(FilmKey.of(newFilm)))
+                .map(films::get);
     }
 
 
     @Override
     public Film updateFilm(Film newFilm) {
-        log.info("Получен запрос на обновление фильма: {}", newFilm);
-        Film oldFilm = films.get(newFilm.getId());
-        oldFilm.setName(newFilm.getName());
-        oldFilm.setDescription(newFilm.getDescription());
-        oldFilm.setReleaseDate(newFilm.getReleaseDate());
-        oldFilm.setDuration(newFilm.getDuration());
-        log.info("Обновление фильма: {} - закончено", oldFilm);
+        log.debug("Получен запрос на обновление фильма: {}", newFilm);
+        long id = newFilm.getId();
+        Film oldFilm = locks.callLocked(id, () -> {
+            Film film = films.get(id);
+            FilmKey oldKey = FilmKey.of(film);
+            FilmKey newKey = FilmKey.of(newFilm);
+            if (!oldKey.equals(newKey)) {
+                Long ownerId = filmKeys.putIfAbsent(newKey, id);
+                if (ownerId != null && ownerId != id) {
+                    throw new DuplicatedDataException("Фильм с таким названием и годом выпуска уже есть в списке");
+                }
+                filmKeys.remove(oldKey, id);
+            }
+            boolean textChanged = !Objects.equals(film.getName(), newFilm.getName())
+                    || !Objects.equals(film.getDescription(), newFilm.getDescription());
+            film.setName(newFilm.getName());
+            film.setDescription(newFilm.getDescription());
+            film.setReleaseDate(newFilm.getReleaseDate());
+            film.setDuration(newFilm.getDuration());
+            if (textChanged) {
+                searchIndex.index(film);
+            }
+            mutationLog.filmSaved(film);
+            return film;
+        });
+        mutationLog.commit();
+        log.info("Обновлён фильм с id: {}", oldFilm.getId());
         return oldFilm;
     }
 
 
     @Override
-    public void addLike(long id, long userId) {
-        log.info("Получен запрос поставить лайк от пользователя с id = {} фильму с id = {}", userId, id);
-        Set<Long> filmLikes = likes.computeIfAbsent(id, filmId -> new HashSet<>());
-        if (filmLikes.contains(userId)) {
-            log.warn("Пользователь с id = {} уже ставил лайк фильму с id = {}", userId, id);
-            return;
+    public boolean addLike(long id, long userId) {
+        log.debug("Получен запрос поставить лайк от пользователя с id = {} фильму с id = {}", userId, id);
+        boolean added = locks.callLocked(id, () -> {
+            if (!insertLike(id, userId)) {
+                return false;
+            }
+            mutationLog.likeAdded(id, userId);
+            return true;
+        });
+        if (!added) {
+            log.debug("Пользователь с id = {} уже ставил лайк фильму с id = {}", userId, id);
+            return false;
+        }
+        mutationLog.commit();
+        log.debug("Пользователь с id = {} поставил лайк фильму с id = {}", userId, id);
+        return true;
+    }
+
+
+    @Override
+    public boolean deleteLike(long id, long userId) {
+        log.debug("Получен запрос убрать лайк от пользователя с id = {} фильму с id = {}", userId, id);
+        boolean deleted = locks.callLocked(id, () -> {
+            if (!removeLike(id, userId)) {
+                return false;
+            }
+            mutationLog.likeDeleted(id, userId);
+            return true;
+        });
+        if (deleted) {
+            mutationLog.commit();
         }
-        filmLikes.add(userId);
-        log.info("Пользователь с id = {} поставил лайк фильму с id = {}", userId, id);
+        log.debug("Пользователь с id = {} убрал лайк фильму с id = {}", userId, id);
+        return deleted;
     }
 
+    // Фильмы пользователя берутся из обратного индекса, и каждый лайк снимается под блокировкой своего фильма,
+    // как в deleteLike. Лайк, поставленный параллельно уже после чтения индекса, остаётся
+    @Override
+    public long[] deleteUserLikes(long userId) {
+        log.debug("Получен запрос убрать все лайки пользователя с id = {}", userId);
+        long[] likedFilmIds = getLikedFilmIds(userId);
+        int deleted = 0;
+        for (long id : likedFilmIds) {
+            boolean removed = locks.callLocked(id, () -> {
+                if (!removeLike(id, userId)) {
+                    return false;
+                }
+                mutationLog.likeDeleted(id, userId);
+                return true;
+            });
+            if (removed) {
+                likedFilmIds[deleted++] = id;
+            }
+        }
+        userLocks.runLocked(userId, () -> userLikes.computeIfPresent(userId, (key, filmIds) ->
+                filmIds.size() == 0 ? null : filmIds));
+        if (deleted > 0) {
+            mutationLog.commit();
+        }
+        log.debug("У пользователя с id = {} убрано лайков: {}", userId, deleted);
+        return Arrays.copyOf(likedFilmIds, deleted);
+    }
 
+    // Операции группируются по фильму с сохранением порядка внутри фильма. Блокировка фильма берётся один раз
+    // на группу, индекс популярности обновляется один раз на фильм, журнал изменений ждёт сохранения один раз
     @Override
-    public void deleteLike(long id, long userId) {
-        log.info("Получен запрос убрать лайк от пользователя с id = {} фильму с id = {}", userId, id);
-        Set<Long> filmLikes = likes.computeIfAbsent(id, filmId -> new HashSet<>());
-        filmLikes.remove(userId);
-        log.info("Пользователь с id = {} убрал лайк фильму с id = {}", userId, id);
+    public boolean[] applyLikes(List<LikeOperation> operations) {
+        log.info("Получен пакет из {} операций с лайками", operations.size());
+        boolean[] changed = new boolean[operations.size()];
+        Integer[] order = new Integer[operations.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        // Сортировка объектов устойчива, поэтому операции одного фильма остаются в исходном порядке
+        Arrays.sort(order, Comparator.comparingLong(index -> operations.get(index).filmId()));
+        int start = 0;
+        while (start < order.length) {
+            long id = operations.get(order[start]).filmId();
+            int end = start;
+            while (end < order.length && operations.get(order[end]).filmId() == id) {
+                end++;
+            }
+            int from = start;
+            int to = end;
+            locks.runLocked(id, () -> {
+                IdSet filmLikes = likes.computeIfAbsent(id, filmId -> idSetType.create());
+                int before = filmLikes.size();
+                for (int i = from; i < to; i++) {
+                    LikeOperation operation = operations.get(order[i]);
+                    long userId = operation.userId();
+                    if (operation.op() == LikeOperation.Op.ADD) {
+                        changed[order[i]] = filmLikes.add(userId);
+                        if (changed[order[i]]) {
+                            indexUserLike(id, userId, true);
+                            mutationLog.likeAdded(id, userId);
+                        }
+                    } else {
+                        changed[order[i]] = filmLikes.remove(userId);
+                        if (changed[order[i]]) {
+                            indexUserLike(id, userId, false);
+                            mutationLog.likeDeleted(id, userId);
+                        }
+                    }
+                }
+                popularityIndex.update(id, before, filmLikes.size());
+            });
+            start = end;
+        }
+        mutationLog.commit();
+        log.info("Пакет из {} операций с лайками применён", operations.size());
+        return changed;
     }
 
+    // Приближённый индекс ранжирует не все фильмы: недостающие до count добираются по возрастанию id,
+    // как фильмы без лайков в точном индексе
     @Override
     public List<Film> getPopularFilms(int count) {
-        log.info("Получен запрос на получение наиболее популярных фильмов");
-        return likes.entrySet().stream()
-                .sorted((entry1, entry2) -> Integer.compare(entry2.getValue().size(), entry1.getValue().size()))
-                .limit(count)
-                .map(entry -> films.get(entry.getKey()))
+        log.debug("Получен запрос на получение наиболее популярных фильмов");
+        List<Long> filmIds = popularityIndex.top(count);
+        List<Film> popular = filmIds.stream()
+                .map(films::get)
                 .collect(Collectors.toList());
+        if (popular.size() < count && popular.size() < films.size()) {
+            Set<Long> ranked = new HashSet<>(filmIds);
+            for (Film film : films.values()) {
+                if (popular.size() >= count) {
+                    break;
+                }
+                if (!ranked.contains(film.getId())) {
+                    popular.add(film);
+                }
+            }
+        }
+        return popular;
+    }
+
+    // Число лайков для ранжирования намеренно читается без блокировки фильма и может быть неточным: addLike
+    // индекс поиска не трогает, так что размер набора меняется параллельно с поиском. Читается одно поле int,
+    // поэтому хуже устаревшего значения ничего не будет, а для усиления оценки этого достаточно. Брать здесь
+    // блокировку фильма нельзя: поиск держит блокировку чтения индекса, а updateFilm под блокировкой фильма
+    // ждёт блокировку записи индекса - встречный порядок привёл бы к взаимной блокировке
+    @Override
+    public List<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        log.debug("Получен запрос на поиск фильмов: {}", query);
+        List<Long> filmIds = searchIndex.search(query, limit, boostByLikes ? id -> {
+            IdSet filmLikes = likes.get(id);
+            return filmLikes == null ? 0 : filmLikes.size();
+        } : null);
+        return findFilmsByIds(filmIds);
+    }
+
+    @Override
+    public long countFilms() {
+        return films.size();
+    }
+
+    @Override
+    public long countLikes() {
+        long count = 0;
+        for (long id : likes.keySet()) {
+            count += getLikesCount(id);
+        }
+        return count;
+    }
+
+    @Override
+    public int maxLikesPerFilm() {
+        return popularityIndex.maxLikes();
+    }
+
+    // Восстановление из снимка и журнала: фильм записывается с готовым id, без проверок и без записи в журнал.
+    // Повторное применение того же состояния ничего не меняет
+    public void restoreFilm(Film film) {
+        long id = film.getId();
+        counterId.accumulateAndGet(id, Math::max);
+        locks.runLocked(id, () -> {
+            Film current = films.get(id);
+            if (current == null) {
+                films.put(id, film);
+                popularityIndex.add(id);
+                searchIndex.index(film);
+            } else {
+                filmKeys.remove(FilmKey.of(current), id);
+                current.setName(film.getName());
+                current.setDescription(film.getDescription());
+                current.setReleaseDate(film.getReleaseDate());
+                current.setDuration(film.getDuration());
+                searchIndex.index(current);
+            }
+            filmKeys.put(FilmKey.of(film), id);
+        });
+    }
+
+    // Индекс популярности при восстановлении не обновляется: каждое изменение стоило бы двух операций
+    // со списком с пропусками. Он перестраивается один раз в finishRestore
+    public void restoreLike(long id, long userId, boolean liked) {
+        locks.runLocked(id, () -> {
+            if (liked) {
+                likes.computeIfAbsent(id, filmId -> idSetType.create()).add(userId);
+            } else {
+                IdSet filmLikes = likes.get(id);
+                if (filmLikes != null) {
+                    filmLikes.remove(userId);
+                }
+            }
+            indexUserLike(id, userId, liked);
+        });
+    }
+
+    public void finishRestore() {
+        for (long id : films.keySet()) {
+            locks.runLocked(id, () -> {
+                IdSet filmLikes = likes.get(id);
+                if (filmLikes != null) {
+                    popularityIndex.update(id, 0, filmLikes.size());
+                }
+            });
+        }
+    }
+
+    // Обход для снимка: фильм и его лайки копируются под блокировкой фильма, action вызывается уже без неё
+    public void forEachFilmWithLikes(BiConsumer<Film, long[]> action) {
+        for (long id : films.keySet()) {
+            Film[] film = new Film[1];
+            long[] filmLikes = locks.callLocked(id, () -> {
+                film[0] = copyOf(films.get(id));
+                IdSet userIds = likes.get(id);
+                return userIds == null ? new long[0] : userIds.toArray();
+            });
+            action.accept(film[0], filmLikes);
+        }
+    }
+
+    private boolean insertLike(long id, long userId) {
+        IdSet filmLikes = likes.computeIfAbsent(id, filmId -> idSetType.create());
+        if (!filmLikes.add(userId)) {
+            return false;
+        }
+        popularityIndex.update(id, filmLikes.size() - 1, filmLikes.size());
+        indexUserLike(id, userId, true);
+        return true;
+    }
+
+    private boolean removeLike(long id, long userId) {
+        IdSet filmLikes = likes.get(id);
+        if (filmLikes == null || !filmLikes.remove(userId)) {
+            return false;
+        }
+        popularityIndex.update(id, filmLikes.size() + 1, filmLikes.size());
+        indexUserLike(id, userId, false);
+        return true;
+    }
+
+    // Вызывается под блокировкой фильма id
+    private void indexUserLike(long id, long userId, boolean liked) {
+        userLocks.runLocked(userId, () -> {
+            if (liked) {
+                userLikes.computeIfAbsent(userId, key -> idSetType.create()).add(id);
+            } else {
+                IdSet filmIds = userLikes.get(userId);
+                if (filmIds != null) {
+                    filmIds.remove(id);
+                }
+            }
+        });
+    }
+
+    private static Film copyOf(Film film) {
+        Film copy = new Film();
+        copy.setId(film.getId());
+        copy.setName(film.getName());
+        copy.setDescription(film.getDescription());
+        copy.setReleaseDate(film.getReleaseDate());
+        copy.setDuration(film.getDuration());
+        return copy;
+    }
+
+    int getLikesCount(long id) {
+        return locks.callLocked(id, () -> {
+            IdSet filmLikes = likes.get(id);
+            return filmLikes == null ? 0 : filmLikes.size();
+        });
     }
 }
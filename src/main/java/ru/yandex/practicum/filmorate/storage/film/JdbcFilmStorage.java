@@ -0,0 +1,376 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.search.Tokenizer;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcFilmStorage implements FilmStorage {
+
+    private static final String FILM_COLUMNS = "f.id, f.name, f.description, f.release_date, f.duration";
+    private static final RowMapper<Film> FILM_MAPPER = (rs, rowNum) -> mapFilm(rs);
+    // Сколько строк драйвер подтягивает за раз при потоковом обходе всех фильмов
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // Сколько id проверяется одним запросом в findExistingIds
+    private static final int ID_CHUNK_SIZE = 1000;
+    // Вставка, которая не падает на уже поставленном лайке, а возвращает 0 изменённых строк
+    private static final String INSERT_LIKE_IF_ABSENT = "INSERT INTO likes (film_id, user_id) SELECT ?, ? " +
+            "WHERE NOT EXISTS (SELECT 1 FROM likes WHERE film_id = ? AND user_id = ?)";
+
+    // Вставка, которая пропускает фильм с занятыми названием и датой выхода, а не падает на уникальном индексе
+    private static final String INSERT_FILM_IF_ABSENT = "INSERT INTO films (name, description, release_date, duration) " +
+            "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM films WHERE name = ? AND release_date = ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpleJdbcInsert filmInsert;
+
+    public JdbcFilmStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.filmInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("films")
+                .usingColumns("name", "description", "release_date", "duration")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        return jdbcTemplate.query("SELECT " + FILM_COLUMNS + " FROM films f ORDER BY f.id", FILM_MAPPER);
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long after, int limit) {
+        return jdbcTemplate.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id > ? ORDER BY f.id LIMIT ?",
+                FILM_MAPPER, after, limit);
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + FILM_COLUMNS + " FROM films f ORDER BY f.id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(mapFilm(rs)));
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        log.debug("Получен запрос на добавление фильма: {}", film);
+        try {
+            Number id = filmInsert.executeAndReturnKey(new MapSqlParameterSource()
+                    .addValue("name", film.getName())
+                    .addValue("description", film.getDescription())
+                    .addValue("release_date", Date.valueOf(film.getReleaseDate()))
+                    .addValue("duration", film.getDuration()));
+            film.setId(id.longValue());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Фильм с таким названием и годом выпуска уже есть в списке");
+        }
+        log.info("Добавлен фильм с id: {}", film.getId());
+        return film;
+    }
+
+    // Один пакетный запрос на весь список, id вставленных строк приходят в порядке вставки.
+    // Если параллельный запрос успеет занять ключ между проверкой и вставкой, сработает уникальный индекс
+    // и транзакция пакета откатится целиком
+    @Override
+    @Transactional
+    public boolean[] createFilms(List<Film> films) {
+        log.info("Получен пакет из {} фильмов на добавление", films.size());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] counts;
+        try {
+            counts = jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_FILM_IF_ABSENT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            Film film = films.get(i);
+                            Date releaseDate = Date.valueOf(film.getReleaseDate());
+                            ps.setString(1, film.getName());
+                            ps.setString(2, film.getDescription());
+                            ps.setDate(3, releaseDate);
+                            ps.setObject(4, film.getDuration());
+                            ps.setString(5, film.getName());
+                            ps.setDate(6, releaseDate);
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return films.size();
+                        }
+                    }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Фильм с таким названием и годом выпуска уже есть в списке");
+        }
+        boolean[] created = new boolean[films.size()];
+        Iterator<Map<String, Object>> keys = keyHolder.getKeyList().iterator();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                created[i] = true;
+                films.get(i).setId(((Number) keys.next().values().iterator().next()).longValue());
+            }
+        }
+        log.info("Пакет фильмов обработан, добавлено: {}", keyHolder.getKeyList().size());
+        return created;
+    }
+
+    @Override
+    public Film updateFilm(Film newFilm) {
+        log.debug("Получен запрос на обновление фильма: {}", newFilm);
+        try {
+            jdbcTemplate.update("UPDATE films SET name = ?, description = ?, release_date = ?, duration = ? WHERE id = ?",
+                    newFilm.getName(), newFilm.getDescription(), Date.valueOf(newFilm.getReleaseDate()),
+                    newFilm.getDuration(), newFilm.getId());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Фильм с таким названием и годом выпуска уже есть в списке");
+        }
+        Film film = jdbcTemplate.queryForObject("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id = ?",
+                FILM_MAPPER, newFilm.getId());
+        log.info("Обновлён фильм с id: {}", film.getId());
+        return film;
+    }
+
+    @Override
+    public boolean addLike(long id, long userId) {
+        log.debug("Получен запрос поставить лайк от пользователя с id = {} фильму с id = {}", userId, id);
+        try {
+            jdbcTemplate.update("INSERT INTO likes (film_id, user_id) VALUES (?, ?)", id, userId);
+        } catch (DuplicateKeyException e) {
+            log.debug("Пользователь с id = {} уже ставил лайк фильму с id = {}", userId, id);
+            return false;
+        }
+        log.debug("Пользователь с id = {} поставил лайк фильму с id = {}", userId, id);
+        return true;
+    }
+
+    @Override
+    public boolean deleteLike(long id, long userId) {
+        log.debug("Получен запрос убрать лайк от пользователя с id = {} фильму с id = {}", userId, id);
+        int deleted = jdbcTemplate.update("DELETE FROM likes WHERE film_id = ? AND user_id = ?", id, userId);
+        log.debug("Пользователь с id = {} убрал лайк фильму с id = {}", userId, id);
+        return deleted > 0;
+    }
+
+    // Удаление идёт по индексу likes_user_id_idx, id фильмов удалённых строк H2 отдаёт тем же запросом
+    @Override
+    public long[] deleteUserLikes(long userId) {
+        log.debug("Получен запрос убрать все лайки пользователя с id = {}", userId);
+        long[] deleted = jdbcTemplate.queryForList(
+                        "SELECT film_id FROM OLD TABLE (DELETE FROM likes WHERE user_id = ?) ORDER BY film_id",
+                        Long.class, userId)
+                .stream()
+                .mapToLong(Long::longValue)
+                .toArray();
+        log.debug("У пользователя с id = {} убрано лайков: {}", userId, deleted.length);
+        return deleted;
+    }
+
+    // Подряд идущие операции одного вида уходят в базу одним пакетом, порядок операций сохраняется
+    @Override
+    @Transactional
+    public boolean[] applyLikes(List<LikeOperation> operations) {
+        log.info("Получен пакет из {} операций с лайками", operations.size());
+        boolean[] changed = new boolean[operations.size()];
+        int start = 0;
+        while (start < operations.size()) {
+            LikeOperation.Op op = operations.get(start).op();
+            int end = start;
+            List<Object[]> args = new ArrayList<>();
+            while (end < operations.size() && operations.get(end).op() == op) {
+                LikeOperation operation = operations.get(end);
+                args.add(op == LikeOperation.Op.ADD
+                        ? new Object[]{operation.filmId(), operation.userId(), operation.filmId(), operation.userId()}
+                        : new Object[]{operation.filmId(), operation.userId()});
+                end++;
+            }
+            int[] counts = jdbcTemplate.batchUpdate(op == LikeOperation.Op.ADD ? INSERT_LIKE_IF_ABSENT
+                    : "DELETE FROM likes WHERE film_id = ? AND user_id = ?", args);
+            for (int i = 0; i < counts.length; i++) {
+                changed[start + i] = counts[i] > 0;
+            }
+            start = end;
+        }
+        log.info("Пакет из {} операций с лайками применён", operations.size());
+        return changed;
+    }
+
+    // Один агрегирующий запрос вместо выборки лайков по каждому фильму.
+    // Фильмы без лайков тоже попадают в выдачу, порядок при равенстве лайков - по id, как в памяти
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        log.debug("Получен запрос на получение наиболее популярных фильмов");
+        return jdbcTemplate.query("SELECT " + FILM_COLUMNS + " " +
+                "FROM films f " +
+                "LEFT JOIN likes l ON l.film_id = f.id " +
+                "GROUP BY " + FILM_COLUMNS + " " +
+                "ORDER BY COUNT(l.user_id) DESC, f.id " +
+                "LIMIT ?", FILM_MAPPER, Math.max(0, count));
+    }
+
+    // Инвертированного индекса в базе нет: слова запроса, разбитые так же, как в FilmSearchIndex, ищутся
+    // подстрокой в названии или описании, без BM25. Порядок - по числу лайков, если boostByLikes, иначе по id.
+    // Слова состоят только из букв и цифр, поэтому экранировать % и _ не нужно
+    @Override
+    public List<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        log.debug("Получен запрос на поиск фильмов: {}", query);
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        StringBuilder sql = new StringBuilder("SELECT " + FILM_COLUMNS + " FROM films f ");
+        if (boostByLikes) {
+            sql.append("LEFT JOIN likes l ON l.film_id = f.id ");
+        }
+        List<Object> args = new ArrayList<>();
+        for (int i = 0; i < tokens.size(); i++) {
+            sql.append(i == 0 ? "WHERE " : "AND ")
+                    .append("(REPLACE(LOWER(f.name), 'ё', 'е') LIKE ? ")
+                    .append("OR REPLACE(LOWER(f.description), 'ё', 'е') LIKE ?) ");
+            String pattern = "%" + tokens.get(i) + "%";
+            args.add(pattern);
+            args.add(pattern);
+        }
+        if (boostByLikes) {
+            sql.append("GROUP BY " + FILM_COLUMNS + " ORDER BY COUNT(l.user_id) DESC, f.id ");
+        } else {
+            sql.append("ORDER BY f.id ");
+        }
+        sql.append("LIMIT ?");
+        args.add(limit);
+        return jdbcTemplate.query(sql.toString(), FILM_MAPPER, args.toArray());
+    }
+
+    @Override
+    public boolean containsFilmById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM films WHERE id = ?)", Boolean.class, id));
+    }
+
+    @Override
+    public List<Film> findFilmsByIds(List<Long> ids) {
+        Map<Long, Film> found = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            Long[] chunk = ids.subList(from, Math.min(ids.size(), from + ID_CHUNK_SIZE)).toArray(Long[]::new);
+            jdbcTemplate.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.id = ANY(?)",
+                    (RowCallbackHandler) rs -> found.put(rs.getLong("id"), mapFilm(rs)), (Object) chunk);
+        }
+        List<Film> films = new ArrayList<>(found.size());
+        for (Long id : ids) {
+            Film film = found.get(id);
+            if (film != null) {
+                films.add(film);
+            }
+        }
+        return films;
+    }
+
+    @Override
+    public long[] getLikedFilmIds(long userId) {
+        return jdbcTemplate.queryForList("SELECT film_id FROM likes WHERE user_id = ? ORDER BY film_id",
+                Long.class, userId).stream().mapToLong(Long::longValue).toArray();
+    }
+
+    // Один потоковый запрос по всем лайкам: строки одного пользователя идут подряд и собираются в массив
+    @Override
+    public void forEachUserLikes(BiConsumer<Long, long[]> action) {
+        long[] current = {0};
+        long[][] filmIds = {new long[16]};
+        int[] count = {0};
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT user_id, film_id FROM likes ORDER BY user_id, film_id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> {
+            long userId = rs.getLong("user_id");
+            if (userId != current[0] && count[0] > 0) {
+                action.accept(current[0], Arrays.copyOf(filmIds[0], count[0]));
+                count[0] = 0;
+            }
+            current[0] = userId;
+            if (count[0] == filmIds[0].length) {
+                filmIds[0] = Arrays.copyOf(filmIds[0], count[0] * 2);
+            }
+            filmIds[0][count[0]++] = rs.getLong("film_id");
+        });
+        if (count[0] > 0) {
+            action.accept(current[0], Arrays.copyOf(filmIds[0], count[0]));
+        }
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += ID_CHUNK_SIZE) {
+            Long[] chunk = idList.subList(from, Math.min(idList.size(), from + ID_CHUNK_SIZE)).toArray(Long[]::new);
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM films WHERE id = ANY(?)", Long.class,
+                    (Object) chunk));
+        }
+        return existing;
+    }
+
+    @Override
+    public boolean existByNameAndReleaseDate(Film film) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM films WHERE name = ? AND release_date = ?)", Boolean.class,
+                film.getName(), Date.valueOf(film.getReleaseDate())));
+    }
+
+    @Override
+    public Optional<Film> findByNameAndReleaseDate(Film newFilm) {
+        return jdbcTemplate.query("SELECT " + FILM_COLUMNS + " FROM films f WHERE f.name = ? AND f.release_date = ?",
+                FILM_MAPPER, newFilm.getName(), Date.valueOf(newFilm.getReleaseDate())).stream().findFirst();
+    }
+
+    @Override
+    public long countFilms() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM films", Long.class);
+    }
+
+    @Override
+    public long countLikes() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM likes", Long.class);
+    }
+
+    @Override
+    public int maxLikesPerFilm() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(c), 0) FROM " +
+                "(SELECT COUNT(*) AS c FROM likes GROUP BY film_id)", Integer.class);
+    }
+
+    private static Film mapFilm(ResultSet rs) throws SQLException {
+        Film film = new Film();
+        film.setId(rs.getLong("id"));
+        film.setName(rs.getString("name"));
+        film.setDescription(rs.getString("description"));
+        film.setReleaseDate(rs.getDate("release_date").toLocalDate());
+        film.setDuration(rs.getObject("duration", Integer.class));
+        return film;
+    }
+}
@@ -0,0 +1,185 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// Декоратор хранилища фильмов: каждый метод замеряется своим таймером, созданным заранее, поэтому вызов
+// не ищет таймер в реестре. Размеры хранилища публикуются датчиками и считаются только при сборе метрик
+public class MeteredFilmStorage implements FilmStorage {
+
+    private final FilmStorage delegate;
+
+    private final Timer getFilmsList;
+    private final Timer getFilmsPage;
+    private final Timer forEachFilm;
+    private final Timer createFilm;
+    private final Timer createFilms;
+    private final Timer updateFilm;
+    private final Timer addLike;
+    private final Timer deleteLike;
+    private final Timer applyLikes;
+    private final Timer getPopularFilms;
+    private final Timer searchFilms;
+    private final Timer containsFilmById;
+    private final Timer findFilmsByIds;
+    private final Timer deleteUserLikes;
+    private final Timer getLikedFilmIds;
+    private final Timer forEachUserLikes;
+    private final Timer findExistingIds;
+    private final Timer existByNameAndReleaseDate;
+    private final Timer findByNameAndReleaseDate;
+
+    public MeteredFilmStorage(FilmStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        getFilmsList = StorageMetrics.timer(registry, "film", "getFilmsList");
+        getFilmsPage = StorageMetrics.timer(registry, "film", "getFilmsPage");
+        forEachFilm = StorageMetrics.timer(registry, "film", "forEachFilm");
+        createFilm = StorageMetrics.timer(registry, "film", "createFilm");
+        createFilms = StorageMetrics.timer(registry, "film", "createFilms");
+        updateFilm = StorageMetrics.timer(registry, "film", "updateFilm");
+        addLike = StorageMetrics.timer(registry, "film", "addLike");
+        deleteLike = StorageMetrics.timer(registry, "film", "deleteLike");
+        applyLikes = StorageMetrics.timer(registry, "film", "applyLikes");
+        getPopularFilms = StorageMetrics.timer(registry, "film", "getPopularFilms");
+        searchFilms = StorageMetrics.timer(registry, "film", "searchFilms");
+        containsFilmById = StorageMetrics.timer(registry, "film", "containsFilmById");
+        findFilmsByIds = StorageMetrics.timer(registry, "film", "findFilmsByIds");
+        deleteUserLikes = StorageMetrics.timer(registry, "film", "deleteUserLikes");
+        getLikedFilmIds = StorageMetrics.timer(registry, "film", "getLikedFilmIds");
+        forEachUserLikes = StorageMetrics.timer(registry, "film", "forEachUserLikes");
+        findExistingIds = StorageMetrics.timer(registry, "film", "findExistingIds");
+        existByNameAndReleaseDate = StorageMetrics.timer(registry, "film", "existByNameAndReleaseDate");
+        findByNameAndReleaseDate = StorageMetrics.timer(registry, "film", "findByNameAndReleaseDate");
+        Gauge.builder("filmorate.storage.films", delegate, FilmStorage::countFilms)
+                .description("Количество фильмов")
+                .register(registry);
+        Gauge.builder("filmorate.storage.likes", delegate, FilmStorage::countLikes)
+                .description("Количество лайков")
+                .register(registry);
+        Gauge.builder("filmorate.storage.adjacency.max", delegate, FilmStorage::maxLikesPerFilm)
+                .description("Размер самого большого множества связей")
+                .tag("relation", "likes")
+                .register(registry);
+    }
+
+    @Override
+    public List<Film> getFilmsList() {
+        return getFilmsList.record(delegate::getFilmsList);
+    }
+
+    @Override
+    public List<Film> getFilmsPage(long after, int limit) {
+        return getFilmsPage.record(() -> delegate.getFilmsPage(after, limit));
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> action) {
+        forEachFilm.record(() -> delegate.forEachFilm(action));
+    }
+
+    @Override
+    public Film createFilm(Film film) {
+        return createFilm.record(() -> delegate.createFilm(film));
+    }
+
+    @Override
+    public boolean[] createFilms(List<Film> films) {
+        return createFilms.record(() -> delegate.createFilms(films));
+    }
+
+    @Override
+    public Film updateFilm(Film newFilm) {
+        return updateFilm.record(() -> delegate.updateFilm(newFilm));
+    }
+
+    @Override
+    public boolean addLike(long id, long userId) {
+        return addLike.record(() -> delegate.addLike(id, userId));
+    }
+
+    @Override
+    public boolean deleteLike(long id, long userId) {
+        return deleteLike.record(() -> delegate.deleteLike(id, userId));
+    }
+
+    @Override
+    public boolean[] applyLikes(List<LikeOperation> operations) {
+        return applyLikes.record(() -> delegate.applyLikes(operations));
+    }
+
+    @Override
+    public List<Film> getPopularFilms(int count) {
+        return getPopularFilms.record(() -> delegate.getPopularFilms(count));
+    }
+
+    @Override
+    public List<Film> searchFilms(String query, int limit, boolean boostByLikes) {
+        return searchFilms.record(() -> delegate.searchFilms(query, limit, boostByLikes));
+    }
+
+    @Override
+    public boolean containsFilmById(long id) {
+        return containsFilmById.record(() -> delegate.containsFilmById(id));
+    }
+
+    @Override
+    public List<Film> findFilmsByIds(List<Long> ids) {
+        return findFilmsByIds.record(() -> delegate.findFilmsByIds(ids));
+    }
+
+    @Override
+    public long[] deleteUserLikes(long userId) {
+        return deleteUserLikes.record(() -> delegate.deleteUserLikes(userId));
+    }
+
+    @Override
+    public long[] getLikedFilmIds(long userId) {
+        return getLikedFilmIds.record(() -> delegate.getLikedFilmIds(userId));
+    }
+
+    @Override
+    public void forEachUserLikes(BiConsumer<Long, long[]> action) {
+        forEachUserLikes.record(() -> delegate.forEachUserLikes(action));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return findExistingIds.record(() -> delegate.findExistingIds(ids));
+    }
+
+    @Override
+    public boolean existByNameAndReleaseDate(Film film) {
+        return existByNameAndReleaseDate.record(() -> delegate.existByNameAndReleaseDate(film));
+    }
+
+    @Override
+    public Optional<Film> findByNameAndReleaseDate(Film newFilm) {
+        return findByNameAndReleaseDate.record(() -> delegate.findByNameAndReleaseDate(newFilm));
+    }
+
+    @Override
+    public long countFilms() {
+        return delegate.countFilms();
+    }
+
+    @Override
+    public long countLikes() {
+        return delegate.countLikes();
+    }
+
+    @Override
+    public int maxLikesPerFilm() {
+        return delegate.maxLikesPerFilm();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.List;
+
+// Ранжирование фильмов по лайкам для getPopularFilms. Точное - PopularityIndex, приближённое -
+// ApproximatePopularity; выбирается свойством filmorate.storage.popularity
+interface Popularity {
+
+    void add(long filmId);
+
+    // Вызывается под блокировкой фильма после каждого изменения числа его лайков
+    void update(long filmId, int oldLikes, int newLikes);
+
+    List<Long> top(int count);
+
+    int maxLikes();
+}
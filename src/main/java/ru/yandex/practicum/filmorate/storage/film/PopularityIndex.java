@@ -0,0 +1,56 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+// Индекс популярности: фильмы упорядочены по убыванию количества лайков, при равенстве - по возрастанию id.
+// Изменение количества лайков стоит O(log F), выборка первых count фильмов - O(count).
+// Обновления одного фильма должны идти последовательно (под блокировкой фильма), чтение - без блокировок
+class PopularityIndex implements Popularity {
+
+    private static final Comparator<Rank> ORDER = Comparator.comparingInt(Rank::likes).reversed()
+            .thenComparingLong(Rank::filmId);
+
+    private final NavigableSet<Rank> ranks = new ConcurrentSkipListSet<>(ORDER);
+
+    @Override
+    public void add(long filmId) {
+        ranks.add(new Rank(filmId, 0));
+    }
+
+    @Override
+    public void update(long filmId, int oldLikes, int newLikes) {
+        if (oldLikes == newLikes) {
+            return;
+        }
+        // Сначала добавляем новую позицию, потом убираем старую. Чтение слабо согласовано:
+        // параллельный обход может на мгновение увидеть фильм дважды, повтор отсекается в top
+        ranks.add(new Rank(filmId, newLikes));
+        ranks.remove(new Rank(filmId, oldLikes));
+    }
+
+    @Override
+    public List<Long> top(int count) {
+        int limit = Math.max(0, count);
+        List<Long> filmIds = new ArrayList<>(Math.min(limit, 1024));
+        Set<Long> seen = new HashSet<>();
+        Iterator<Rank> iterator = ranks.iterator();
+        while (filmIds.size() < limit && iterator.hasNext()) {
+            long filmId = iterator.next().filmId();
+            if (seen.add(filmId)) {
+                filmIds.add(filmId);
+            }
+        }
+        return filmIds;
+    }
+
+    // Лайки самого популярного фильма: первый элемент индекса
+    @Override
+    public int maxLikes() {
+        Iterator<Rank> iterator = ranks.iterator();
+        return iterator.hasNext() ? iterator.next().likes() : 0;
+    }
+
+    private record Rank(long filmId, int likes) {
+    }
+}
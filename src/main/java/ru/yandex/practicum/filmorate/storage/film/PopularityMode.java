@@ -0,0 +1,20 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import java.util.function.Supplier;
+
+// Выбор индекса популярности в хранилище в памяти, настраивается свойством filmorate.storage.popularity
+public enum PopularityMode {
+
+    EXACT(PopularityIndex::new),
+    APPROXIMATE(ApproximatePopularity::new);
+
+    private final Supplier<Popularity> factory;
+
+    PopularityMode(Supplier<Popularity> factory) {
+        this.factory = factory;
+    }
+
+    Popularity create() {
+        return factory.get();
+    }
+}
@@ -0,0 +1,13 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+// Когда запись журнала считается сохранённой
+public enum Durability {
+    // Запись попадает в отображённую память, на диск её сбрасывает ОС. Переживает падение процесса, но не ОС
+    NONE,
+    // Потоки ждут общего fsync фонового потока: он сбрасывает все накопившиеся записи разом, перед сбросом
+    // выждав group-commit-interval, чтобы группа успела собраться. При 0 группу составляют записи,
+    // пришедшие за время предыдущего fsync
+    GROUP,
+    // Каждый commit сразу вызывает fsync. Параллельные commit всё равно объединяются в один сброс
+    SYNC
+}
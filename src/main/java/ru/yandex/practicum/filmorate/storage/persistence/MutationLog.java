@@ -0,0 +1,35 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+// Получатель изменений хранилищ в памяти. Хранилище вызывает методы изменения под блокировкой сущности,
+// уже применив изменение, поэтому для каждой сущности порядок записей совпадает с порядком изменений.
+// commit вызывается после снятия блокировки и возвращает управление, когда записи текущего потока сохранены
+public interface MutationLog {
+
+    MutationLog NONE = new MutationLog() {
+    };
+
+    // Создание и обновление пишутся одинаково - итоговым состоянием сущности
+    default void filmSaved(Film film) {
+    }
+
+    default void likeAdded(long filmId, long userId) {
+    }
+
+    default void likeDeleted(long filmId, long userId) {
+    }
+
+    default void userSaved(User user) {
+    }
+
+    default void friendAdded(long id, long friendId) {
+    }
+
+    default void friendDeleted(long id, long friendId) {
+    }
+
+    default void commit() {
+    }
+}
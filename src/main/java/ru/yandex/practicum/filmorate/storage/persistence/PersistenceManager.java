@@ -0,0 +1,107 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Сохранение хранилищ в памяти на диск: при запуске загружает последний снимок и применяет хвост журнала,
+// затем подключает журнал к хранилищам и периодически пишет новые снимки, после которых старые сегменты
+// журнала удаляются. Восстановление заканчивается до того, как приложение начнёт принимать запросы
+@Slf4j
+@Component
+@Profile("!jdbc")
+@ConditionalOnProperty(name = "filmorate.persistence.enabled", havingValue = "true")
+public class PersistenceManager {
+
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+    private final Path directory;
+    private final Durability durability;
+    private final Duration groupCommitInterval;
+    private final DataSize segmentSize;
+    private final Duration snapshotInterval;
+    private final SnapshotStore snapshots;
+
+    private WriteAheadLog wal;
+    private ScheduledExecutorService snapshotScheduler;
+
+    public PersistenceManager(InMemoryFilmStorage filmStorage,
+                              InMemoryUserStorage userStorage,
+                              @Value("${filmorate.persistence.directory:./data/wal}") Path directory,
+                              @Value("${filmorate.persistence.durability:group}") Durability durability,
+                              @Value("${filmorate.persistence.group-commit-interval:0ms}") Duration groupCommitInterval,
+                              @Value("${filmorate.persistence.segment-size:64MB}") DataSize segmentSize,
+                              @Value("${filmorate.persistence.snapshot-interval:10m}") Duration snapshotInterval) {
+        if (segmentSize.toBytes() < DataSize.ofKilobytes(1).toBytes() || segmentSize.toBytes() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Размер сегмента журнала должен быть от 1KB до 2GB");
+        }
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+        this.directory = directory;
+        this.durability = durability;
+        this.groupCommitInterval = groupCommitInterval;
+        this.segmentSize = segmentSize;
+        this.snapshotInterval = snapshotInterval;
+        this.snapshots = new SnapshotStore(directory);
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        long startedAt = System.nanoTime();
+        long snapshotSeq = snapshots.load(filmStorage, userStorage);
+        long lastSeq = WriteAheadLog.replay(directory, snapshotSeq, new StorageReplay(filmStorage, userStorage));
+        filmStorage.finishRestore();
+        log.info("Хранилища восстановлены за {} мс: снимок до записи {}, журнал до записи {}",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt), snapshotSeq, lastSeq);
+
+        wal = WriteAheadLog.open(directory, lastSeq + 1, durability, groupCommitInterval, (int) segmentSize.toBytes());
+        filmStorage.setMutationLog(wal);
+        userStorage.setMutationLog(wal);
+
+        if (!snapshotInterval.isZero()) {
+            snapshotScheduler = Executors.newSingleThreadScheduledExecutor(
+                    Thread.ofPlatform().daemon().name("storage-snapshot").factory());
+            snapshotScheduler.scheduleWithFixedDelay(this::snapshotQuietly, snapshotInterval.toMillis(),
+                    snapshotInterval.toMillis(), TimeUnit.MILLISECONDS);
+        }
+    }
+
+    public void snapshot() throws IOException {
+        long walSeq = wal.lastSeq();
+        long obsoleteSeq = snapshots.write(walSeq, filmStorage, userStorage);
+        wal.deleteSegmentsUpTo(obsoleteSeq);
+        log.info("Записан снимок хранилищ до записи журнала {}", walSeq);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (snapshotScheduler != null) {
+            snapshotScheduler.shutdownNow();
+        }
+        filmStorage.setMutationLog(MutationLog.NONE);
+        userStorage.setMutationLog(MutationLog.NONE);
+        wal.close();
+    }
+
+    private void snapshotQuietly() {
+        try {
+            snapshot();
+        } catch (IOException | RuntimeException e) {
+            log.error("Не удалось записать снимок хранилищ", e);
+        }
+    }
+}
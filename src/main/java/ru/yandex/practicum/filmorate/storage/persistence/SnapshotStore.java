@@ -0,0 +1,257 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+// Снимки хранилищ в памяти. Снимок "нечёткий": он пишется без остановки записи и может уже содержать
+// часть изменений новее своего номера журнала. Это не страшно - при восстановлении записи журнала
+// после этого номера применяются повторно, а каждая из них задаёт итоговое состояние и идемпотентна.
+// Формат: заголовок, фильмы с лайками, пользователи с друзьями, маркер конца и crc всего файла.
+// Строки с версии 2 пишутся как в журнале - длиной int и байтами UTF-8: writeUTF ограничен 64KB
+@Slf4j
+public class SnapshotStore {
+
+    private static final int MAGIC = 0x46534E50;
+    private static final int VERSION = 2;
+    private static final int MODIFIED_UTF_VERSION = 1;
+    private static final byte FILM = 1;
+    private static final byte USER = 2;
+    private static final byte END = 0;
+    private static final String SNAPSHOT_PREFIX = "snapshot-";
+    private static final String SNAPSHOT_SUFFIX = ".bin";
+    // Последний снимок может оказаться повреждённым, поэтому предыдущий хранится до появления следующего,
+    // а журнал - начиная с номера самого старого из хранимых снимков
+    private static final int SNAPSHOTS_TO_KEEP = 2;
+
+    private final Path directory;
+
+    public SnapshotStore(Path directory) {
+        this.directory = directory;
+    }
+
+    // walSeq должен быть получен до начала обхода хранилищ: всё, что записано в журнал до него, уже видно в памяти.
+    // Возвращает номер записи журнала, до которого сегменты больше не нужны ни одному из хранимых снимков
+    public long write(long walSeq, InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage)
+            throws IOException {
+        Files.createDirectories(directory);
+        Path target = directory.resolve(String.format("%s%020d%s", SNAPSHOT_PREFIX, walSeq, SNAPSHOT_SUFFIX));
+        Path temp = directory.resolve(target.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckedOutputStream checked = new CheckedOutputStream(
+                    new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16), new CRC32C());
+            DataOutputStream out = new DataOutputStream(checked);
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(walSeq);
+            IOException[] error = new IOException[1];
+            filmStorage.forEachFilmWithLikes((film, likes) -> {
+                if (error[0] == null) {
+                    try {
+                        writeFilm(out, film, likes);
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            userStorage.forEachUserWithFriends((user, friends) -> {
+                if (error[0] == null) {
+                    try {
+                        writeUser(out, user, friends);
+                    } catch (IOException e) {
+                        error[0] = e;
+                    }
+                }
+            });
+            if (error[0] != null) {
+                throw error[0];
+            }
+            out.writeByte(END);
+            out.writeLong(checked.getChecksum().getValue());
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        // Без сброса каталога переименование может не пережить сбой, а журнал к тому времени уже будет удалён
+        WriteAheadLog.forceDirectory(directory);
+        List<Path> snapshots = listSnapshots();
+        int oldestKept = Math.max(0, snapshots.size() - SNAPSHOTS_TO_KEEP);
+        for (int i = 0; i < oldestKept; i++) {
+            Files.deleteIfExists(snapshots.get(i));
+        }
+        return walSeq(snapshots.get(oldestKept));
+    }
+
+    // Загружает самый новый целый снимок и возвращает его номер журнала, 0 - если снимков нет
+    public long load(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return 0;
+        }
+        List<Path> snapshots = listSnapshots();
+        for (int i = snapshots.size() - 1; i >= 0; i--) {
+            Path path = snapshots.get(i);
+            if (isIntact(path)) {
+                return read(path, filmStorage, userStorage);
+            }
+            log.warn("Снимок {} повреждён и пропущен", path);
+        }
+        return 0;
+    }
+
+    // Целостность проверяется отдельным проходом, чтобы не загрузить в хранилища часть повреждённого снимка
+    private boolean isIntact(Path path) throws IOException {
+        long size = Files.size(path);
+        if (size < Long.BYTES) {
+            return false;
+        }
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            CheckedInputStream checked = new CheckedInputStream(in, new CRC32C());
+            checked.skipNBytes(size - Long.BYTES);
+            long expected = checked.getChecksum().getValue();
+            return new DataInputStream(in).readLong() == expected;
+        }
+    }
+
+    private long read(Path path, InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage)
+            throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), 1 << 16))) {
+            if (in.readInt() != MAGIC) {
+                throw new IOException("Неизвестный формат снимка " + path);
+            }
+            int version = in.readInt();
+            if (version != VERSION && version != MODIFIED_UTF_VERSION) {
+                throw new IOException("Неизвестная версия снимка " + path + ": " + version);
+            }
+            long walSeq = in.readLong();
+            for (byte tag = in.readByte(); tag != END; tag = in.readByte()) {
+                switch (tag) {
+                    case FILM -> readFilm(in, version, filmStorage);
+                    case USER -> readUser(in, version, userStorage);
+                    default -> throw new IOException("Неизвестная запись снимка: " + tag);
+                }
+            }
+            return walSeq;
+        }
+    }
+
+    private static void writeFilm(DataOutputStream out, Film film, long[] likes) throws IOException {
+        out.writeByte(FILM);
+        out.writeLong(film.getId());
+        writeString(out, film.getName());
+        writeString(out, film.getDescription());
+        out.writeLong(film.getReleaseDate().toEpochDay());
+        out.writeInt(film.getDuration() == null ? -1 : film.getDuration());
+        writeIds(out, likes);
+    }
+
+    private static void readFilm(DataInputStream in, int version, InMemoryFilmStorage filmStorage)
+            throws IOException {
+        Film film = new Film();
+        film.setId(in.readLong());
+        film.setName(readString(in, version));
+        film.setDescription(readString(in, version));
+        film.setReleaseDate(LocalDate.ofEpochDay(in.readLong()));
+        int duration = in.readInt();
+        film.setDuration(duration < 0 ? null : duration);
+        filmStorage.restoreFilm(film);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            filmStorage.restoreLike(film.getId(), in.readLong(), true);
+        }
+    }
+
+    private static void writeUser(DataOutputStream out, User user, long[] friends) throws IOException {
+        out.writeByte(USER);
+        out.writeLong(user.getId());
+        writeString(out, user.getEmail());
+        writeString(out, user.getLogin());
+        writeString(out, user.getName());
+        out.writeLong(user.getBirthday().toEpochDay());
+        writeIds(out, friends);
+    }
+
+    // Дружба взаимна и лежит в снимке у обоих пользователей, восстанавливается один раз - со стороны меньшего id,
+    // дружба с самим собой - со своей стороны. Повторное восстановление той же дружбы ничего не меняет.
+    // Если при записи снимка стороны разошлись, недостающее изменение есть в журнале после номера снимка
+    private static void readUser(DataInputStream in, int version, InMemoryUserStorage userStorage)
+            throws IOException {
+        User user = new User();
+        user.setId(in.readLong());
+        user.setEmail(readString(in, version));
+        user.setLogin(readString(in, version));
+        user.setName(readString(in, version));
+        user.setBirthday(LocalDate.ofEpochDay(in.readLong()));
+        userStorage.restoreUser(user);
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            long friendId = in.readLong();
+            if (user.getId() <= friendId) {
+                userStorage.restoreFriendship(user.getId(), friendId, true);
+            }
+        }
+    }
+
+    private static void writeIds(DataOutputStream out, long[] ids) throws IOException {
+        out.writeInt(ids.length);
+        for (long id : ids) {
+            out.writeLong(id);
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInputStream in, int version) throws IOException {
+        if (version == MODIFIED_UTF_VERSION) {
+            return in.readBoolean() ? in.readUTF() : null;
+        }
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long walSeq(Path snapshot) {
+        String name = snapshot.getFileName().toString();
+        return Long.parseLong(name.substring(SNAPSHOT_PREFIX.length(), name.length() - SNAPSHOT_SUFFIX.length()));
+    }
+
+    private List<Path> listSnapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SNAPSHOT_PREFIX) && name.endsWith(SNAPSHOT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+// Применяет прочитанные из журнала записи к хранилищам в памяти
+class StorageReplay implements MutationLog {
+
+    private final InMemoryFilmStorage filmStorage;
+    private final InMemoryUserStorage userStorage;
+
+    StorageReplay(InMemoryFilmStorage filmStorage, InMemoryUserStorage userStorage) {
+        this.filmStorage = filmStorage;
+        this.userStorage = userStorage;
+    }
+
+    @Override
+    public void filmSaved(Film film) {
+        filmStorage.restoreFilm(film);
+    }
+
+    @Override
+    public void likeAdded(long filmId, long userId) {
+        filmStorage.restoreLike(filmId, userId, true);
+    }
+
+    @Override
+    public void likeDeleted(long filmId, long userId) {
+        filmStorage.restoreLike(filmId, userId, false);
+    }
+
+    @Override
+    public void userSaved(User user) {
+        userStorage.restoreUser(user);
+    }
+
+    @Override
+    public void friendAdded(long id, long friendId) {
+        userStorage.restoreFriendship(id, friendId, true);
+    }
+
+    @Override
+    public void friendDeleted(long id, long friendId) {
+        userStorage.restoreFriendship(id, friendId, false);
+    }
+}
@@ -0,0 +1,118 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+
+// Двоичный формат записей журнала: тип записи и её поля, строки - длина и байты UTF-8 (-1 для null)
+final class WalRecords {
+
+    static final byte FILM_SAVED = 1;
+    static final byte LIKE_ADDED = 2;
+    static final byte LIKE_DELETED = 3;
+    static final byte USER_SAVED = 4;
+    static final byte FRIEND_ADDED = 5;
+    static final byte FRIEND_DELETED = 6;
+
+    // Пара id: лайк или дружба
+    static final int EDGE_SIZE = 16;
+
+    private WalRecords() {
+    }
+
+    static int maxFilmSize(Film film) {
+        return 8 + maxStringSize(film.getName()) + maxStringSize(film.getDescription()) + 8 + 5;
+    }
+
+    static void writeFilm(ByteBuffer buffer, Film film) {
+        buffer.putLong(film.getId());
+        writeString(buffer, film.getName());
+        writeString(buffer, film.getDescription());
+        buffer.putLong(film.getReleaseDate().toEpochDay());
+        writeNullableInt(buffer, film.getDuration());
+    }
+
+    static Film readFilm(ByteBuffer buffer) {
+        Film film = new Film();
+        film.setId(buffer.getLong());
+        film.setName(readString(buffer));
+        film.setDescription(readString(buffer));
+        film.setReleaseDate(LocalDate.ofEpochDay(buffer.getLong()));
+        film.setDuration(readNullableInt(buffer));
+        return film;
+    }
+
+    static int maxUserSize(User user) {
+        return 8 + maxStringSize(user.getEmail()) + maxStringSize(user.getLogin()) + maxStringSize(user.getName()) + 8;
+    }
+
+    static void writeUser(ByteBuffer buffer, User user) {
+        buffer.putLong(user.getId());
+        writeString(buffer, user.getEmail());
+        writeString(buffer, user.getLogin());
+        writeString(buffer, user.getName());
+        buffer.putLong(user.getBirthday().toEpochDay());
+    }
+
+    static User readUser(ByteBuffer buffer) {
+        User user = new User();
+        user.setId(buffer.getLong());
+        user.setEmail(readString(buffer));
+        user.setLogin(readString(buffer));
+        user.setName(readString(buffer));
+        user.setBirthday(LocalDate.ofEpochDay(buffer.getLong()));
+        return user;
+    }
+
+    // Разбирает запись и передаёт её получателю теми же вызовами, которыми она была записана
+    static void apply(byte type, ByteBuffer payload, MutationLog target) {
+        switch (type) {
+            case FILM_SAVED -> target.filmSaved(readFilm(payload));
+            case LIKE_ADDED -> target.likeAdded(payload.getLong(), payload.getLong());
+            case LIKE_DELETED -> target.likeDeleted(payload.getLong(), payload.getLong());
+            case USER_SAVED -> target.userSaved(readUser(payload));
+            case FRIEND_ADDED -> target.friendAdded(payload.getLong(), payload.getLong());
+            case FRIEND_DELETED -> target.friendDeleted(payload.getLong(), payload.getLong());
+            default -> throw new IllegalStateException("Неизвестный тип записи журнала: " + type);
+        }
+    }
+
+    // Символ UTF-16 занимает в UTF-8 не больше трёх байт
+    private static int maxStringSize(String value) {
+        return 4 + (value == null ? 0 : value.length() * 3);
+    }
+
+    private static void writeString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void writeNullableInt(ByteBuffer buffer, Integer value) {
+        buffer.put((byte) (value == null ? 0 : 1));
+        buffer.putInt(value == null ? 0 : value);
+    }
+
+    private static Integer readNullableInt(ByteBuffer buffer) {
+        boolean present = buffer.get() != 0;
+        int value = buffer.getInt();
+        return present ? value : null;
+    }
+}
@@ -0,0 +1,448 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+// Журнал изменений хранилищ: сегменты фиксированного размера, отображённые в память, записи только дописываются.
+// Запись: длина (4) | crc (4) | номер (8) | тип (1) | поля. Длина считается от номера до конца записи,
+// crc - от типа до конца. Номера записей идут подряд без пропусков, сегмент называется по номеру первой записи.
+// Нулевая длина означает конец сегмента: файл сегмента при создании заполнен нулями
+@Slf4j
+public class WriteAheadLog implements MutationLog, Closeable {
+
+    static final int HEADER_SIZE = 17;
+    private static final int SEQ_OFFSET = 8;
+    private static final int TYPE_OFFSET = 16;
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Durability durability;
+    private final long groupCommitNanos;
+
+    // Под appendLock: текущий сегмент, смещение записи, ещё не сброшенные на диск сегменты
+    private final ReentrantLock appendLock = new ReentrantLock();
+    private final List<MappedByteBuffer> unforcedSegments = new ArrayList<>();
+    private MappedByteBuffer segment;
+    private int writeOffset;
+    private int forcedOffset;
+    private volatile long lastSeq;
+
+    // forceLock выстраивает сбросы в очередь: номер durableSeq растёт только после завершения fsync
+    private final ReentrantLock forceLock = new ReentrantLock();
+    private final ReentrantLock commitLock = new ReentrantLock();
+    private final Condition pending = commitLock.newCondition();
+    private final Condition durable = commitLock.newCondition();
+    private volatile long durableSeq;
+    private volatile boolean closed;
+    private final Thread groupCommitThread;
+
+    // Привязаны к потоку, а не к запросу. С виртуальными потоками у каждого запроса свой поток и буфер
+    // создаётся заново, но commit по-прежнему ждёт именно записи своего запроса
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(512));
+    private final ThreadLocal<long[]> threadLastSeq = ThreadLocal.withInitial(() -> new long[1]);
+
+    private WriteAheadLog(Path directory, long nextSeq, Durability durability, Duration groupCommitInterval,
+                          int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.durability = durability;
+        this.groupCommitNanos = groupCommitInterval.toNanos();
+        this.lastSeq = nextSeq - 1;
+        this.durableSeq = nextSeq - 1;
+        Files.createDirectories(directory);
+        segment = openSegment(nextSeq);
+        if (durability == Durability.GROUP) {
+            groupCommitThread = Thread.ofPlatform().daemon().name("wal-group-commit").start(this::runGroupCommit);
+        } else {
+            groupCommitThread = null;
+        }
+    }
+
+    // Новые записи всегда начинают новый сегмент: хвост прежнего сегмента мог остаться недописанным.
+    // Всё, что лежит в журнале начиная с nextSeq, удаляется до первой новой записи
+    public static WriteAheadLog open(Path directory, long nextSeq, Durability durability,
+                                     Duration groupCommitInterval, int segmentSize) throws IOException {
+        truncateFrom(directory, nextSeq);
+        return new WriteAheadLog(directory, nextSeq, durability, groupCommitInterval, segmentSize);
+    }
+
+    @Override
+    public void filmSaved(Film film) {
+        ByteBuffer record = startRecord(WalRecords.maxFilmSize(film));
+        WalRecords.writeFilm(record, film);
+        append(WalRecords.FILM_SAVED, record);
+    }
+
+    @Override
+    public void likeAdded(long filmId, long userId) {
+        appendEdge(WalRecords.LIKE_ADDED, filmId, userId);
+    }
+
+    @Override
+    public void likeDeleted(long filmId, long userId) {
+        appendEdge(WalRecords.LIKE_DELETED, filmId, userId);
+    }
+
+    @Override
+    public void userSaved(User user) {
+        ByteBuffer record = startRecord(WalRecords.maxUserSize(user));
+        WalRecords.writeUser(record, user);
+        append(WalRecords.USER_SAVED, record);
+    }
+
+    @Override
+    public void friendAdded(long id, long friendId) {
+        appendEdge(WalRecords.FRIEND_ADDED, id, friendId);
+    }
+
+    @Override
+    public void friendDeleted(long id, long friendId) {
+        appendEdge(WalRecords.FRIEND_DELETED, id, friendId);
+    }
+
+    @Override
+    public void commit() {
+        if (durability == Durability.NONE) {
+            return;
+        }
+        long seq = threadLastSeq.get()[0];
+        if (seq <= durableSeq) {
+            return;
+        }
+        if (durability == Durability.SYNC) {
+            flush(seq);
+        } else {
+            awaitGroupCommit(seq);
+        }
+    }
+
+    public long lastSeq() {
+        return lastSeq;
+    }
+
+    // Удаляет сегменты, все записи которых не новее seq, то есть уже вошли в снимок
+    public void deleteSegmentsUpTo(long seq) throws IOException {
+        List<Path> segments = listSegments(directory);
+        for (int i = 0; i + 1 < segments.size(); i++) {
+            if (startSeq(segments.get(i + 1)) > seq + 1) {
+                break;
+            }
+            Files.deleteIfExists(segments.get(i));
+        }
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        if (groupCommitThread != null) {
+            commitLock.lock();
+            try {
+                pending.signalAll();
+            } finally {
+                commitLock.unlock();
+            }
+            try {
+                groupCommitThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        flush(lastSeq);
+    }
+
+    // Читает журнал и передаёт в target записи с номерами больше afterSeq.
+    // Чтение останавливается на первой повреждённой или недописанной записи. Возвращает номер последней записи
+    public static long replay(Path directory, long afterSeq, MutationLog target) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return afterSeq;
+        }
+        long expected = -1;
+        for (Path path : listSegments(directory)) {
+            long start = startSeq(path);
+            if (expected == -1) {
+                if (start > afterSeq + 1) {
+                    throw new IllegalStateException("В журнале нет записей начиная с номера " + (afterSeq + 1));
+                }
+                expected = start;
+            } else if (start != expected) {
+                log.warn("Сегмент журнала {} начинается не с записи {}, дальнейшие сегменты пропущены", path, expected);
+                break;
+            }
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+            CRC32C crc = new CRC32C();
+            for (int offset = 0, end; (end = recordEnd(buffer, offset, expected, crc)) >= 0; offset = end) {
+                if (expected > afterSeq) {
+                    WalRecords.apply(buffer.get(offset + TYPE_OFFSET),
+                            buffer.slice(offset + HEADER_SIZE, end - offset - HEADER_SIZE), target);
+                }
+                expected++;
+            }
+        }
+        return Math.max(afterSeq, expected - 1);
+    }
+
+    // Сбрасывает на диск сам каталог: без этого созданный или переименованный файл может не пережить сбой
+    static void forceDirectory(Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    // Обрезает журнал перед записью nextSeq: сегмент, в котором восстановление остановилось, укорачивается
+    // до первой повреждённой записи, а сегменты после него удаляются. Иначе уцелевшие за разрывом старые
+    // записи при следующем восстановлении могли бы продолжить новые записи с теми же номерами
+    private static void truncateFrom(Path directory, long nextSeq) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        Path last = null;
+        boolean deleted = false;
+        for (Path path : listSegments(directory)) {
+            if (startSeq(path) >= nextSeq) {
+                Files.delete(path);
+                deleted = true;
+            } else {
+                last = path;
+            }
+        }
+        if (last != null) {
+            try (FileChannel channel = FileChannel.open(last, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                CRC32C crc = new CRC32C();
+                int offset = 0;
+                for (long seq = startSeq(last); seq < nextSeq; seq++) {
+                    int end = recordEnd(buffer, offset, seq, crc);
+                    if (end < 0) {
+                        break;
+                    }
+                    offset = end;
+                }
+                if (offset < channel.size()) {
+                    // Обычно за последней записью только нули незаполненного сегмента, иначе это след сбоя
+                    if (offset + Integer.BYTES <= buffer.limit() && buffer.getInt(offset) != 0) {
+                        log.warn("Сегмент журнала {} обрезан до {} байт перед записью {}", last, offset, nextSeq);
+                    }
+                    channel.truncate(offset);
+                    channel.force(true);
+                }
+            }
+        }
+        if (deleted) {
+            log.warn("Из журнала удалены сегменты начиная с записи {}", nextSeq);
+            forceDirectory(directory);
+        }
+    }
+
+    // Конец записи с номером seq, которая начинается с offset, или -1, если там она недописана или повреждена
+    private static int recordEnd(ByteBuffer buffer, int offset, long seq, CRC32C crc) {
+        if (offset + HEADER_SIZE > buffer.limit()) {
+            return -1;
+        }
+        int length = buffer.getInt(offset);
+        if (length < HEADER_SIZE - SEQ_OFFSET || (long) offset + SEQ_OFFSET + length > buffer.limit()) {
+            return -1;
+        }
+        crc.reset();
+        crc.update(buffer.slice(offset + TYPE_OFFSET, length - SEQ_OFFSET));
+        if ((int) crc.getValue() != buffer.getInt(offset + 4) || buffer.getLong(offset + SEQ_OFFSET) != seq) {
+            return -1;
+        }
+        return offset + SEQ_OFFSET + length;
+    }
+
+    private void appendEdge(byte type, long id, long otherId) {
+        ByteBuffer record = startRecord(WalRecords.EDGE_SIZE);
+        record.putLong(id).putLong(otherId);
+        append(type, record);
+    }
+
+    private ByteBuffer startRecord(int maxPayloadSize) {
+        ByteBuffer record = scratch.get();
+        if (record.capacity() < HEADER_SIZE + maxPayloadSize) {
+            record = ByteBuffer.allocate(HEADER_SIZE + maxPayloadSize);
+            scratch.set(record);
+        }
+        record.clear().position(HEADER_SIZE);
+        return record;
+    }
+
+    // Запись собирается и подписывается в буфере потока, под блокировкой журнала только получает номер и копируется
+    private void append(byte type, ByteBuffer record) {
+        int size = record.position();
+        if (size > segmentSize) {
+            throw new IllegalArgumentException("Запись размером " + size + " байт не помещается в сегмент журнала");
+        }
+        record.put(TYPE_OFFSET, type);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), TYPE_OFFSET, size - TYPE_OFFSET);
+        record.putInt(0, size - SEQ_OFFSET);
+        record.putInt(4, (int) crc.getValue());
+        long seq;
+        appendLock.lock();
+        try {
+            if (closed) {
+                throw new IllegalStateException("Журнал изменений закрыт");
+            }
+            seq = lastSeq + 1;
+            record.putLong(SEQ_OFFSET, seq);
+            if (writeOffset + size > segmentSize) {
+                rollSegment(seq);
+            }
+            segment.put(writeOffset, record.array(), 0, size);
+            writeOffset += size;
+            lastSeq = seq;
+        } finally {
+            appendLock.unlock();
+        }
+        threadLastSeq.get()[0] = seq;
+    }
+
+    private void rollSegment(long nextSeq) {
+        if (durability != Durability.NONE) {
+            unforcedSegments.add(segment);
+        }
+        try {
+            segment = openSegment(nextSeq);
+        } catch (IOException e) {
+            throw new IllegalStateException("Не удалось создать сегмент журнала", e);
+        }
+        writeOffset = 0;
+        forcedOffset = 0;
+    }
+
+    private MappedByteBuffer openSegment(long startSeq) throws IOException {
+        Path path = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, startSeq, SEGMENT_SUFFIX));
+        // Отображение остаётся действительным и после закрытия канала
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+        // Сброс записей сегмента бесполезен, если после сбоя в каталоге не окажется самого файла
+        if (durability != Durability.NONE) {
+            forceDirectory(directory);
+        }
+        return buffer;
+    }
+
+    // Сбрасывает на диск всё записанное к этому моменту. Если пока поток ждал очереди, его запись
+    // уже сбросил кто-то другой, повторного fsync не будет - так параллельные commit объединяются
+    private void flush(long seq) {
+        forceLock.lock();
+        try {
+            if (seq <= durableSeq) {
+                return;
+            }
+            List<MappedByteBuffer> rolled;
+            MappedByteBuffer current;
+            int from;
+            int to;
+            long target;
+            appendLock.lock();
+            try {
+                target = lastSeq;
+                rolled = new ArrayList<>(unforcedSegments);
+                unforcedSegments.clear();
+                current = segment;
+                from = forcedOffset;
+                to = writeOffset;
+                forcedOffset = to;
+            } finally {
+                appendLock.unlock();
+            }
+            for (MappedByteBuffer buffer : rolled) {
+                buffer.force();
+            }
+            if (to > from) {
+                current.force(from, to - from);
+            }
+            commitLock.lock();
+            try {
+                durableSeq = target;
+                durable.signalAll();
+            } finally {
+                commitLock.unlock();
+            }
+        } finally {
+            forceLock.unlock();
+        }
+    }
+
+    private void awaitGroupCommit(long seq) {
+        commitLock.lock();
+        try {
+            pending.signal();
+            while (durableSeq < seq) {
+                if (closed) {
+                    throw new IllegalStateException("Журнал изменений закрыт");
+                }
+                durable.await();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ожидание сохранения записи журнала прервано", e);
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    // Фоновый поток group commit: дождавшись первой несохранённой записи, выжидает интервал,
+    // чтобы к сбросу присоединились другие потоки, и сбрасывает всех одним fsync
+    private void runGroupCommit() {
+        while (!closed) {
+            commitLock.lock();
+            try {
+                while (!closed && lastSeq <= durableSeq) {
+                    pending.await();
+                }
+            } catch (InterruptedException e) {
+                return;
+            } finally {
+                commitLock.unlock();
+            }
+            if (groupCommitNanos > 0) {
+                LockSupport.parkNanos(groupCommitNanos);
+            }
+            flush(lastSeq);
+        }
+    }
+
+    private static List<Path> listSegments(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> {
+                        String name = path.getFileName().toString();
+                        return name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX);
+                    })
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    private static long startSeq(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,395 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongToIntFunction;
+
+// Инвертированный индекс по названию и описанию фильмов с ранжированием BM25.
+// Для каждого слова хранится список документов, где оно встречается, с частотой слова в документе. Списки
+// только дописываются, поэтому номера документов в них возрастают и пересекаются слиянием. Документ - версия
+// фильма: изменённый фильм получает новый номер, а старый помечается удалённым и пропускается. Когда удалённых
+// становится больше четверти, списки сжимаются за один проход. Слово из названия весит как NAME_WEIGHT слов
+// описания (упрощённый BM25F). Фильм находится, если в нём есть все слова запроса, последнее слово запроса
+// ищется и как префикс - для автодополнения и других форм слова. Изменения идут под блокировкой записи,
+// поиск - под блокировкой чтения
+public class FilmSearchIndex {
+
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    static final int NAME_WEIGHT = 3;
+    // Частота в списке хранится байтом
+    private static final int MAX_FREQUENCY = 255;
+    // Более короткий префикс не разворачивается: по одной букве подходит слишком большая часть словаря
+    static final int MIN_PREFIX_LENGTH = 2;
+    // Префикс разворачивается не больше чем в столько слов с самыми длинными списками
+    static final int MAX_PREFIX_TERMS = 64;
+    // Оценка фильма с лайками умножается на 1 + LIKE_BOOST * ln(1 + лайки)
+    private static final double LIKE_BOOST = 0.2;
+    private static final int MIN_DEAD_TO_COMPACT = 1024;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Слово -> его список. Хеш-таблица отвечает на точные совпадения, упорядоченный словарь с теми же
+    // списками - на поиск по префиксу: слова с общим началом идут в нём подряд
+    private final Map<String, Postings> terms = new HashMap<>();
+    private final NavigableMap<String, Postings> sortedTerms = new TreeMap<>();
+    // id фильма -> номер его текущего документа
+    private final Map<Long, Integer> filmDocs = new HashMap<>();
+    private long[] docFilmIds = new long[16];
+    // Длина документа в словах с учётом веса названия
+    private int[] docLengths = new int[16];
+    private final BitSet deadDocs = new BitSet();
+    private int docCount;
+    private int deadCount;
+    // Суммарная длина живых документов
+    private long totalLength;
+
+    // Добавляет фильм или заменяет его прошлую версию. Вызывается при каждом изменении названия или описания
+    public void index(Film film) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : Tokenizer.tokenize(film.getName())) {
+            frequencies.merge(token, NAME_WEIGHT, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(film.getDescription())) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int length = 0;
+        for (int frequency : frequencies.values()) {
+            length += frequency;
+        }
+        long filmId = film.getId();
+        lock.writeLock().lock();
+        try {
+            Integer previous = filmDocs.get(filmId);
+            if (previous != null) {
+                deadDocs.set(previous);
+                deadCount++;
+                totalLength -= docLengths[previous];
+            }
+            int doc = docCount++;
+            if (doc == docFilmIds.length) {
+                docFilmIds = Arrays.copyOf(docFilmIds, doc * 2);
+                docLengths = Arrays.copyOf(docLengths, doc * 2);
+            }
+            docFilmIds[doc] = filmId;
+            docLengths[doc] = length;
+            totalLength += length;
+            filmDocs.put(filmId, doc);
+            for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                Postings postings = terms.get(entry.getKey());
+                if (postings == null) {
+                    postings = new Postings();
+                    terms.put(entry.getKey(), postings);
+                    sortedTerms.put(entry.getKey(), postings);
+                }
+                postings.add(doc, Math.min(entry.getValue(), MAX_FREQUENCY));
+            }
+            if (deadCount >= MIN_DEAD_TO_COMPACT && deadCount * 4 > docCount) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docCount - deadCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int termCount() {
+        lock.readLock().lock();
+        try {
+            return terms.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, null);
+    }
+
+    // id не больше limit фильмов по убыванию оценки, при равенстве - по возрастанию id. likes - число лайков
+    // фильма для поднятия популярных или null. Она вызывается под блокировкой чтения индекса и не должна
+    // ждать блокировок, под которыми индекс изменяется
+    public List<Long> search(String query, int limit, LongToIntFunction likes) {
+        List<String> tokens = Tokenizer.tokenize(query);
+        if (tokens.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            int live = docCount - deadCount;
+            if (live == 0) {
+                return List.of();
+            }
+            List<Clause> clauses = new ArrayList<>(tokens.size());
+            for (int i = 0; i < tokens.size(); i++) {
+                String token = tokens.get(i);
+                List<Postings> matched = i == tokens.size() - 1 ? expand(token) : exact(token);
+                if (matched.isEmpty()) {
+                    return List.of();
+                }
+                clauses.add(new Clause(matched, live));
+            }
+            // Пересечение начинается с самого редкого слова, дальше проверяются только его документы
+            clauses.sort(Comparator.comparingLong(Clause::postingsCount));
+            float averageLength = (float) totalLength / live;
+            Candidates candidates = collect(clauses.get(0), averageLength);
+            for (int i = 1; i < clauses.size() && candidates.size > 0; i++) {
+                candidates.retain(clauses.get(i), averageLength);
+            }
+            return top(candidates, limit, likes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Postings> exact(String term) {
+        Postings postings = terms.get(term);
+        return postings == null ? List.of() : List.of(postings);
+    }
+
+    private List<Postings> expand(String prefix) {
+        if (prefix.length() < MIN_PREFIX_LENGTH) {
+            return exact(prefix);
+        }
+        List<Postings> matched = new ArrayList<>(
+                sortedTerms.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values());
+        if (matched.size() > MAX_PREFIX_TERMS) {
+            Postings exact = terms.get(prefix);
+            matched.sort(Comparator.comparingInt((Postings postings) -> postings.size).reversed());
+            matched = new ArrayList<>(matched.subList(0, MAX_PREFIX_TERMS));
+            if (exact != null && !matched.contains(exact)) {
+                matched.set(MAX_PREFIX_TERMS - 1, exact);
+            }
+        }
+        return matched;
+    }
+
+    // Живые документы первого слова с оценками. Списки нескольких слов одного префикса объединяются
+    // сортировкой пар (документ, оценка), упакованных в long
+    private Candidates collect(Clause clause, float averageLength) {
+        if (clause.postings.size() == 1) {
+            Postings postings = clause.postings.get(0);
+            Candidates candidates = new Candidates(postings.size);
+            for (int at = 0; at < postings.size; at++) {
+                int doc = postings.docs[at];
+                if (!deadDocs.get(doc)) {
+                    candidates.add(doc, score(clause.idf[0], postings.freqs[at] & 0xFF, doc, averageLength));
+                }
+            }
+            return candidates;
+        }
+        long[] packed = new long[(int) clause.postingsCount()];
+        int count = 0;
+        for (int term = 0; term < clause.postings.size(); term++) {
+            Postings postings = clause.postings.get(term);
+            for (int at = 0; at < postings.size; at++) {
+                int doc = postings.docs[at];
+                if (!deadDocs.get(doc)) {
+                    float score = score(clause.idf[term], postings.freqs[at] & 0xFF, doc, averageLength);
+                    packed[count++] = (long) doc << 32 | (Float.floatToRawIntBits(score) & 0xFFFFFFFFL);
+                }
+            }
+        }
+        Arrays.sort(packed, 0, count);
+        Candidates candidates = new Candidates(count);
+        for (int i = 0; i < count; i++) {
+            int doc = (int) (packed[i] >>> 32);
+            float score = Float.intBitsToFloat((int) packed[i]);
+            if (candidates.size > 0 && candidates.docs[candidates.size - 1] == doc) {
+                candidates.scores[candidates.size - 1] += score;
+            } else {
+                candidates.add(doc, score);
+            }
+        }
+        return candidates;
+    }
+
+    private float score(float idf, int frequency, int doc, float averageLength) {
+        float norm = K1 * (1 - B + B * docLengths[doc] / averageLength);
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    private List<Long> top(Candidates candidates, int limit, LongToIntFunction likes) {
+        PriorityQueue<Hit> heap = new PriorityQueue<>(Hit.ORDER.reversed());
+        for (int i = 0; i < candidates.size; i++) {
+            long filmId = docFilmIds[candidates.docs[i]];
+            double score = candidates.scores[i];
+            if (likes != null) {
+                score *= 1 + LIKE_BOOST * Math.log1p(likes.applyAsInt(filmId));
+            }
+            if (heap.size() < limit) {
+                heap.add(new Hit(filmId, score));
+                continue;
+            }
+            Hit worst = heap.peek();
+            if (score > worst.score() || score == worst.score() && filmId < worst.filmId()) {
+                heap.poll();
+                heap.add(new Hit(filmId, score));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort(Hit.ORDER);
+        List<Long> filmIds = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            filmIds.add(hit.filmId());
+        }
+        return filmIds;
+    }
+
+    // Выбрасывает удалённые документы из списков и перенумеровывает живые с сохранением порядка
+    private void compact() {
+        int[] remap = new int[docCount];
+        int live = 0;
+        for (int doc = 0; doc < docCount; doc++) {
+            if (deadDocs.get(doc)) {
+                remap[doc] = -1;
+            } else {
+                remap[doc] = live;
+                docFilmIds[live] = docFilmIds[doc];
+                docLengths[live] = docLengths[doc];
+                live++;
+            }
+        }
+        Iterator<Postings> iterator = sortedTerms.values().iterator();
+        while (iterator.hasNext()) {
+            Postings postings = iterator.next();
+            postings.remap(remap);
+            if (postings.size == 0) {
+                iterator.remove();
+            }
+        }
+        terms.values().removeIf(postings -> postings.size == 0);
+        for (int doc = 0; doc < live; doc++) {
+            filmDocs.put(docFilmIds[doc], doc);
+        }
+        docCount = live;
+        deadCount = 0;
+        deadDocs.clear();
+    }
+
+    // Документы слова по возрастанию номера и частоты слова в них
+    private static final class Postings {
+        private int[] docs = new int[2];
+        private byte[] freqs = new byte[2];
+        private int size;
+
+        void add(int doc, int frequency) {
+            if (size == docs.length) {
+                int capacity = size + (size >> 1) + 1;
+                docs = Arrays.copyOf(docs, capacity);
+                freqs = Arrays.copyOf(freqs, capacity);
+            }
+            docs[size] = doc;
+            freqs[size] = (byte) frequency;
+            size++;
+        }
+
+        // Позиция первого документа не меньше doc, начиная с from: шаги удваиваются, потом двоичный поиск
+        int seek(int doc, int from) {
+            int step = 1;
+            int high = from;
+            while (high < size && docs[high] < doc) {
+                from = high + 1;
+                high += step;
+                step <<= 1;
+            }
+            int found = Arrays.binarySearch(docs, from, Math.min(high, size), doc);
+            return found >= 0 ? found : -found - 1;
+        }
+
+        void remap(int[] remap) {
+            int kept = 0;
+            for (int at = 0; at < size; at++) {
+                int doc = remap[docs[at]];
+                if (doc >= 0) {
+                    docs[kept] = doc;
+                    freqs[kept] = freqs[at];
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    // Слово запроса: его списки (несколько - для префикса) и их idf. Число документов в idf считается
+    // вместе с удалёнными версиями до ближайшего сжатия
+    private static final class Clause {
+        private final List<Postings> postings;
+        private final float[] idf;
+
+        Clause(List<Postings> postings, int documents) {
+            this.postings = postings;
+            this.idf = new float[postings.size()];
+            for (int term = 0; term < idf.length; term++) {
+                int frequency = Math.min(postings.get(term).size, documents);
+                idf[term] = (float) Math.log(1 + (documents - frequency + 0.5) / (frequency + 0.5));
+            }
+        }
+
+        long postingsCount() {
+            long count = 0;
+            for (Postings list : postings) {
+                count += list.size;
+            }
+            return count;
+        }
+    }
+
+    private final class Candidates {
+        private final int[] docs;
+        private final float[] scores;
+        private int size;
+
+        Candidates(int capacity) {
+            docs = new int[capacity];
+            scores = new float[capacity];
+        }
+
+        void add(int doc, float score) {
+            docs[size] = doc;
+            scores[size] = score;
+            size++;
+        }
+
+        // Оставляет документы, в которых есть хотя бы одно слово clause, и добавляет его оценку
+        void retain(Clause clause, float averageLength) {
+            int[] cursors = new int[clause.postings.size()];
+            int kept = 0;
+            for (int i = 0; i < size; i++) {
+                int doc = docs[i];
+                float score = 0;
+                boolean found = false;
+                for (int term = 0; term < cursors.length; term++) {
+                    Postings postings = clause.postings.get(term);
+                    int at = postings.seek(doc, cursors[term]);
+                    cursors[term] = at;
+                    if (at < postings.size && postings.docs[at] == doc) {
+                        score += score(clause.idf[term], postings.freqs[at] & 0xFF, doc, averageLength);
+                        found = true;
+                    }
+                }
+                if (found) {
+                    docs[kept] = doc;
+                    scores[kept] = scores[i] + score;
+                    kept++;
+                }
+            }
+            size = kept;
+        }
+    }
+
+    private record Hit(long filmId, double score) {
+        static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingLong(Hit::filmId);
+    }
+}
@@ -0,0 +1,43 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Разбиение названий и описаний на слова для поиска. Слово - непрерывная последовательность букв и цифр
+// любого алфавита, всё остальное (пробелы, пунктуация, дефисы) - разделители. Слова приводятся к нижнему
+// регистру, "ё" заменяется на "е", чтобы "Ёлки" находились по "елки". Стемминга нет: разные формы слова
+// находятся поиском по префиксу последнего слова запроса
+public final class Tokenizer {
+
+    // Более длинные слова обрезаются, чтобы случайная строка без пробелов не раздувала словарь
+    static final int MAX_TOKEN_LENGTH = 32;
+
+    private Tokenizer() {
+    }
+
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        StringBuilder token = new StringBuilder();
+        int i = 0;
+        while (i < text.length()) {
+            int codePoint = text.codePointAt(i);
+            i += Character.charCount(codePoint);
+            if (Character.isLetterOrDigit(codePoint)) {
+                if (token.length() < MAX_TOKEN_LENGTH) {
+                    codePoint = Character.toLowerCase(codePoint);
+                    token.appendCodePoint(codePoint == 'ё' ? 'е' : codePoint);
+                }
+            } else if (!token.isEmpty()) {
+                tokens.add(token.toString());
+                token.setLength(0);
+            }
+        }
+        if (!token.isEmpty()) {
+            tokens.add(token.toString());
+        }
+        return tokens;
+    }
+}
@@ -1,130 +1,479 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StripedLocks;
+import ru.yandex.practicum.filmorate.storage.edge.IdCounter;
+import ru.yandex.practicum.filmorate.storage.edge.IdSet;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+import ru.yandex.practicum.filmorate.storage.persistence.MutationLog;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Component
+@Profile("!jdbc")
 public class InMemoryUserStorage implements UserStorage {
 
-    private final Map<Long, User> users = new HashMap<>();
+    private static final int LOCK_STRIPES = 256;
+
+    // Границы обхода в рекомендациях друзей: сколько друзей пользователя и сколько друзей каждого из них
+    // просматривается. У кого больше, тех берём выборкой через равные промежутки со случайным началом,
+    // поэтому запрос стоит не больше MAX_FIRST_HOP * MAX_SECOND_HOP шагов при любой степени
+    private static final int MAX_FIRST_HOP = 500;
+    private static final int MAX_SECOND_HOP = 500;
+    // Друзей первого шага, с которых обход делится между потоками ForkJoinPool, и размер одной части
+    private static final int PARALLEL_THRESHOLD = 128;
+    private static final int PARALLEL_CHUNK = 32;
+
+    // Пользователи упорядочены по id, чтобы страницы выдачи читались с курсора без копирования всей коллекции
+    private final ConcurrentNavigableMap<Long, User> users = new ConcurrentSkipListMap<>();
 
     //Long - id юзера, у которого есть друзья
-    // Set<Long> - сет id-шников его друзей
-    private final HashMap<Long, Set<Long>> userFriendsIds = new HashMap<>();
+    // IdSet - id-шники его друзей.
+    // Сет пользователя изменяется и читается только под блокировкой этого пользователя
+    private final Map<Long, IdSet> userFriendsIds = new ConcurrentHashMap<>();
+
+    // Уникальный индекс: нормализованный имейл -> id пользователя
+    private final Map<String, Long> emailIndex = new ConcurrentHashMap<>();
+
+    private final StripedLocks locks = new StripedLocks(LOCK_STRIPES);
+    private final AtomicLong counterId = new AtomicLong();
+    private final IdSetType idSetType;
+    private final boolean parallelSuggestions;
+    private volatile MutationLog mutationLog = MutationLog.NONE;
+
+    public InMemoryUserStorage() {
+        this(IdSetType.SORTED_ARRAY, false);
+    }
 
-    private long counterId = 0;
+    @Autowired
+    public InMemoryUserStorage(@Value("${filmorate.storage.edge-set:sorted-array}") IdSetType idSetType,
+                               @Value("${filmorate.suggestions.parallel:false}") boolean parallelSuggestions) {
+        this.idSetType = idSetType;
+        this.parallelSuggestions = parallelSuggestions;
+    }
 
     private long getNextId() {
-        return ++counterId;
+        return counterId.incrementAndGet();
+    }
+
+    public void setMutationLog(MutationLog mutationLog) {
+        this.mutationLog = mutationLog;
     }
 
     @Override
     public List<User> getUserList() {
-        log.info("Получен запрос на список всех пользователей");
+        log.debug("Получен запрос на список всех пользователей");
         return new ArrayList<>(users.values());
     }
 
+    @Override
+    public List<User> getUsersPage(long after, int limit) {
+        return users.tailMap(after, false).values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    // Обход без копирования коллекции: итератор ConcurrentSkipListMap слабо согласован
+    // и не мешает параллельным изменениям
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        users.values().forEach(action);
+    }
+
     @Override
     public User createUser(User user) {
-        log.info("Получен запрос на добавление пользователя: {}", user);
-        user.setId(getNextId());
-        users.put(user.getId(), user);
-        log.info("Добавление пользователя: {} - закончено, присвоен id: {}", user, user.getId());
+        log.debug("Получен запрос на добавление пользователя: {}", user);
+        long id = getNextId();
+        // Имейл резервируется атомарно, поэтому два параллельных запроса с одним имейлом
+        // не создадут двух пользователей, даже если оба прошли проверку existByEmail
+        if (emailIndex.putIfAbsent(normalizeEmail(user.getEmail()), id) != null) {
+            throw new DuplicatedDataException("Этот имейл уже используется");
+        }
+        user.setId(id);
+        locks.runLocked(id, () -> {
+            users.put(id, user);
+            mutationLog.userSaved(user);
+        });
+        mutationLog.commit();
+        log.info("Добавлен пользователь с id: {}", user.getId());
         return user;
     }
 
 
+    // id выделяются одним блоком на весь пакет, имейл каждого пользователя резервируется так же атомарно,
+    // как в createUser. Id пропущенных пользователей достаются следующим
+    @Override
+    public boolean[] createUsers(List<User> newUsers) {
+        log.info("Получен пакет из {} пользователей на добавление", newUsers.size());
+        boolean[] created = new boolean[newUsers.size()];
+        long firstId = counterId.getAndAdd(newUsers.size()) + 1;
+        long nextId = firstId;
+        for (int i = 0; i < newUsers.size(); i++) {
+            User user = newUsers.get(i);
+            long id = nextId;
+            if (emailIndex.putIfAbsent(normalizeEmail(user.getEmail()), id) != null) {
+                continue;
+            }
+            nextId++;
+            user.setId(id);
+            locks.runLocked(id, () -> {
+                users.put(id, user);
+                mutationLog.userSaved(user);
+            });
+            created[i] = true;
+        }
+        mutationLog.commit();
+        log.info("Пакет пользователей обработан, добавлено: {}", nextId - firstId);
+        return created;
+    }
+
+
     @Override
     public User updateUser(User newUser) {
-        log.info("Получен запрос на обновление данных пользователя c id: {}", newUser.getId());
-        User oldUser = users.get(newUser.getId());
-        oldUser.setEmail(newUser.getEmail());
-        oldUser.setLogin(newUser.getLogin());
-        if (newUser.getName() == null || newUser.getName().isBlank()) {
-            oldUser.setName(oldUser.getLogin());
-        } else {
-            oldUser.setName(newUser.getName());
-        }
-        oldUser.setBirthday(newUser.getBirthday());
-        log.info("Обновление данных пользователя: {} - закончено", oldUser);
+        log.debug("Получен запрос на обновление данных пользователя c id: {}", newUser.getId());
+        long id = newUser.getId();
+        User oldUser = locks.callLocked(id, () -> {
+            User user = users.get(id);
+            String oldEmail = normalizeEmail(user.getEmail());
+            String newEmail = normalizeEmail(newUser.getEmail());
+            if (!oldEmail.equals(newEmail)) {
+                Long ownerId = emailIndex.putIfAbsent(newEmail, id);
+                if (ownerId != null && ownerId != id) {
+                    throw new DuplicatedDataException("Этот имейл уже используется");
+                }
+                emailIndex.remove(oldEmail, id);
+            }
+            user.setEmail(newUser.getEmail());
+            user.setLogin(newUser.getLogin());
+            if (newUser.getName() == null || newUser.getName().isBlank()) {
+                user.setName(user.getLogin());
+            } else {
+                user.setName(newUser.getName());
+            }
+            user.setBirthday(newUser.getBirthday());
+            mutationLog.userSaved(user);
+            return user;
+        });
+        mutationLog.commit();
+        log.info("Обновлены данные пользователя с id: {}", oldUser.getId());
         return oldUser;
     }
 
 
     @Override
     public void addFriend(long id, long friendId) {
-        log.info("Получен запрос на добавление в друзья пользователей c id: {} и {}", id, friendId);
+        log.debug("Получен запрос на добавление в друзья пользователей c id: {} и {}", id, friendId);
 
-        Set<Long> usFriendsIds = userFriendsIds.computeIfAbsent(id, userId -> new HashSet<>());
-        if (usFriendsIds.contains(friendId)) {
-            log.warn("Пользователь с id = {} уже добавил в друзья пользователя с id = {}", id, friendId);
+        // Обе стороны дружбы меняются под блокировками обоих пользователей,
+        // чтобы никто не увидел и не оставил несимметричную связь
+        boolean added = locks.callLocked(id, friendId, () -> {
+            if (!insertFriendship(id, friendId)) {
+                return false;
+            }
+            mutationLog.friendAdded(id, friendId);
+            return true;
+        });
+        if (!added) {
+            log.debug("Пользователь с id = {} уже добавил в друзья пользователя с id = {}", id, friendId);
             return;
         }
-        usFriendsIds.add(friendId);
-        Set<Long> frFriendsIds = userFriendsIds.computeIfAbsent(friendId, frId -> new HashSet<>());
-        frFriendsIds.add(id);
-        log.info("Пользователи c id: {} и {} добавлены друг к другу в друзья", id, friendId);
+        mutationLog.commit();
+        log.debug("Пользователи c id: {} и {} добавлены друг к другу в друзья", id, friendId);
     }
 
 
     @Override
     public void deleteFriend(long id, long friendId) {
-        log.info("Получен запрос на удаление из друзей пользователей c id: {} и {}", id, friendId);
-        Set<Long> usFriendsIds = userFriendsIds.computeIfAbsent(id, userId -> new HashSet<>());
-        usFriendsIds.remove(friendId);
-        Set<Long> frFriendsIds = userFriendsIds.computeIfAbsent(friendId, frId -> new HashSet<>());
-        frFriendsIds.remove(id);
-        log.info("Пользователи c id: {} и {} удалены из друзей", id, friendId);
+        log.debug("Получен запрос на удаление из друзей пользователей c id: {} и {}", id, friendId);
+        locks.runLocked(id, friendId, () -> {
+            removeFriendship(id, friendId);
+            mutationLog.friendDeleted(id, friendId);
+        });
+        mutationLog.commit();
+        log.debug("Пользователи c id: {} и {} удалены из друзей", id, friendId);
     }
 
 
     @Override
     public List<User> getFriendsList(long id) {
-        log.info("Получен запрос на список друзей пользователя c id: {}", id);
-        List<User> friendsList = new ArrayList<>();
-        Set<Long> usFriendsIds = userFriendsIds.get(id);
-        if (!(usFriendsIds == null)) {
-            for (Long friendsId : usFriendsIds) {
-                friendsList.add(users.get(friendsId));
-            }
+        log.debug("Получен запрос на список друзей пользователя c id: {}", id);
+        long[] friendsIds = locks.callLocked(id, () -> {
+            IdSet usFriendsIds = userFriendsIds.get(id);
+            return usFriendsIds == null ? new long[0] : usFriendsIds.toArray();
+        });
+        List<User> friendsList = new ArrayList<>(friendsIds.length);
+        for (long friendsId : friendsIds) {
+            friendsList.add(users.get(friendsId));
         }
-        log.info("Список друзей пользователя c id: {} готов к отправке", id);
+        log.debug("Список друзей пользователя c id: {} готов к отправке", id);
         return friendsList;
     }
 
 
     @Override
     public List<User> getCommonFriendsList(long id, long otherId) {
-        log.info("Получен запрос на список общих друзей пользователей c id: {} и {}", id, otherId);
+        log.debug("Получен запрос на список общих друзей пользователей c id: {} и {}", id, otherId);
 
-        Set<Long> usFriendsIds = userFriendsIds.get(id);
-        Set<Long> otFriendsIds = userFriendsIds.get(otherId);
         List<User> commonFriendsList = new ArrayList<>();
-
-        if (usFriendsIds != null && otFriendsIds != null) {
-            Set<Long> commonFriendsIds = new HashSet<>(usFriendsIds);
-            commonFriendsIds.retainAll(otFriendsIds);
-            for (Long friendsId : commonFriendsIds) {
-                commonFriendsList.add(users.get(friendsId));
+        locks.runLocked(id, otherId, () -> {
+            IdSet usFriendsIds = userFriendsIds.get(id);
+            IdSet otFriendsIds = userFriendsIds.get(otherId);
+            if (usFriendsIds == null || otFriendsIds == null) {
+                return;
             }
-        }
-        log.info("Список общих друзей пользователей c id: {} и {} готов к отправке", id, otherId);
+            usFriendsIds.forEachCommon(otFriendsIds, friendsId -> commonFriendsList.add(users.get(friendsId)));
+        });
+        log.debug("Список общих друзей пользователей c id: {} и {} готов к отправке", id, otherId);
         return commonFriendsList;
     }
 
+    // Два шага по графу: друзья друзей пользователя считаются в IdCounter, из них выбираются лучшие, кроме
+    // самого пользователя и его друзей. Набор соседей каждой вершины читается под её блокировкой.
+    // Если хоть один шаг обошёл только выборку друзей, счёт общих друзей помечается приблизительным
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long id, int limit) {
+        log.debug("Получен запрос на рекомендации друзей для пользователя c id: {}", id);
+        long[] friendsIds = locks.callLocked(id, () -> {
+            IdSet usFriendsIds = userFriendsIds.get(id);
+            return usFriendsIds == null ? new long[0] : usFriendsIds.toArray();
+        });
+        Arrays.sort(friendsIds);
+        long[] firstHop = sample(friendsIds, MAX_FIRST_HOP);
+        AtomicBoolean sampled = new AtomicBoolean(firstHop.length < friendsIds.length);
+        IdCounter mutual = parallelSuggestions && firstHop.length >= PARALLEL_THRESHOLD
+                ? ForkJoinPool.commonPool().invoke(new SecondHopTask(firstHop, 0, firstHop.length, sampled))
+                : countSecondHop(firstHop, 0, firstHop.length, sampled);
+        long[] best = mutual.top(limit, candidate -> candidate == id
+                || Arrays.binarySearch(friendsIds, candidate) >= 0);
+        List<FriendSuggestion> suggestions = new ArrayList<>(best.length);
+        for (long candidate : best) {
+            suggestions.add(new FriendSuggestion(users.get(candidate), mutual.get(candidate), sampled.get()));
+        }
+        return suggestions;
+    }
+
     @Override
     public boolean containsUserById(long id) {
         return users.containsKey(id);
     }
 
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        for (Long id : ids) {
+            if (users.containsKey(id)) {
+                existing.add(id);
+            }
+        }
+        return existing;
+    }
+
     @Override
     public boolean existByEmail(String email) {
-        return users.values().stream()
-                .anyMatch(user -> user.getEmail().equals(email));
+        return emailIndex.containsKey(normalizeEmail(email));
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        return Optional.ofNullable(emailIndex.get(normalizeEmail(email)));
+    }
+
+    @Override
+    public long countUsers() {
+        return users.size();
+    }
+
+    @Override
+    public long countFriendships() {
+        long links = 0;
+        for (long id : userFriendsIds.keySet()) {
+            links += getFriendsCount(id);
+        }
+        return links / 2;
+    }
+
+    @Override
+    public int maxFriendsPerUser() {
+        int max = 0;
+        for (long id : userFriendsIds.keySet()) {
+            max = Math.max(max, getFriendsCount(id));
+        }
+        return max;
+    }
+
+    // Восстановление из снимка и журнала: пользователь записывается с готовым id, без проверок и без записи в журнал.
+    // Повторное применение того же состояния ничего не меняет
+    public void restoreUser(User user) {
+        long id = user.getId();
+        counterId.accumulateAndGet(id, Math::max);
+        locks.runLocked(id, () -> {
+            User current = users.get(id);
+            if (current == null) {
+                users.put(id, user);
+            } else {
+                emailIndex.remove(normalizeEmail(current.getEmail()), id);
+                current.setEmail(user.getEmail());
+                current.setLogin(user.getLogin());
+                current.setName(user.getName());
+                current.setBirthday(user.getBirthday());
+            }
+            emailIndex.put(normalizeEmail(user.getEmail()), id);
+        });
+    }
+
+    public void restoreFriendship(long id, long friendId, boolean friends) {
+        locks.runLocked(id, friendId, () -> {
+            if (friends) {
+                insertFriendship(id, friendId);
+            } else {
+                removeFriendship(id, friendId);
+            }
+        });
+    }
+
+    // Обход для снимка: пользователь и его друзья копируются под блокировкой пользователя,
+    // action вызывается уже без неё
+    public void forEachUserWithFriends(BiConsumer<User, long[]> action) {
+        for (long id : users.keySet()) {
+            User[] user = new User[1];
+            long[] friendsIds = locks.callLocked(id, () -> {
+                user[0] = copyOf(users.get(id));
+                IdSet usFriendsIds = userFriendsIds.get(id);
+                return usFriendsIds == null ? new long[0] : usFriendsIds.toArray();
+            });
+            action.accept(user[0], friendsIds);
+        }
+    }
+
+    private IdCounter countSecondHop(long[] firstHop, int from, int to, AtomicBoolean sampled) {
+        IdCounter mutual = new IdCounter((to - from) * 16);
+        for (int i = from; i < to; i++) {
+            long friendId = firstHop[i];
+            locks.runLocked(friendId, () -> {
+                IdSet frFriendsIds = userFriendsIds.get(friendId);
+                if (frFriendsIds != null) {
+                    int size = frFriendsIds.size();
+                    int offset = 0;
+                    if (size > MAX_SECOND_HOP) {
+                        offset = ThreadLocalRandom.current().nextInt(size / MAX_SECOND_HOP);
+                        sampled.set(true);
+                    }
+                    frFriendsIds.forEachSample(MAX_SECOND_HOP, offset, mutual::increment);
+                }
+            });
+        }
+        return mutual;
+    }
+
+    private static long[] sample(long[] ids, int limit) {
+        if (ids.length <= limit) {
+            return ids;
+        }
+        int offset = ThreadLocalRandom.current().nextInt(ids.length / limit);
+        long[] sample = new long[limit];
+        for (int i = 0; i < limit; i++) {
+            sample[i] = ids[offset + (int) ((long) i * ids.length / limit)];
+        }
+        return sample;
+    }
+
+    // Друзья первого шага делятся пополам, пока части не станут меньше PARALLEL_CHUNK;
+    // у каждой части свой счётчик, счётчики складываются при возврате
+    private final class SecondHopTask extends RecursiveTask<IdCounter> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long[] firstHop;
+        private final int from;
+        private final int to;
+        private final AtomicBoolean sampled;
+
+        private SecondHopTask(long[] firstHop, int from, int to, AtomicBoolean sampled) {
+            this.firstHop = firstHop;
+            this.from = from;
+            this.to = to;
+            this.sampled = sampled;
+        }
+
+        @Override
+        protected IdCounter compute() {
+            if (to - from <= PARALLEL_CHUNK) {
+                return countSecondHop(firstHop, from, to, sampled);
+            }
+            int middle = (from + to) >>> 1;
+            SecondHopTask right = new SecondHopTask(firstHop, middle, to, sampled);
+            right.fork();
+            IdCounter left = new SecondHopTask(firstHop, from, middle, sampled).compute();
+            IdCounter rightCounts = right.join();
+            if (left.size() < rightCounts.size()) {
+                rightCounts.addAll(left);
+                return rightCounts;
+            }
+            left.addAll(rightCounts);
+            return left;
+        }
+    }
+
+    private int getFriendsCount(long id) {
+        return locks.callLocked(id, () -> {
+            IdSet usFriendsIds = userFriendsIds.get(id);
+            return usFriendsIds == null ? 0 : usFriendsIds.size();
+        });
+    }
+
+    private boolean insertFriendship(long id, long friendId) {
+        IdSet usFriendsIds = userFriendsIds.computeIfAbsent(id, userId -> idSetType.create());
+        if (!usFriendsIds.add(friendId)) {
+            return false;
+        }
+        IdSet frFriendsIds = userFriendsIds.computeIfAbsent(friendId, frId -> idSetType.create());
+        frFriendsIds.add(id);
+        return true;
+    }
+
+    private void removeFriendship(long id, long friendId) {
+        IdSet usFriendsIds = userFriendsIds.get(id);
+        if (usFriendsIds != null) {
+            usFriendsIds.remove(friendId);
+        }
+        IdSet frFriendsIds = userFriendsIds.get(friendId);
+        if (frFriendsIds != null) {
+            frFriendsIds.remove(id);
+        }
+    }
+
+    private static User copyOf(User user) {
+        User copy = new User();
+        copy.setId(user.getId());
+        copy.setEmail(user.getEmail());
+        copy.setLogin(user.getLogin());
+        copy.setName(user.getName());
+        copy.setBirthday(user.getBirthday());
+        return copy;
+    }
+
+    // Имейлы сравниваются без учёта регистра и пробелов по краям
+    private static String normalizeEmail(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
     }
 
 }
@@ -0,0 +1,259 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.simple.SimpleJdbcInsert;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.*;
+import java.util.function.Consumer;
+
+@Slf4j
+@Component
+@Profile("jdbc")
+public class JdbcUserStorage implements UserStorage {
+
+    private static final String USER_COLUMNS = "u.id, u.email, u.login, u.name, u.birthday";
+    private static final RowMapper<User> USER_MAPPER = (rs, rowNum) -> mapUser(rs);
+    // Сколько строк драйвер подтягивает за раз при потоковом обходе всех пользователей
+    private static final int STREAM_FETCH_SIZE = 1000;
+    // Сколько id проверяется одним запросом в findExistingIds
+    private static final int ID_CHUNK_SIZE = 1000;
+
+    // Вставка, которая пропускает пользователя с занятым имейлом, а не падает на уникальном индексе
+    private static final String INSERT_USER_IF_ABSENT = "INSERT INTO users (email, login, name, birthday) " +
+            "SELECT ?, ?, ?, ? WHERE NOT EXISTS (SELECT 1 FROM users WHERE email_normalized = LOWER(TRIM(?)))";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SimpleJdbcInsert userInsert;
+
+    public JdbcUserStorage(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.userInsert = new SimpleJdbcInsert(jdbcTemplate)
+                .withTableName("users")
+                .usingColumns("email", "login", "name", "birthday")
+                .usingGeneratedKeyColumns("id");
+    }
+
+    @Override
+    public List<User> getUserList() {
+        log.debug("Получен запрос на список всех пользователей");
+        return jdbcTemplate.query("SELECT " + USER_COLUMNS + " FROM users u ORDER BY u.id", USER_MAPPER);
+    }
+
+    @Override
+    public List<User> getUsersPage(long after, int limit) {
+        return jdbcTemplate.query("SELECT " + USER_COLUMNS + " FROM users u WHERE u.id > ? ORDER BY u.id LIMIT ?",
+                USER_MAPPER, after, limit);
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(
+                    "SELECT " + USER_COLUMNS + " FROM users u ORDER BY u.id");
+            statement.setFetchSize(STREAM_FETCH_SIZE);
+            return statement;
+        }, (RowCallbackHandler) rs -> action.accept(mapUser(rs)));
+    }
+
+    @Override
+    public User createUser(User user) {
+        log.debug("Получен запрос на добавление пользователя: {}", user);
+        try {
+            Number id = userInsert.executeAndReturnKey(new MapSqlParameterSource()
+                    .addValue("email", user.getEmail())
+                    .addValue("login", user.getLogin())
+                    .addValue("name", user.getName())
+                    .addValue("birthday", Date.valueOf(user.getBirthday())));
+            user.setId(id.longValue());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Этот имейл уже используется");
+        }
+        log.info("Добавлен пользователь с id: {}", user.getId());
+        return user;
+    }
+
+    // Один пакетный запрос на весь список, id вставленных строк приходят в порядке вставки.
+    // Гонку с параллельной регистрацией того же имейла ловит уникальный индекс, пакет откатывается целиком
+    @Override
+    @Transactional
+    public boolean[] createUsers(List<User> users) {
+        log.info("Получен пакет из {} пользователей на добавление", users.size());
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int[] counts;
+        try {
+            counts = jdbcTemplate.batchUpdate(
+                    connection -> connection.prepareStatement(INSERT_USER_IF_ABSENT, new String[]{"id"}),
+                    new BatchPreparedStatementSetter() {
+                        @Override
+                        public void setValues(PreparedStatement ps, int i) throws SQLException {
+                            User user = users.get(i);
+                            ps.setString(1, user.getEmail());
+                            ps.setString(2, user.getLogin());
+                            ps.setString(3, user.getName());
+                            ps.setDate(4, Date.valueOf(user.getBirthday()));
+                            ps.setString(5, user.getEmail());
+                        }
+
+                        @Override
+                        public int getBatchSize() {
+                            return users.size();
+                        }
+                    }, keyHolder);
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Этот имейл уже используется");
+        }
+        boolean[] created = new boolean[users.size()];
+        Iterator<Map<String, Object>> keys = keyHolder.getKeyList().iterator();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                created[i] = true;
+                users.get(i).setId(((Number) keys.next().values().iterator().next()).longValue());
+            }
+        }
+        log.info("Пакет пользователей обработан, добавлено: {}", keyHolder.getKeyList().size());
+        return created;
+    }
+
+    @Override
+    public User updateUser(User newUser) {
+        log.debug("Получен запрос на обновление данных пользователя c id: {}", newUser.getId());
+        String name = newUser.getName() == null || newUser.getName().isBlank() ? newUser.getLogin() : newUser.getName();
+        try {
+            jdbcTemplate.update("UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?",
+                    newUser.getEmail(), newUser.getLogin(), name, Date.valueOf(newUser.getBirthday()),
+                    newUser.getId());
+        } catch (DuplicateKeyException e) {
+            throw new DuplicatedDataException("Этот имейл уже используется");
+        }
+        User user = jdbcTemplate.queryForObject("SELECT " + USER_COLUMNS + " FROM users u WHERE u.id = ?",
+                USER_MAPPER, newUser.getId());
+        log.info("Обновлены данные пользователя с id: {}", user.getId());
+        return user;
+    }
+
+    // Обе строки дружбы вставляются одним пакетом в одной транзакции. MERGE по первичному ключу не падает
+    // на уже существующей строке: ни при повторном или встречном параллельном запросе, ни при дружбе с собой,
+    // где обе строки пакета совпадают
+    @Override
+    @Transactional
+    public void addFriend(long id, long friendId) {
+        log.debug("Получен запрос на добавление в друзья пользователей c id: {} и {}", id, friendId);
+        jdbcTemplate.batchUpdate("MERGE INTO friendships (user_id, friend_id) KEY (user_id, friend_id) VALUES (?, ?)",
+                List.of(new Object[]{id, friendId}, new Object[]{friendId, id}));
+        log.debug("Пользователи c id: {} и {} добавлены друг к другу в друзья", id, friendId);
+    }
+
+    @Override
+    @Transactional
+    public void deleteFriend(long id, long friendId) {
+        log.debug("Получен запрос на удаление из друзей пользователей c id: {} и {}", id, friendId);
+        jdbcTemplate.batchUpdate("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?",
+                List.of(new Object[]{id, friendId}, new Object[]{friendId, id}));
+        log.debug("Пользователи c id: {} и {} удалены из друзей", id, friendId);
+    }
+
+    @Override
+    public List<User> getFriendsList(long id) {
+        log.debug("Получен запрос на список друзей пользователя c id: {}", id);
+        return jdbcTemplate.query("SELECT " + USER_COLUMNS + " FROM friendships f " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "WHERE f.user_id = ? ORDER BY u.id", USER_MAPPER, id);
+    }
+
+    @Override
+    public List<User> getCommonFriendsList(long id, long otherId) {
+        log.debug("Получен запрос на список общих друзей пользователей c id: {} и {}", id, otherId);
+        return jdbcTemplate.query("SELECT " + USER_COLUMNS + " FROM friendships f " +
+                "JOIN friendships o ON o.friend_id = f.friend_id AND o.user_id = ? " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "WHERE f.user_id = ? ORDER BY u.id", USER_MAPPER, otherId, id);
+    }
+
+    // Друзья друзей считаются одним запросом по индексу friendships; сам пользователь и его друзья
+    // отсекаются в WHERE, до группировки
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long id, int limit) {
+        log.debug("Получен запрос на рекомендации друзей для пользователя c id: {}", id);
+        return jdbcTemplate.query("SELECT " + USER_COLUMNS + ", COUNT(*) AS mutual FROM friendships f " +
+                        "JOIN friendships s ON s.user_id = f.friend_id " +
+                        "JOIN users u ON u.id = s.friend_id " +
+                        "WHERE f.user_id = ? AND s.friend_id <> ? " +
+                        "AND NOT EXISTS (SELECT 1 FROM friendships e WHERE e.user_id = ? AND e.friend_id = s.friend_id) " +
+                        "GROUP BY " + USER_COLUMNS + " ORDER BY mutual DESC, u.id LIMIT ?",
+                (rs, rowNum) -> new FriendSuggestion(mapUser(rs), rs.getInt("mutual"), false), id, id, id, limit);
+    }
+
+    @Override
+    public boolean existByEmail(String email) {
+        return findIdByEmail(email).isPresent();
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE email_normalized = LOWER(TRIM(?))",
+                Long.class, email).stream().findFirst();
+    }
+
+    @Override
+    public boolean containsUserById(long id) {
+        return Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                "SELECT EXISTS (SELECT 1 FROM users WHERE id = ?)", Boolean.class, id));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        Set<Long> existing = new HashSet<>();
+        List<Long> idList = List.copyOf(ids);
+        for (int from = 0; from < idList.size(); from += ID_CHUNK_SIZE) {
+            Long[] chunk = idList.subList(from, Math.min(idList.size(), from + ID_CHUNK_SIZE)).toArray(Long[]::new);
+            existing.addAll(jdbcTemplate.queryForList("SELECT id FROM users WHERE id = ANY(?)", Long.class,
+                    (Object) chunk));
+        }
+        return existing;
+    }
+
+    @Override
+    public long countUsers() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM users", Long.class);
+    }
+
+    // Каждая дружба хранится двумя строками
+    @Override
+    public long countFriendships() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM friendships", Long.class) / 2;
+    }
+
+    @Override
+    public int maxFriendsPerUser() {
+        return jdbcTemplate.queryForObject("SELECT COALESCE(MAX(c), 0) FROM " +
+                "(SELECT COUNT(*) AS c FROM friendships GROUP BY user_id)", Integer.class);
+    }
+
+    private static User mapUser(ResultSet rs) throws SQLException {
+        User user = new User();
+        user.setId(rs.getLong("id"));
+        user.setEmail(rs.getString("email"));
+        user.setLogin(rs.getString("login"));
+        user.setName(rs.getString("name"));
+        user.setBirthday(rs.getDate("birthday").toLocalDate());
+        return user;
+    }
+}
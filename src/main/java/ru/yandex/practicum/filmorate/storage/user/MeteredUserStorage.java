@@ -0,0 +1,155 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.StorageMetrics;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
+
+// Декоратор хранилища пользователей, устроен так же, как MeteredFilmStorage
+public class MeteredUserStorage implements UserStorage {
+
+    private final UserStorage delegate;
+
+    private final Timer getUserList;
+    private final Timer getUsersPage;
+    private final Timer forEachUser;
+    private final Timer createUser;
+    private final Timer createUsers;
+    private final Timer updateUser;
+    private final Timer addFriend;
+    private final Timer deleteFriend;
+    private final Timer getFriendsList;
+    private final Timer getCommonFriendsList;
+    private final Timer getFriendSuggestions;
+    private final Timer existByEmail;
+    private final Timer findIdByEmail;
+    private final Timer containsUserById;
+    private final Timer findExistingIds;
+
+    public MeteredUserStorage(UserStorage delegate, MeterRegistry registry) {
+        this.delegate = delegate;
+        getUserList = StorageMetrics.timer(registry, "user", "getUserList");
+        getUsersPage = StorageMetrics.timer(registry, "user", "getUsersPage");
+        forEachUser = StorageMetrics.timer(registry, "user", "forEachUser");
+        createUser = StorageMetrics.timer(registry, "user", "createUser");
+        createUsers = StorageMetrics.timer(registry, "user", "createUsers");
+        updateUser = StorageMetrics.timer(registry, "user", "updateUser");
+        addFriend = StorageMetrics.timer(registry, "user", "addFriend");
+        deleteFriend = StorageMetrics.timer(registry, "user", "deleteFriend");
+        getFriendsList = StorageMetrics.timer(registry, "user", "getFriendsList");
+        getCommonFriendsList = StorageMetrics.timer(registry, "user", "getCommonFriendsList");
+        getFriendSuggestions = StorageMetrics.timer(registry, "user", "getFriendSuggestions");
+        existByEmail = StorageMetrics.timer(registry, "user", "existByEmail");
+        findIdByEmail = StorageMetrics.timer(registry, "user", "findIdByEmail");
+        containsUserById = StorageMetrics.timer(registry, "user", "containsUserById");
+        findExistingIds = StorageMetrics.timer(registry, "user", "findExistingIds");
+        Gauge.builder("filmorate.storage.users", delegate, UserStorage::countUsers)
+                .description("Количество пользователей")
+                .register(registry);
+        Gauge.builder("filmorate.storage.friendships", delegate, UserStorage::countFriendships)
+                .description("Количество пар друзей")
+                .register(registry);
+        Gauge.builder("filmorate.storage.adjacency.max", delegate, UserStorage::maxFriendsPerUser)
+                .description("Размер самого большого множества связей")
+                .tag("relation", "friends")
+                .register(registry);
+    }
+
+    @Override
+    public List<User> getUserList() {
+        return getUserList.record(delegate::getUserList);
+    }
+
+    @Override
+    public List<User> getUsersPage(long after, int limit) {
+        return getUsersPage.record(() -> delegate.getUsersPage(after, limit));
+    }
+
+    @Override
+    public void forEachUser(Consumer<User> action) {
+        forEachUser.record(() -> delegate.forEachUser(action));
+    }
+
+    @Override
+    public User createUser(User user) {
+        return createUser.record(() -> delegate.createUser(user));
+    }
+
+    @Override
+    public boolean[] createUsers(List<User> users) {
+        return createUsers.record(() -> delegate.createUsers(users));
+    }
+
+    @Override
+    public User updateUser(User newUser) {
+        return updateUser.record(() -> delegate.updateUser(newUser));
+    }
+
+    @Override
+    public void addFriend(long id, long friendId) {
+        addFriend.record(() -> delegate.addFriend(id, friendId));
+    }
+
+    @Override
+    public void deleteFriend(long id, long friendId) {
+        deleteFriend.record(() -> delegate.deleteFriend(id, friendId));
+    }
+
+    @Override
+    public List<User> getFriendsList(long id) {
+        return getFriendsList.record(() -> delegate.getFriendsList(id));
+    }
+
+    @Override
+    public List<User> getCommonFriendsList(long id, long otherId) {
+        return getCommonFriendsList.record(() -> delegate.getCommonFriendsList(id, otherId));
+    }
+
+    @Override
+    public List<FriendSuggestion> getFriendSuggestions(long id, int limit) {
+        return getFriendSuggestions.record(() -> delegate.getFriendSuggestions(id, limit));
+    }
+
+    @Override
+    public boolean existByEmail(String email) {
+        return existByEmail.record(() -> delegate.existByEmail(email));
+    }
+
+    @Override
+    public Optional<Long> findIdByEmail(String email) {
+        return findIdByEmail.record(() -> delegate.findIdByEmail(email));
+    }
+
+    @Override
+    public boolean containsUserById(long id) {
+        return containsUserById.record(() -> delegate.containsUserById(id));
+    }
+
+    @Override
+    public Set<Long> findExistingIds(Collection<Long> ids) {
+        return findExistingIds.record(() -> delegate.findExistingIds(ids));
+    }
+
+    @Override
+    public long countUsers() {
+        return delegate.countUsers();
+    }
+
+    @Override
+    public long countFriendships() {
+        return delegate.countFriendships();
+    }
+
+    @Override
+    public int maxFriendsPerUser() {
+        return delegate.maxFriendsPerUser();
+    }
+}
@@ -1,15 +1,28 @@
 package ru.yandex.practicum.filmorate.storage.user;
 
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Consumer;
 
 public interface UserStorage {
 
     List<User> getUserList();
 
+    List<User> getUsersPage(long after, int limit);
+
+    void forEachUser(Consumer<User> action);
+
     User createUser(User user);
 
+    // Добавляет пользователей пакетом и возвращает для каждого, добавлен ли он. Пользователь с уже занятым
+    // имейлом (в том числе пользователем раньше в этом же пакете) пропускается
+    boolean[] createUsers(List<User> users);
+
     User updateUser(User newUser);
 
     void addFriend(long id, long friendId);
@@ -20,7 +33,24 @@ public interface UserStorage {
 
     List<User> getCommonFriendsList(long id, long otherId);
 
+    // Не больше limit пользователей, которые не друзья с id, по убыванию числа общих друзей, при равенстве -
+    // по возрастанию id. Для пользователей с очень большим числом друзей реализация может считать
+    // общих друзей по выборке, тогда счёт - оценка снизу
+    List<FriendSuggestion> getFriendSuggestions(long id, int limit);
+
     boolean existByEmail(String email);
 
+    Optional<Long> findIdByEmail(String email);
+
     boolean containsUserById(long id);
+
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    // Размеры хранилища для метрик. Считаются при каждом вызове, поэтому вызываются редко - при сборе метрик
+    long countUsers();
+
+    // Дружба симметрична и считается один раз на пару пользователей
+    long countFriendships();
+
+    int maxFriendsPerUser();
 }
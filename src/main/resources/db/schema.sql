@@ -0,0 +1,39 @@
+CREATE TABLE IF NOT EXISTS films (
+    id           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name         VARCHAR      NOT NULL,
+    description  VARCHAR(200),
+    release_date DATE         NOT NULL,
+    duration     INTEGER
+);
+
+-- Естественный ключ фильма: название и дата выхода
+CREATE UNIQUE INDEX IF NOT EXISTS films_name_release_date_uq ON films (name, release_date);
+
+CREATE TABLE IF NOT EXISTS users (
+    id               BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    email            VARCHAR NOT NULL,
+    email_normalized VARCHAR GENERATED ALWAYS AS (LOWER(TRIM(email))),
+    login            VARCHAR NOT NULL,
+    name             VARCHAR,
+    birthday         DATE    NOT NULL
+);
+
+-- Имейлы уникальны без учёта регистра и пробелов по краям
+CREATE UNIQUE INDEX IF NOT EXISTS users_email_uq ON users (email_normalized);
+
+CREATE TABLE IF NOT EXISTS likes (
+    film_id BIGINT NOT NULL REFERENCES films (id),
+    user_id BIGINT NOT NULL REFERENCES users (id),
+    PRIMARY KEY (film_id, user_id)
+);
+
+CREATE INDEX IF NOT EXISTS likes_user_id_idx ON likes (user_id);
+
+-- Дружба симметрична и хранится двумя строками: (user_id, friend_id) и (friend_id, user_id)
+CREATE TABLE IF NOT EXISTS friendships (
+    user_id   BIGINT NOT NULL REFERENCES users (id),
+    friend_id BIGINT NOT NULL REFERENCES users (id),
+    PRIMARY KEY (user_id, friend_id)
+);
+
+CREATE INDEX IF NOT EXISTS friendships_friend_id_idx ON friendships (friend_id);
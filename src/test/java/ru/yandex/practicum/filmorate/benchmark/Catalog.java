@@ -0,0 +1,94 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Наполненные хранилища в памяти для бенчмарков горячих путей: scale фильмов, scale пользователей, в среднем
+// LIKES_PER_FILM лайков на фильм и FRIENDS_PER_USER друзей на пользователя. Распределения скошены, как в живом
+// каталоге: фильм для лайка и один конец дружбы выбираются как scale * r^3, поэтому малая часть фильмов
+// и пользователей собирает большую часть связей. Зерно генератора фиксировано, и состав каталога одинаков
+// от прогона к прогону. Ещё PROBE_USERS пользователей не ставят лайков и ни с кем не дружат: на них
+// бенчмарки ставят и снимают лайк, не меняя каталог
+final class Catalog {
+
+    static final int LIKES_PER_FILM = 5;
+    static final int FRIENDS_PER_USER = 10;
+    static final int PROBE_USERS = 1_000;
+
+    final int scale;
+    final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    final InMemoryUserStorage userStorage;
+
+    private Catalog(int scale, InMemoryUserStorage userStorage) {
+        this.scale = scale;
+        this.userStorage = userStorage;
+    }
+
+    static Catalog build(int scale) {
+        return build(scale, new InMemoryUserStorage());
+    }
+
+    static Catalog build(int scale, InMemoryUserStorage userStorage) {
+        BenchmarkLogging.quiet();
+        Catalog catalog = new Catalog(scale, userStorage);
+        for (int i = 0; i < scale; i++) {
+            catalog.filmStorage.createFilm(film(i));
+        }
+        for (int i = 0; i < scale + PROBE_USERS; i++) {
+            catalog.userStorage.createUser(user(i));
+        }
+        Random random = new Random(42);
+        for (long i = 0; i < (long) scale * LIKES_PER_FILM; i++) {
+            catalog.filmStorage.addLike(skewed(random.nextDouble(), scale), 1 + random.nextInt(scale));
+        }
+        for (long i = 0; i < (long) scale * FRIENDS_PER_USER / 2; i++) {
+            long id = skewed(random.nextDouble(), scale);
+            long friendId = 1 + random.nextInt(scale);
+            if (id != friendId) {
+                catalog.userStorage.addFriend(id, friendId);
+            }
+        }
+        return catalog;
+    }
+
+    // Фильм или пользователь с тем же скосом, что и при наполнении: часто попадает в популярные id
+    long skewedId() {
+        return skewed(ThreadLocalRandom.current().nextDouble(), scale);
+    }
+
+    long uniformId() {
+        return 1 + ThreadLocalRandom.current().nextInt(scale);
+    }
+
+    long probeUserId() {
+        return scale + 1 + ThreadLocalRandom.current().nextInt(PROBE_USERS);
+    }
+
+    static Film film(int i) {
+        Film film = new Film();
+        film.setName("Film " + i);
+        film.setDescription("Описание фильма " + i);
+        film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000));
+        film.setDuration(90 + i % 60);
+        return film;
+    }
+
+    static User user(int i) {
+        User user = new User();
+        user.setEmail("user" + i + "@mail.ru");
+        user.setLogin("user" + i);
+        user.setName("Пользователь " + i);
+        user.setBirthday(LocalDate.of(1970, 1, 1).plusDays(i % 15_000));
+        return user;
+    }
+
+    private static long skewed(double r, int scale) {
+        return 1 + (long) (scale * r * r * r);
+    }
+}
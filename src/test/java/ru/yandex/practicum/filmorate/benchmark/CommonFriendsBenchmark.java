@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.edge.IdSet;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Общие друзья при перекошенных степенях. Сценарий задаётся как "степень_первого:степень_второго",
+// например 50:100000 - обычный пользователь и знаменитость.
+// legacyCopyRetainAll воспроизводит прежний алгоритм: копия HashSet одного пользователя и retainAll
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CommonFriendsBenchmark {
+
+    private static final int USERS = 1_000_000;
+
+    @Param({"50:100000", "100000:50", "1000:1000", "10000:100000"})
+    private String degrees;
+
+    private IdSet sortedFirst;
+    private IdSet sortedSecond;
+    private IdSet boxedFirst;
+    private IdSet boxedSecond;
+    private Set<Long> legacyFirst;
+    private Set<Long> legacySecond;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] parts = degrees.split(":");
+        Random random = new Random(42);
+        sortedFirst = IdSetType.SORTED_ARRAY.create();
+        sortedSecond = IdSetType.SORTED_ARRAY.create();
+        fill(sortedFirst, Integer.parseInt(parts[0]), random);
+        fill(sortedSecond, Integer.parseInt(parts[1]), random);
+        boxedFirst = copy(sortedFirst, IdSetType.BOXED);
+        boxedSecond = copy(sortedSecond, IdSetType.BOXED);
+        legacyFirst = new HashSet<>();
+        sortedFirst.forEach(legacyFirst::add);
+        legacySecond = new HashSet<>();
+        sortedSecond.forEach(legacySecond::add);
+    }
+
+    @Benchmark
+    public int legacyCopyRetainAll() {
+        Set<Long> common = new HashSet<>(legacyFirst);
+        common.retainAll(legacySecond);
+        return common.size();
+    }
+
+    @Benchmark
+    public int boxedProbeSmaller() {
+        int[] count = new int[1];
+        boxedFirst.forEachCommon(boxedSecond, id -> count[0]++);
+        return count[0];
+    }
+
+    @Benchmark
+    public int sortedMergeOrGallop() {
+        int[] count = new int[1];
+        sortedFirst.forEachCommon(sortedSecond, id -> count[0]++);
+        return count[0];
+    }
+
+    // Друзья выбираются из 1/10 пользователей, чтобы у множеств было заметное пересечение
+    private static void fill(IdSet ids, int degree, Random random) {
+        while (ids.size() < degree) {
+            ids.add(random.nextInt(USERS / 10 + degree));
+        }
+    }
+
+    private static IdSet copy(IdSet source, IdSetType type) {
+        IdSet ids = type.create();
+        source.forEach(ids::add);
+        return ids;
+    }
+}
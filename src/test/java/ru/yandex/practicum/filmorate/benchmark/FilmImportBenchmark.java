@@ -0,0 +1,87 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.controller.ImportController;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.UserServiceImpl;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка миллиона фильмов из NDJSON: по одному, как при POST /films (разбор, проверка аннотаций,
+// поиск дубликата, добавление), против POST /films:import
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class FilmImportBenchmark {
+
+    @Param({"1000000"})
+    private int films;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private byte[] body;
+    private FilmServiceImpl filmService;
+
+    @Setup(Level.Trial)
+    public void generate() throws IOException {
+        BenchmarkLogging.quiet();
+        StringBuilder lines = new StringBuilder();
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setDescription("Description of film " + i);
+            film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000));
+            film.setDuration(90);
+            lines.append(objectMapper.writeValueAsString(film)).append('\n');
+        }
+        body = lines.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        filmService = new FilmServiceImpl(new InMemoryFilmStorage(), new InMemoryUserStorage(),
+                new TrendingFilms(Duration.ZERO));
+    }
+
+    @Benchmark
+    public FilmServiceImpl singleCreates() throws IOException {
+        ObjectReader reader = objectMapper.readerFor(Film.class);
+        BufferedReader lines = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(body),
+                StandardCharsets.UTF_8));
+        for (String line = lines.readLine(); line != null; line = lines.readLine()) {
+            Film film = reader.readValue(line);
+            if (!validator.validate(film).isEmpty()) {
+                throw new IllegalStateException("Фильм не прошёл проверку: " + line);
+            }
+            filmService.createFilm(film);
+        }
+        return filmService;
+    }
+
+    @Benchmark
+    public ImportReport bulkImport() throws IOException {
+        ImportController controller = new ImportController(filmService,
+                new UserServiceImpl(new InMemoryUserStorage()), objectMapper, validator);
+        return controller.importFilms(new ByteArrayInputStream(body));
+    }
+}
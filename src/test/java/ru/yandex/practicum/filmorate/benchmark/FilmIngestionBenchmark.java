@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка каталога фильмов с проверкой на дубликат по названию и дате выхода:
+// прежний поиск через films.containsValue против индекса естественного ключа
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class FilmIngestionBenchmark {
+
+    @Param({"100000"})
+    private int films;
+
+    private List<Film> catalogue;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        catalogue = new ArrayList<>(films);
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(i % 40_000));
+            film.setDuration(90);
+            catalogue.add(film);
+        }
+    }
+
+    @Benchmark
+    public Map<Long, Film> legacyContainsValue() {
+        Map<Long, Film> storage = new HashMap<>();
+        long counterId = 0;
+        for (Film film : catalogue) {
+            if (storage.containsValue(film)) {
+                throw new IllegalStateException("Фильм с таким названием и годом выпуска уже есть в списке");
+            }
+            film.setId(++counterId);
+            storage.put(film.getId(), film);
+        }
+        return storage;
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage naturalKeyIndex() {
+        InMemoryFilmStorage storage = new InMemoryFilmStorage();
+        for (Film film : catalogue) {
+            if (storage.existByNameAndReleaseDate(film)) {
+                throw new IllegalStateException("Фильм с таким названием и годом выпуска уже есть в списке");
+            }
+            storage.createFilm(film);
+        }
+        return storage;
+    }
+}
@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.search.FilmSearchIndex;
+import ru.yandex.practicum.filmorate.storage.search.Tokenizer;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Поиск фильмов на каталоге из films фильмов со словарём из VOCABULARY русских и английских слов: в названии
+// 2-4 слова, в описании 8-16, слово выбирается как VOCABULARY * r^3, поэтому несколько слов встречаются
+// в сотнях тысяч фильмов, а большинство - в единицах. Запросы идут через InMemoryFilmStorage, как из контроллера:
+// twoWords - два слова из названия случайного фильма, prefix - первые три буквы слова (автодополнение),
+// commonWord - одно из десяти самых частых слов (худший случай: оценивается каждый фильм с ним),
+// scan - тот же запрос, что в twoWords, перебором всех фильмов. build - построение индекса с нуля
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class FilmSearchBenchmark {
+
+    private static final int VOCABULARY = 65_536;
+    private static final int QUERIES = 1024;
+    private static final String[] RUSSIAN = {"ка", "ло", "ми", "ро", "са", "ту", "не", "ва",
+            "ди", "зо", "пе", "лу", "го", "ря", "ше", "бы"};
+    private static final String[] ENGLISH = {"ka", "lo", "mi", "ro", "sa", "tu", "ne", "va",
+            "di", "zo", "pe", "lu", "go", "ry", "she", "by"};
+
+    @Param({"1000000"})
+    private int films;
+
+    private List<Film> catalog;
+    private InMemoryFilmStorage storage;
+    private final String[] twoWordQueries = new String[QUERIES];
+    private final String[] prefixQueries = new String[QUERIES];
+    private final String[] commonQueries = new String[10];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        Random random = new Random(42);
+        catalog = new ArrayList<>(films);
+        storage = new InMemoryFilmStorage();
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName(capitalize(words(random, 2 + random.nextInt(3))));
+            film.setDescription(capitalize(words(random, 8 + random.nextInt(9))) + ".");
+            // Даты разные, чтобы совпавшие названия не считались дубликатами
+            film.setReleaseDate(LocalDate.of(1900, 1, 1).plusDays(i));
+            film.setDuration(90 + i % 60);
+            catalog.add(storage.createFilm(film));
+        }
+        for (int i = 0; i < QUERIES; i++) {
+            List<String> name = Tokenizer.tokenize(catalog.get(random.nextInt(films)).getName());
+            twoWordQueries[i] = name.get(0) + " " + name.get(1);
+            String word = name.get(random.nextInt(name.size()));
+            prefixQueries[i] = word.substring(0, Math.min(3, word.length()));
+        }
+        for (int i = 0; i < commonQueries.length; i++) {
+            commonQueries[i] = word(i);
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Film> twoWords() {
+        return storage.searchFilms(twoWordQueries[ThreadLocalRandom.current().nextInt(QUERIES)], 10, false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Film> prefix() {
+        return storage.searchFilms(prefixQueries[ThreadLocalRandom.current().nextInt(QUERIES)], 10, false);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Film> commonWord() {
+        return storage.searchFilms(commonQueries[ThreadLocalRandom.current().nextInt(commonQueries.length)],
+                10, true);
+    }
+
+    // Перебор, который заменяет индекс: все слова запроса как подстроки названия или описания
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public List<Film> scan() {
+        List<String> tokens = Tokenizer.tokenize(twoWordQueries[ThreadLocalRandom.current().nextInt(QUERIES)]);
+        List<Film> found = new ArrayList<>();
+        storage.forEachFilm(film -> {
+            if (found.size() < 10) {
+                String text = (film.getName() + " " + film.getDescription()).toLowerCase(Locale.ROOT);
+                if (tokens.stream().allMatch(text::contains)) {
+                    found.add(film);
+                }
+            }
+        });
+        return found;
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public FilmSearchIndex build() {
+        FilmSearchIndex index = new FilmSearchIndex();
+        for (Film film : catalog) {
+            index.index(film);
+        }
+        return index;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            double r = random.nextDouble();
+            if (i > 0) {
+                text.append(' ');
+            }
+            text.append(word((int) (VOCABULARY * r * r * r)));
+        }
+        return text.toString();
+    }
+
+    // Чётные номера - русские слова, нечётные - английские, из 2-4 слогов. Слоги не являются началом
+    // друг друга, поэтому разные номера дают разные слова
+    private static String word(int rank) {
+        String[] syllables = rank % 2 == 0 ? RUSSIAN : ENGLISH;
+        int code = rank / 2 + syllables.length;
+        StringBuilder word = new StringBuilder();
+        while (code > 0) {
+            word.insert(0, syllables[code % syllables.length]);
+            code /= syllables.length;
+        }
+        return word.toString();
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+}
@@ -0,0 +1,74 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации друзей на графе из Catalog: при scale = 1000000 у самого популярного пользователя около 50k друзей,
+// а почти у каждого обычного пользователя среди друзей есть такие знаменитости. Режим SampleTime, чтобы
+// видеть p99, а не только среднее. naive - полный обход двух шагов через публичные методы хранилища
+// со счётом в HashMap, как было бы без ограничений; по нему видно, от чего защищают границы обхода.
+// Цель для suggestions и suggestionsForTopUser: p99 не больше 5 мс при scale = 1000000
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class FriendSuggestionsBenchmark {
+
+    @Param({"100000", "1000000"})
+    private int scale;
+
+    @Param({"false", "true"})
+    private boolean parallel;
+
+    private Catalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = Catalog.build(scale, new InMemoryUserStorage(IdSetType.SORTED_ARRAY, parallel));
+    }
+
+    // Пользователь с тем же скосом, что и при наполнении: часто попадает на знаменитостей
+    @Benchmark
+    public List<FriendSuggestion> suggestions() {
+        return catalog.userStorage.getFriendSuggestions(catalog.skewedId(), 10);
+    }
+
+    @Benchmark
+    public List<FriendSuggestion> suggestionsForTopUser() {
+        return catalog.userStorage.getFriendSuggestions(1, 10);
+    }
+
+    @Benchmark
+    public List<Long> naive() {
+        long id = catalog.skewedId();
+        List<User> friends = catalog.userStorage.getFriendsList(id);
+        Set<Long> excluded = new HashSet<>();
+        excluded.add(id);
+        friends.forEach(friend -> excluded.add(friend.getId()));
+        Map<Long, Integer> mutual = new HashMap<>();
+        for (User friend : friends) {
+            for (User candidate : catalog.userStorage.getFriendsList(friend.getId())) {
+                if (!excluded.contains(candidate.getId())) {
+                    mutual.merge(candidate.getId(), 1, Integer::sum);
+                }
+            }
+        }
+        return mutual.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(10)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+}
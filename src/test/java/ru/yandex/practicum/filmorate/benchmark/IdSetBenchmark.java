@@ -0,0 +1,58 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.storage.edge.IdSet;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Операции над одной стороной связи при разных степенях вершины:
+// отсортированный массив long против прежнего HashSet<Long>
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IdSetBenchmark {
+
+    private static final int ID_RANGE = 1_000_000;
+
+    @Param({"SORTED_ARRAY", "BOXED"})
+    private IdSetType type;
+
+    @Param({"10", "100", "1000"})
+    private int degree;
+
+    private IdSet ids;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        ids = type.create();
+        while (ids.size() < degree) {
+            ids.add(random.nextInt(ID_RANGE));
+        }
+    }
+
+    @Benchmark
+    public boolean addAndRemove() {
+        long id = ID_RANGE + ThreadLocalRandom.current().nextInt(ID_RANGE);
+        ids.add(id);
+        return ids.remove(id);
+    }
+
+    @Benchmark
+    public boolean contains() {
+        return ids.contains(ThreadLocalRandom.current().nextInt(ID_RANGE));
+    }
+
+    @Benchmark
+    public long iterate() {
+        long[] sum = new long[1];
+        ids.forEach(id -> sum[0] += id);
+        return sum[0];
+    }
+}
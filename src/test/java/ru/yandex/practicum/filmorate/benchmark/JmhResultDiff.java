@@ -0,0 +1,75 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Сравнение двух файлов результатов JMH (-rf json): для каждого бенчмарка с одинаковыми параметрами печатает
+// оценку до и после и изменение в процентах. Изменение помечается "*", если оно больше суммы погрешностей
+// обоих замеров; бенчмарки, которые есть только в одном файле, печатаются с прочерком
+public final class JmhResultDiff {
+
+    private JmhResultDiff() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            throw new IllegalArgumentException("Нужны два файла: до и после");
+        }
+        Map<String, JsonNode> base = read(args[0]);
+        Map<String, JsonNode> current = read(args[1]);
+        Map<String, JsonNode> keys = new LinkedHashMap<>(base);
+        current.forEach(keys::putIfAbsent);
+
+        System.out.printf("%-70s %14s %14s %-8s %9s%n", "benchmark", "base", "current", "unit", "change");
+        for (String key : keys.keySet()) {
+            JsonNode before = base.get(key);
+            JsonNode after = current.get(key);
+            String unit = (after != null ? after : before).path("primaryMetric").path("scoreUnit").asText();
+            String change = "-";
+            if (before != null && after != null) {
+                double beforeScore = score(before);
+                double afterScore = score(after);
+                double errors = error(before) + error(after);
+                change = String.format("%+8.1f%%", (afterScore - beforeScore) / beforeScore * 100)
+                        + (Math.abs(afterScore - beforeScore) > errors ? "*" : " ");
+            }
+            System.out.printf("%-70s %14s %14s %-8s %9s%n", key, format(before), format(after), unit, change);
+        }
+    }
+
+    // Ключ - имя бенчмарка без пакета и параметры в порядке имён
+    private static Map<String, JsonNode> read(String path) throws IOException {
+        Map<String, JsonNode> results = new LinkedHashMap<>();
+        for (JsonNode result : new ObjectMapper().readTree(new File(path))) {
+            String benchmark = result.path("benchmark").asText();
+            StringBuilder key = new StringBuilder(benchmark.substring(benchmark.lastIndexOf('.',
+                    benchmark.lastIndexOf('.') - 1) + 1));
+            Map<String, String> params = new TreeMap<>();
+            Iterator<Map.Entry<String, JsonNode>> fields = result.path("params").fields();
+            fields.forEachRemaining(field -> params.put(field.getKey(), field.getValue().asText()));
+            params.forEach((name, value) -> key.append(' ').append(name).append('=').append(value));
+            results.put(key.toString(), result);
+        }
+        return results;
+    }
+
+    private static double score(JsonNode result) {
+        return result.path("primaryMetric").path("score").asDouble();
+    }
+
+    private static double error(JsonNode result) {
+        double error = result.path("primaryMetric").path("scoreError").asDouble();
+        return Double.isNaN(error) ? 0 : error;
+    }
+
+    private static String format(JsonNode result) {
+        return result == null ? "-" : String.format("%.3f", score(result));
+    }
+}
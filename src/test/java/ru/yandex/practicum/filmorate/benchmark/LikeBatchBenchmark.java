@@ -0,0 +1,122 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+// Загрузка миллиона лайков: по одному через FilmServiceImpl.addLike против пакетов applyLikes.
+// mvn -Pjmh test-compile exec:exec -Djmh.args="LikeBatch"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class LikeBatchBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 100_000;
+
+    @Param({"1000000"})
+    private int likes;
+
+    @Param({"100000"})
+    private int batchSize;
+
+    @Param({"memory", "jdbc"})
+    private String backend;
+
+    private List<LikeOperation> operations;
+    private EmbeddedDatabase database;
+    private FilmServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void generate() {
+        BenchmarkLogging.quiet();
+        SplittableRandom random = new SplittableRandom(42);
+        operations = new ArrayList<>(likes);
+        for (int i = 0; i < likes; i++) {
+            operations.add(new LikeOperation(1L + random.nextInt(FILMS), 1L + random.nextInt(USERS),
+                    LikeOperation.Op.ADD));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        FilmStorage filmStorage;
+        UserStorage userStorage;
+        if ("jdbc".equals(backend)) {
+            database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .addScript("db/schema.sql")
+                    .build();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            filmStorage = new JdbcFilmStorage(jdbcTemplate);
+            userStorage = new JdbcUserStorage(jdbcTemplate);
+        } else {
+            filmStorage = new InMemoryFilmStorage();
+            userStorage = new InMemoryUserStorage();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        service = new FilmServiceImpl(filmStorage, userStorage, new TrendingFilms(Duration.ZERO));
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDown() {
+        if (database != null) {
+            database.shutdown();
+            database = null;
+        }
+    }
+
+    @Benchmark
+    public FilmServiceImpl singleCalls() {
+        for (LikeOperation operation : operations) {
+            service.addLike(operation.filmId(), operation.userId());
+        }
+        return service;
+    }
+
+    @Benchmark
+    public FilmServiceImpl batches() {
+        for (int from = 0; from < operations.size(); from += batchSize) {
+            service.applyLikes(operations.subList(from, Math.min(operations.size(), from + batchSize)));
+        }
+        return service;
+    }
+}
@@ -0,0 +1,53 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.MeteredFilmStorage;
+
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Цена таймера на самых коротких вызовах хранилища: хранилище в памяти напрямую и через декоратор с метриками
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MeteredStorageBenchmark {
+
+    private static final int FILMS = 10_000;
+
+    @Param({"false", "true"})
+    private boolean metered;
+
+    private FilmStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        InMemoryFilmStorage inMemory = new InMemoryFilmStorage();
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            inMemory.createFilm(film);
+        }
+        storage = metered ? new MeteredFilmStorage(inMemory, new SimpleMeterRegistry()) : inMemory;
+    }
+
+    @Benchmark
+    public boolean containsFilmById() {
+        return storage.containsFilmById(1 + ThreadLocalRandom.current().nextInt(FILMS * 2));
+    }
+
+    @Benchmark
+    public int popularFilms() {
+        return storage.getPopularFilms(10).size();
+    }
+}
@@ -0,0 +1,73 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+// Сравнение прежней выборки популярных фильмов (сортировка всей мапы лайков на каждый запрос)
+// с индексом популярности InMemoryFilmStorage
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class PopularFilmsBenchmark {
+
+    private static final int USERS = 10_000;
+    private static final int LIKES_PER_FILM = 2;
+
+    @Param({"10000", "100000", "1000000"})
+    private int films;
+
+    @Param({"10"})
+    private int count;
+
+    private InMemoryFilmStorage storage;
+    private Map<Long, Film> legacyFilms;
+    private Map<Long, Set<Long>> legacyLikes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        storage = new InMemoryFilmStorage();
+        legacyFilms = new HashMap<>();
+        legacyLikes = new HashMap<>();
+        for (int i = 0; i < films; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            storage.createFilm(film);
+            legacyFilms.put(film.getId(), film);
+        }
+        // Лайки распределены со скосом: малая часть фильмов собирает большую часть лайков
+        Random random = new Random(42);
+        for (long i = 0; i < (long) films * LIKES_PER_FILM; i++) {
+            double r = random.nextDouble();
+            long filmId = 1 + (long) (films * r * r * r);
+            long userId = 1 + random.nextInt(USERS);
+            storage.addLike(filmId, userId);
+            legacyLikes.computeIfAbsent(filmId, id -> new HashSet<>()).add(userId);
+        }
+    }
+
+    @Benchmark
+    public List<Film> legacySortAllLikes() {
+        return legacyLikes.entrySet().stream()
+                .sorted((entry1, entry2) -> Integer.compare(entry2.getValue().size(), entry1.getValue().size()))
+                .limit(count)
+                .map(entry -> legacyFilms.get(entry.getKey()))
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Film> popularityIndex() {
+        return storage.getPopularFilms(count);
+    }
+}
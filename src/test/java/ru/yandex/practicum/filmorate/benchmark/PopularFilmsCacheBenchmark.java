@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.CachingFilmService;
+import ru.yandex.practicum.filmorate.service.film.FilmService;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Главная страница под нагрузкой: читатели запрашивают популярные фильмы, один поток редко ставит лайки.
+// Задержку читателей (группа homepage, метод popular) сравниваем без кэша, с кэшем и с stale-while-revalidate
+@State(Scope.Group)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PopularFilmsCacheBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"memory", "jdbc"})
+    private String backend;
+
+    @Param({"off", "on", "swr"})
+    private String cache;
+
+    @Param({"10"})
+    private int likeIntervalMillis;
+
+    private EmbeddedDatabase database;
+    private FilmService service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        FilmStorage filmStorage;
+        UserStorage userStorage;
+        if ("jdbc".equals(backend)) {
+            database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .addScript("db/schema.sql")
+                    .build();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            filmStorage = new JdbcFilmStorage(jdbcTemplate);
+            userStorage = new JdbcUserStorage(jdbcTemplate);
+        } else {
+            filmStorage = new InMemoryFilmStorage();
+            userStorage = new InMemoryUserStorage();
+        }
+        FilmService films = new FilmServiceImpl(filmStorage, userStorage, new TrendingFilms(Duration.ZERO));
+        service = "off".equals(cache) ? films
+                : new CachingFilmService(films, new SimpleMeterRegistry(), 64, "swr".equals(cache));
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < FILMS * 2; i++) {
+            double r = random.nextDouble();
+            filmStorage.addLike(1 + (long) (FILMS * r * r * r), 1 + random.nextInt(USERS));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (service instanceof CachingFilmService caching) {
+            caching.stop();
+        }
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @Benchmark
+    @Group("homepage")
+    @GroupThreads(3)
+    public List<Film> popular() {
+        return service.getPopularFilms(10);
+    }
+
+    @Benchmark
+    @Group("homepage")
+    @GroupThreads(1)
+    public void like() throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        service.addLike(1 + random.nextInt(FILMS), 1 + random.nextInt(USERS));
+        TimeUnit.MILLISECONDS.sleep(likeIntervalMillis);
+    }
+}
@@ -0,0 +1,77 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.PopularityMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Точный и приближённый индекс популярности в InMemoryFilmStorage. likeAndUnlike - лайк и его снятие
+// (два обновления индекса) на фильме со скосом к популярным от пользователя, который больше ничего не лайкал,
+// popular - выборка первой десятки. Память самих индексов сравнивает ApproximatePopularityTest
+@State(Scope.Benchmark)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class PopularityModeBenchmark {
+
+    private static final int USERS = 100_000;
+    private static final int PROBE_USERS = 1_000;
+    private static final int LIKES_PER_FILM = 2;
+    private static final int LIKE_BATCH = 100_000;
+
+    @Param({"EXACT", "APPROXIMATE"})
+    private PopularityMode mode;
+
+    @Param({"1000000"})
+    private int films;
+
+    private InMemoryFilmStorage storage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        storage = new InMemoryFilmStorage(IdSetType.SORTED_ARRAY, mode);
+        for (int i = 0; i < films; i++) {
+            storage.createFilm(Catalog.film(i));
+        }
+        Random random = new Random(42);
+        List<LikeOperation> batch = new ArrayList<>(LIKE_BATCH);
+        for (long i = 0; i < (long) films * LIKES_PER_FILM; i++) {
+            double r = random.nextDouble();
+            batch.add(new LikeOperation(1 + (long) (films * r * r * r), 1L + random.nextInt(USERS),
+                    LikeOperation.Op.ADD));
+            if (batch.size() == LIKE_BATCH) {
+                storage.applyLikes(batch);
+                batch.clear();
+            }
+        }
+        storage.applyLikes(batch);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public void likeAndUnlike() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double r = random.nextDouble();
+        long filmId = 1 + (long) (films * r * r * r);
+        long userId = USERS + 1 + random.nextInt(PROBE_USERS);
+        storage.addLike(filmId, userId);
+        storage.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public List<Film> popular() {
+        return storage.getPopularFilms(10);
+    }
+}
@@ -0,0 +1,103 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.service.recommendation.RecommendationServiceImpl;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Рекомендации на каталоге из films фильмов и users пользователей. Пользователи разбиты на группы по вкусам:
+// у каждой группы свой набор из GROUP_FILMS фильмов (наборы пересекаются, популярные фильмы входят во многие),
+// пользователь лайкает GROUP_LIKES фильмов своей группы и OTHER_LIKES фильмов из всего каталога со скосом
+// к популярным. recommend - задержка запроса по готовой таблице соседей, rebuild - полная перестройка таблицы.
+// mvn -Pjmh test-compile exec:exec -Djmh.args="RecommendationBenchmark"
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class RecommendationBenchmark {
+
+    private static final int USERS_PER_GROUP = 100;
+    private static final int GROUP_FILMS = 40;
+    private static final int GROUP_LIKES = 8;
+    private static final int OTHER_LIKES = 2;
+    private static final int LIKE_BATCH = 100_000;
+
+    @Param({"1000000"})
+    private int users;
+
+    @Param({"100000"})
+    private int films;
+
+    private RecommendationServiceImpl service;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        for (int i = 0; i < films; i++) {
+            filmStorage.createFilm(Catalog.film(i));
+        }
+        for (int i = 0; i < users; i++) {
+            userStorage.createUser(Catalog.user(i));
+        }
+        SplittableRandom random = new SplittableRandom(42);
+        int groups = users / USERS_PER_GROUP;
+        long[][] groupFilms = new long[groups][GROUP_FILMS];
+        for (long[] pool : groupFilms) {
+            for (int i = 0; i < GROUP_FILMS; i++) {
+                pool[i] = skewedFilm(random);
+            }
+        }
+        List<LikeOperation> batch = new ArrayList<>(LIKE_BATCH);
+        for (int user = 0; user < users; user++) {
+            long[] pool = groupFilms[user % groups];
+            for (int i = 0; i < GROUP_LIKES + OTHER_LIKES; i++) {
+                long filmId = i < GROUP_LIKES ? pool[random.nextInt(GROUP_FILMS)] : skewedFilm(random);
+                batch.add(new LikeOperation(filmId, user + 1L, LikeOperation.Op.ADD));
+            }
+            if (batch.size() >= LIKE_BATCH) {
+                filmStorage.applyLikes(batch);
+                batch.clear();
+            }
+        }
+        filmStorage.applyLikes(batch);
+        service = new RecommendationServiceImpl(filmStorage, userStorage, Duration.ZERO, 0);
+        service.rebuild();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        service.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Film> recommend() {
+        return service.getRecommendations(1 + ThreadLocalRandom.current().nextInt(users), 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 1)
+    @Measurement(iterations = 3)
+    public void rebuild() {
+        service.rebuild();
+    }
+
+    private long skewedFilm(SplittableRandom random) {
+        double r = random.nextDouble();
+        return 1 + (long) (films * r * r * r);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Durability;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceManager;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+// Время запуска с восстановлением хранилищ: весь журнал из events изменений (source = log)
+// или снимок, записанный после них (source = snapshot)
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class RecoveryBenchmark {
+
+    private static final int FILMS = 100_000;
+    private static final int USERS = 100_000;
+    private static final DataSize SEGMENT_SIZE = DataSize.ofMegabytes(64);
+
+    @Param({"10000000"})
+    private int events;
+
+    @Param({"log", "snapshot"})
+    private String source;
+
+    private Path directory;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkLogging.quiet();
+        directory = Files.createTempDirectory("recovery-benchmark");
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        InMemoryUserStorage userStorage = new InMemoryUserStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, userStorage, directory, Durability.NONE,
+                Duration.ZERO, SEGMENT_SIZE, Duration.ZERO);
+        manager.start();
+        int entities = Math.min(events / 2, FILMS + USERS);
+        for (int i = 0; i < entities / 2; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        // Остальные события - лайки и дружба, примерно каждое пятое удаляет связь
+        Random random = new Random(42);
+        int ids = entities / 2;
+        for (int i = entities; i < events; i++) {
+            long id = 1 + random.nextInt(ids);
+            long otherId = 1 + random.nextInt(ids);
+            int kind = random.nextInt(10);
+            if (kind < 6) {
+                filmStorage.addLike(id, otherId);
+            } else if (kind < 7) {
+                filmStorage.deleteLike(id, otherId);
+            } else if (kind < 9) {
+                if (id != otherId) {
+                    userStorage.addFriend(id, otherId);
+                }
+            } else {
+                userStorage.deleteFriend(id, otherId);
+            }
+        }
+        if ("snapshot".equals(source)) {
+            manager.snapshot();
+        }
+        manager.stop();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public InMemoryFilmStorage recover() throws IOException {
+        InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+        PersistenceManager manager = new PersistenceManager(filmStorage, new InMemoryUserStorage(), directory,
+                Durability.NONE, Duration.ZERO, SEGMENT_SIZE, Duration.ZERO);
+        manager.start();
+        manager.stop();
+        return filmStorage;
+    }
+}
@@ -0,0 +1,67 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.service.user.UserServiceImpl;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// Те же операции, что в StorageHotPathBenchmark, через FilmServiceImpl и UserServiceImpl:
+// разница показывает цену проверок существования и постраничной выдачи в сервисах
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class ServiceHotPathBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int scale;
+
+    private Catalog catalog;
+    private FilmServiceImpl filmService;
+    private UserServiceImpl userService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = Catalog.build(scale);
+        filmService = new FilmServiceImpl(catalog.filmStorage, catalog.userStorage,
+                new TrendingFilms(Duration.ZERO));
+        userService = new UserServiceImpl(catalog.userStorage);
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return filmService.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        long filmId = catalog.skewedId();
+        long userId = catalog.probeUserId();
+        filmService.addLike(filmId, userId);
+        filmService.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    public Page<Film> filmsPage() {
+        return filmService.getFilmsPage(catalog.uniformId(), 100);
+    }
+
+    @Benchmark
+    public List<User> friendsList() {
+        return userService.getFriendsList(catalog.skewedId());
+    }
+
+    @Benchmark
+    public List<User> commonFriends() {
+        return userService.getCommonFriendsList(catalog.skewedId(), catalog.uniformId());
+    }
+}
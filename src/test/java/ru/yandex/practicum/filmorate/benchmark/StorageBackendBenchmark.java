@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Сравнение хранилищ в памяти и во встроенной H2 на одних и тех же операциях:
+// mvn -Pjmh test-compile exec:exec -Djmh.args="StorageBackend -t 4"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageBackendBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"memory", "jdbc"})
+    private String backend;
+
+    private EmbeddedDatabase database;
+    private FilmStorage filmStorage;
+    private UserStorage userStorage;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        if ("jdbc".equals(backend)) {
+            database = new EmbeddedDatabaseBuilder()
+                    .setType(EmbeddedDatabaseType.H2)
+                    .generateUniqueName(true)
+                    .addScript("db/schema.sql")
+                    .build();
+            JdbcTemplate jdbcTemplate = new JdbcTemplate(database);
+            filmStorage = new JdbcFilmStorage(jdbcTemplate);
+            userStorage = new JdbcUserStorage(jdbcTemplate);
+        } else {
+            filmStorage = new InMemoryFilmStorage();
+            userStorage = new InMemoryUserStorage();
+        }
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+        // Лайки со скосом, чтобы популярные фильмы считались по неравномерным данным
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < FILMS * 2; i++) {
+            double r = random.nextDouble();
+            filmStorage.addLike(1 + (long) (FILMS * r * r * r), 1 + random.nextInt(USERS));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (database != null) {
+            database.shutdown();
+        }
+    }
+
+    @Benchmark
+    public void likes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        if (random.nextBoolean()) {
+            filmStorage.addLike(filmId, userId);
+        } else {
+            filmStorage.deleteLike(filmId, userId);
+        }
+    }
+
+    @Benchmark
+    public void friends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextInt(USERS);
+        long friendId = 1 + (id + random.nextInt(USERS - 1)) % USERS;
+        if (random.nextBoolean()) {
+            userStorage.addFriend(id, friendId);
+        } else {
+            userStorage.deleteFriend(id, friendId);
+        }
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public boolean existByEmail() {
+        return userStorage.existByEmail("USER" + ThreadLocalRandom.current().nextInt(USERS) + "@mail.ru");
+    }
+}
@@ -0,0 +1,64 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Частые операции хранилищ в памяти на каталоге из Catalog. Фильмы и пользователи для запросов выбираются
+// с тем же скосом, что и при наполнении, поэтому чаще попадают на фильмы и пользователей с большими
+// множествами связей
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = {"-Xms3g", "-Xmx3g"})
+public class StorageHotPathBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    private int scale;
+
+    private Catalog catalog;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = Catalog.build(scale);
+    }
+
+    @Benchmark
+    public boolean containsFilmById() {
+        return catalog.filmStorage.containsFilmById(catalog.uniformId());
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return catalog.filmStorage.getPopularFilms(10);
+    }
+
+    @Benchmark
+    public void likeAndUnlike() {
+        long filmId = catalog.skewedId();
+        long userId = catalog.probeUserId();
+        catalog.filmStorage.addLike(filmId, userId);
+        catalog.filmStorage.deleteLike(filmId, userId);
+    }
+
+    @Benchmark
+    public List<User> friendsList() {
+        return catalog.userStorage.getFriendsList(catalog.skewedId());
+    }
+
+    @Benchmark
+    public List<User> commonFriends() {
+        return catalog.userStorage.getCommonFriendsList(catalog.skewedId(), catalog.uniformId());
+    }
+
+    @Benchmark
+    public boolean existByEmail() {
+        return catalog.userStorage.existByEmail("user" + ThreadLocalRandom.current().nextInt(scale) + "@mail.ru");
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+// Пропускная способность хранилищ при конкурентном доступе. Количество потоков задаётся параметром JMH:
+// mvn -Pjmh test-compile exec:exec -Djmh.args="StorageThroughput -t 32"
+// Режим globalLock оборачивает каждый вызов в одну общую блокировку и служит точкой отсчёта для lock striping
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StorageThroughputBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"striped", "globalLock"})
+    private String mode;
+
+    private InMemoryFilmStorage filmStorage;
+    private InMemoryUserStorage userStorage;
+    private ReentrantLock globalLock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        filmStorage = new InMemoryFilmStorage();
+        userStorage = new InMemoryUserStorage();
+        globalLock = "globalLock".equals(mode) ? new ReentrantLock() : null;
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1));
+            userStorage.createUser(user);
+        }
+    }
+
+    @Benchmark
+    public void likes() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        if (random.nextBoolean()) {
+            guarded(() -> {
+                filmStorage.addLike(filmId, userId);
+                return null;
+            });
+        } else {
+            guarded(() -> {
+                filmStorage.deleteLike(filmId, userId);
+                return null;
+            });
+        }
+    }
+
+    @Benchmark
+    public void friends() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = 1 + random.nextInt(USERS);
+        long friendId = 1 + random.nextInt(USERS);
+        if (random.nextBoolean()) {
+            guarded(() -> {
+                userStorage.addFriend(id, friendId);
+                return null;
+            });
+        } else {
+            guarded(() -> {
+                userStorage.deleteFriend(id, friendId);
+                return null;
+            });
+        }
+    }
+
+    @Benchmark
+    public List<Film> popularFilms() {
+        return guarded(() -> filmStorage.getPopularFilms(10));
+    }
+
+    private <T> T guarded(Supplier<T> action) {
+        if (globalLock == null) {
+            return action.get();
+        }
+        globalLock.lock();
+        try {
+            return action.get();
+        } finally {
+            globalLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+// Тренды на каталоге из Catalog под фоновой записью: отдельный поток ставит LIKES_PER_SECOND лайков в секунду
+// через FilmServiceImpl (хранилище и счётчики трендов), пачками по LIKES_PER_TICK раз в миллисекунду.
+// Ротация трендов идёт раз в секунду, чаще, чем в приложении, чтобы её стоимость попала в замер.
+// trending - задержка запроса трендов, record - стоимость обновления счётчиков одного лайка под той же
+// нагрузкой, rotate - один пересчёт топов по всем фильмам. Достигнутая скорость записи печатается в конце
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = {"-Xms2g", "-Xmx2g"})
+public class TrendingFilmsBenchmark {
+
+    private static final int LIKES_PER_SECOND = 50_000;
+    private static final int LIKES_PER_TICK = LIKES_PER_SECOND / 1000;
+
+    @Param({"100000"})
+    private int scale;
+
+    private Catalog catalog;
+    private TrendingFilms trending;
+    private FilmServiceImpl service;
+    private Thread writer;
+    private volatile boolean running;
+    private volatile long written;
+    private long startedAt;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        catalog = Catalog.build(scale);
+        trending = new TrendingFilms(Duration.ofSeconds(1));
+        service = new FilmServiceImpl(catalog.filmStorage, catalog.userStorage, trending);
+        // Счётчики есть у каждого фильма, как в каталоге, где лайки идут постоянно
+        for (long i = 0; i < (long) scale * Catalog.LIKES_PER_FILM; i++) {
+            trending.record(catalog.skewedId(), 1);
+        }
+        trending.rotate();
+        trending.start();
+        running = true;
+        writer = Thread.ofPlatform().daemon().name("likes-writer").start(this::writeLikes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws InterruptedException {
+        running = false;
+        writer.join();
+        trending.stop();
+        System.out.printf("%nФоновая запись: %d лайков/с%n",
+                written * TimeUnit.SECONDS.toNanos(1) / (System.nanoTime() - startedAt));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public List<Film> trending() {
+        return service.getTrendingFilms("24h", 10);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    @Warmup(iterations = 3, time = 2)
+    @Measurement(iterations = 5, time = 2)
+    public void record() {
+        trending.record(catalog.skewedId(), 1);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 2, time = 2)
+    @Measurement(iterations = 3, time = 2)
+    public void rotate() {
+        trending.rotate();
+    }
+
+    private void writeLikes() {
+        startedAt = System.nanoTime();
+        long tick = TimeUnit.MILLISECONDS.toNanos(1);
+        long next = startedAt;
+        long count = 0;
+        while (running) {
+            for (int i = 0; i < LIKES_PER_TICK; i++) {
+                service.addLike(catalog.skewedId(), catalog.uniformId());
+            }
+            count += LIKES_PER_TICK;
+            written = count;
+            next += tick;
+            long delay = next - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(delay);
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+// Регистрация пользователя (проверка имейла + добавление) при заполненном хранилище:
+// прежний линейный поиск по всем пользователям против индекса имейлов
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xms4g", "-Xmx4g"})
+public class UserRegistrationBenchmark {
+
+    @Param({"1000000"})
+    private int users;
+
+    private InMemoryUserStorage storage;
+    private Map<Long, User> legacyUsers;
+    private long legacyCounterId;
+    private long registered;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        BenchmarkLogging.quiet();
+        storage = new InMemoryUserStorage();
+        legacyUsers = new ConcurrentHashMap<>();
+        for (int i = 0; i < users; i++) {
+            User user = storage.createUser(user("user" + i + "@mail.ru"));
+            legacyUsers.put(user.getId(), user);
+        }
+        legacyCounterId = users;
+        registered = users;
+    }
+
+    @Benchmark
+    public User legacyEmailScan() {
+        User user = user("user" + registered++ + "@mail.ru");
+        String email = user.getEmail();
+        if (legacyUsers.values().stream().anyMatch(existing -> existing.getEmail().equals(email))) {
+            throw new IllegalStateException("Этот имейл уже используется");
+        }
+        user.setId(++legacyCounterId);
+        legacyUsers.put(user.getId(), user);
+        return user;
+    }
+
+    @Benchmark
+    public User emailIndex() {
+        User user = user("user" + registered++ + "@mail.ru");
+        if (storage.existByEmail(user.getEmail())) {
+            throw new IllegalStateException("Этот имейл уже используется");
+        }
+        return storage.createUser(user);
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin("login");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,79 @@
+package ru.yandex.practicum.filmorate.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.util.FileSystemUtils;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.persistence.Durability;
+import ru.yandex.practicum.filmorate.storage.persistence.PersistenceManager;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Задержка лайка с журналом изменений при разных режимах сохранения. Распределение задержек (p50, p99)
+// выводится режимом SampleTime, количество потоков задаётся параметром JMH:
+// mvn -Pjmh test-compile exec:exec -Djmh.args="WalWriteLatency -t 8"
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class WalWriteLatencyBenchmark {
+
+    private static final int FILMS = 10_000;
+    private static final int USERS = 10_000;
+
+    @Param({"NONE", "GROUP", "SYNC"})
+    private Durability durability;
+
+    // 0 - фоновый поток сбрасывает журнал сразу, объединяя записи, накопившиеся за время предыдущего fsync
+    @Param({"0", "2"})
+    private int groupCommitMillis;
+
+    private Path directory;
+    private InMemoryFilmStorage filmStorage;
+    private PersistenceManager manager;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        BenchmarkLogging.quiet();
+        directory = Files.createTempDirectory("wal-benchmark");
+        filmStorage = new InMemoryFilmStorage();
+        manager = new PersistenceManager(filmStorage, new InMemoryUserStorage(), directory, durability,
+                Duration.ofMillis(groupCommitMillis), DataSize.ofMegabytes(64), Duration.ZERO);
+        manager.start();
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Film " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(90);
+            filmStorage.createFilm(film);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        manager.stop();
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public void like() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long filmId = 1 + random.nextInt(FILMS);
+        long userId = 1 + random.nextInt(USERS);
+        if (random.nextBoolean()) {
+            filmStorage.addLike(filmId, userId);
+        } else {
+            filmStorage.deleteLike(filmId, userId);
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.ImportReport;
+import ru.yandex.practicum.filmorate.service.film.FilmServiceImpl;
+import ru.yandex.practicum.filmorate.service.film.TrendingFilms;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование загрузки NDJSON")
+class NdjsonImportTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+    private final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final FilmServiceImpl filmService = new FilmServiceImpl(filmStorage, new InMemoryUserStorage(),
+            new TrendingFilms(Duration.ZERO));
+
+    @Test
+    @DisplayName("Ошибочные строки попадают в отчёт со своими номерами, остальные фильмы добавляются")
+    void reportsLineErrorsWithoutAbortingImport() throws Exception {
+        String body = """
+                {"name": "Солярис", "releaseDate": "1972-02-05", "duration": 167}
+                {"name": "", "releaseDate": "1972-02-05", "duration": 167}
+
+                {"name": "Сталкер", "releaseDate": "1979-05-25", "duration": -1}
+                не json
+                {"name": "Солярис", "releaseDate": "1972-02-05", "duration": 100}
+                {"name": "Зеркало", "releaseDate": "1975-03-07", "duration": 107}
+                null
+                """;
+
+        ImportReport report = importFilms(body);
+
+        assertEquals(7, report.lines(), "Пустая строка посчитана");
+        assertEquals(2, report.imported());
+        assertEquals(5, report.failed());
+        assertEquals(List.of(2L, 4L, 5L, 6L, 8L), report.errors().stream().map(ImportReport.LineError::line).toList(),
+                "Неправильные номера строк");
+        assertEquals("name: Название не может быть пустым", report.errors().get(0).message());
+        assertEquals("Фильм с таким названием и годом выпуска уже есть в списке", report.errors().get(3).message());
+        assertEquals("Ожидался объект, а не null", report.errors().get(4).message());
+        assertEquals(List.of("Солярис", "Зеркало"), filmStorage.getFilmsList().stream().map(Film::getName).toList());
+    }
+
+    @Test
+    @DisplayName("Загрузка больше одной порции добавляет все фильмы, в отчёте не больше заданного числа ошибок")
+    void importsSeveralChunks() throws Exception {
+        StringBuilder body = new StringBuilder();
+        int films = NdjsonImport.CHUNK_SIZE * 2 + 5;
+        for (int i = 0; i < films; i++) {
+            body.append("{\"name\": \"Фильм ").append(i).append("\", \"releaseDate\": \"2000-01-01\"}\n");
+        }
+        importFilms(body.toString());
+
+        ImportReport repeated = importFilms(body.toString());
+
+        assertEquals(films, filmStorage.getFilmsList().size());
+        assertEquals(films, repeated.failed(), "Повторная загрузка добавила дубликаты");
+        assertEquals(NdjsonImport.MAX_REPORTED_ERRORS, repeated.errors().size());
+    }
+
+    private ImportReport importFilms(String body) throws Exception {
+        return NdjsonImport.run(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)),
+                objectMapper.readerFor(Film.class), validator, filmService::importFilms);
+    }
+}
@@ -0,0 +1,127 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.zalando.logbook.HttpRequest;
+import org.zalando.logbook.HttpResponse;
+import org.zalando.logbook.Strategy;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Запросы идут через настоящий сервер и фильтр Logbook. Список путей без тела пуст, поэтому тела NDJSON
+// не копируются только благодаря типу содержимого. По журналу этого не проверить: тело потока Logbook заменяет
+// на "<stream>", уже скопировав его. Копировать ли тело, Logbook решает до вызова контроллера по ответу
+// стратегии (withBody или withoutBody), поэтому тест запоминает эти ответы для каждого запроса
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "filmorate.logging.bodiless-paths=")
+@DisplayName("Тестирование журналирования запросов NDJSON")
+class NdjsonLoggingTest {
+
+    private static final String NDJSON = NdjsonStreams.APPLICATION_NDJSON_VALUE;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private RecordingStrategy strategy;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("Logbook не копирует тела загрузки и выгрузки NDJSON, а тело обычного запроса копирует")
+    void skipsNdjsonBodies() throws Exception {
+        send("POST", "/films", "application/json", "application/json",
+                "{\"name\": \"Солярис\", \"releaseDate\": \"1972-02-05\", \"duration\": 167}");
+        assertEquals("withBody", strategy.requests.get("POST /films"));
+        assertEquals("withBody", strategy.responses.get("POST /films"));
+
+        send("POST", "/films:import", NDJSON, "application/json",
+                "{\"name\": \"Сталкер\", \"releaseDate\": \"1979-05-25\", \"duration\": 161}\n");
+        assertEquals("withoutBody", strategy.requests.get("POST /films:import"), "Тело загрузки копируется");
+
+        String export = send("GET", "/films", null, NDJSON, null);
+        assertEquals(2, export.lines().count(), "Выгрузка неполная");
+        assertEquals("withoutBody", strategy.responses.get("GET /films"), "Тело выгрузки копируется");
+    }
+
+    private String send(String method, String path, String contentType, String accept, String body)
+            throws Exception {
+        java.net.http.HttpRequest.Builder request = java.net.http.HttpRequest
+                .newBuilder(URI.create("http://localhost:" + port + path))
+                .header("Accept", accept)
+                .method(method, body == null
+                        ? java.net.http.HttpRequest.BodyPublishers.noBody()
+                        : java.net.http.HttpRequest.BodyPublishers.ofString(body));
+        if (contentType != null) {
+            request.header("Content-Type", contentType);
+        }
+        java.net.http.HttpResponse<String> response = client.send(request.build(),
+                java.net.http.HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return response.body();
+    }
+
+    @TestConfiguration
+    static class StrategyConfig {
+        @Bean
+        @Primary
+        RecordingStrategy recordingStrategy(@Qualifier("logbookStrategy") Strategy logbookStrategy) {
+            return new RecordingStrategy(logbookStrategy);
+        }
+    }
+
+    // Стратегия приложения получает запрос и ответ Logbook через прокси, который запоминает, какой из методов
+    // withBody/withoutBody она вызвала
+    static class RecordingStrategy implements Strategy {
+        private final Strategy delegate;
+        private final Map<String, String> requests = new ConcurrentHashMap<>();
+        private final Map<String, String> responses = new ConcurrentHashMap<>();
+
+        RecordingStrategy(Strategy delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpRequest process(HttpRequest request) throws IOException {
+            return delegate.process(recording(HttpRequest.class, request, key(request), requests));
+        }
+
+        @Override
+        public HttpResponse process(HttpRequest request, HttpResponse response) throws IOException {
+            return delegate.process(request, recording(HttpResponse.class, response, key(request), responses));
+        }
+
+        private static String key(HttpRequest request) {
+            return request.getMethod() + " " + request.getPath();
+        }
+
+        private static <T> T recording(Class<T> type, T target, String key, Map<String, String> calls) {
+            return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+                    (proxy, method, args) -> {
+                        if (method.getName().equals("withBody") || method.getName().equals("withoutBody")) {
+                            calls.put(key, method.getName());
+                        }
+                        try {
+                            return method.invoke(target, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    }));
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.controller;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование потоковой выгрузки NDJSON")
+class NdjsonStreamsTest {
+
+    private static final int FILMS = 1_000_000;
+
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+
+    @Test
+    @DisplayName("Выгрузка миллиона фильмов пишется построчно по ходу обхода, а не после него")
+    void streamsMillionFilmsWithoutBuffering() throws Exception {
+        CountingOutputStream outputStream = new CountingOutputStream();
+        long[] bytesAtHalf = new long[1];
+
+        // Фильмы создаются на лету и сразу становятся мусором: если выгрузка не копит ответ,
+        // потребление памяти не зависит от их количества
+        Consumer<Consumer<Film>> source = action -> {
+            for (int i = 1; i <= FILMS; i++) {
+                if (i == FILMS / 2) {
+                    bytesAtHalf[0] = outputStream.bytes;
+                }
+                action.accept(film(i));
+            }
+        };
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long usedBefore = runtime.totalMemory() - runtime.freeMemory();
+
+        NdjsonStreams.stream(objectMapper, Film.class, source).writeTo(outputStream);
+
+        System.gc();
+        long usedAfter = runtime.totalMemory() - runtime.freeMemory();
+        assertEquals(FILMS, outputStream.lines, "Неправильное количество строк");
+        assertTrue(bytesAtHalf[0] > outputStream.bytes * 2 / 5,
+                "К середине обхода записано только " + bytesAtHalf[0] + " из " + outputStream.bytes + " байт");
+        assertTrue(usedAfter - usedBefore < outputStream.bytes,
+                "После выгрузки в куче осталось больше, чем весь её объём");
+    }
+
+    private static Film film(long id) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName("Фильм " + id);
+        film.setDescription("Описание фильма " + id);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(120);
+        return film;
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+
+        private long bytes;
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            bytes++;
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] buffer, int offset, int length) {
+            bytes += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+
+// Задержки успешных запросов одного клиента в наносекундах. Каждый клиент пишет только в свой экземпляр,
+// поэтому синхронизация не нужна; после прогона экземпляры сливаются в один и сортируются
+// (или сортируются через sort, если заполнялись после прогона).
+// Неуспешные запросы только считаются: быстрый отказ в соединении иначе занизил бы перцентили
+final class LatencyRecorder {
+
+    private long[] latencies = new long[1024];
+    private int count;
+    private long errors;
+    private String firstError;
+
+    void record(long nanos, String error) {
+        if (error != null) {
+            errors++;
+            if (firstError == null) {
+                firstError = error;
+            }
+            return;
+        }
+        if (count == latencies.length) {
+            latencies = Arrays.copyOf(latencies, count * 2);
+        }
+        latencies[count++] = nanos;
+    }
+
+    long count() {
+        return count;
+    }
+
+    long errors() {
+        return errors;
+    }
+
+    String firstError() {
+        return firstError;
+    }
+
+    long percentile(double quantile) {
+        if (count == 0) {
+            return 0;
+        }
+        return latencies[(int) Math.min(count - 1, Math.max(0, Math.ceil(quantile * count) - 1))];
+    }
+
+    void sort() {
+        Arrays.sort(latencies, 0, count);
+    }
+
+    static LatencyRecorder merge(LatencyRecorder[] recorders) {
+        LatencyRecorder merged = new LatencyRecorder();
+        int total = 0;
+        for (LatencyRecorder recorder : recorders) {
+            total += recorder.count;
+            merged.errors += recorder.errors;
+            if (merged.firstError == null) {
+                merged.firstError = recorder.firstError;
+            }
+        }
+        merged.latencies = new long[Math.max(1, total)];
+        for (LatencyRecorder recorder : recorders) {
+            System.arraycopy(recorder.latencies, 0, merged.latencies, merged.count, recorder.count);
+            merged.count += recorder.count;
+        }
+        Arrays.sort(merged.latencies, 0, merged.count);
+        return merged;
+    }
+}
@@ -0,0 +1,384 @@
+package ru.yandex.practicum.filmorate.load;
+
+import ru.yandex.practicum.filmorate.FilmorateApplication;
+import ru.yandex.practicum.filmorate.load.Workload.Endpoint;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.stream.Stream;
+
+// Нагрузочный прогон: для каждого режима сервера приложение запускается отдельным процессом, заполняется
+// синтетическим каталогом (SocialGraph) через API и получает смесь запросов из Workload. Сервер и клиенты
+// разнесены по процессам, потому что 10 000 соединений - это 20 000 дескрипторов на обе стороны.
+// Режимы: platform и virtual - Tomcat с пулом платформенных потоков или виртуальным потоком на запрос
+// (spring.threads.virtual.enabled), reactive - тот же API на WebFlux и Netty. В reactive нет загрузки NDJSON,
+// поэтому фильмы и пользователи создаются поштучно через POST.
+// Модели нагрузки:
+// - closed: clients клиентов в замкнутом цикле без пауз, следующий запрос - после ответа на предыдущий;
+// - open: запросы приходят пуассоновским потоком с частотой rate в секунду независимо от ответов, задержка
+//   считается от запланированного момента отправки. Медленный ответ не откладывает следующие запросы,
+//   поэтому перцентили не занижаются скоординированным пропуском. Если в полёте больше max-in-flight
+//   запросов, новый не отправляется и считается ошибкой. Последовательность запросов задана зерном
+//   и повторяется от прогона к прогону.
+// Параметры (key=value): modes=platform,virtual,reactive model=closed|open clients=1000,5000,10000
+// rates=500,1000,2000 max-in-flight=10000 warmup=10 duration=30 backend=memory|jdbc films=1000 users=10000
+// logging=off|on: по умолчанию журнал сервера приглушён до WARN, с on он работает с настройками приложения
+// Сервер запускается с -Djdk.tracePinnedThreads=short: каждое закрепление виртуального потока на несущем
+// (ожидание внутри synchronized) попадает в его лог и считается в колонке pinned
+public final class LoadTest {
+
+    private static final int FRIENDS_PER_USER = 5;
+    private static final int LIKES_PER_USER = 5;
+    private static final int SEED_CONCURRENCY = 100;
+    private static final long SEED = 42;
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        List<String> modes = List.of(options.getOrDefault("modes", "platform,virtual,reactive").split(","));
+        boolean open = "open".equals(options.getOrDefault("model", "closed"));
+        List<String> loads = open
+                ? List.of(options.getOrDefault("rates", "500,1000,2000").split(","))
+                : List.of(options.getOrDefault("clients", "1000,5000,10000").split(","));
+        Settings settings = new Settings(
+                open,
+                Integer.parseInt(options.getOrDefault("max-in-flight", "10000")),
+                Integer.parseInt(options.getOrDefault("warmup", "10")),
+                Integer.parseInt(options.getOrDefault("duration", "30")),
+                options.getOrDefault("backend", "memory"),
+                "on".equals(options.getOrDefault("logging", "off")),
+                new SocialGraph(Integer.parseInt(options.getOrDefault("films", "1000")),
+                        Integer.parseInt(options.getOrDefault("users", "10000"))));
+
+        List<Run> runs = new ArrayList<>();
+        for (String load : loads) {
+            for (String mode : modes) {
+                runs.add(run(mode, Integer.parseInt(load), settings));
+            }
+        }
+        print(runs, settings);
+    }
+
+    private static Run run(String mode, int load, Settings settings) throws Exception {
+        System.out.printf("Прогон: %s, %s - %d%n", mode, settings.open ? "запросов в секунду" : "клиентов", load);
+        int port = freePort();
+        Path serverLog = Path.of("target", "load-server-" + settings.backend + "-" + mode + "-" + load + ".log");
+        Files.createDirectories(serverLog.getParent());
+        int connections = settings.open ? settings.maxInFlight : load;
+        Process server = start(mode, connections, settings, port, serverLog);
+        try {
+            HttpClient httpClient = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(Executors.newVirtualThreadPerTaskExecutor())
+                    .build();
+            String base = "http://localhost:" + port;
+            awaitStarted(httpClient, base, server);
+            seed(httpClient, base, settings.graph, "reactive".equals(mode));
+            Workload workload = new Workload(base, settings.graph);
+            Map<Endpoint, LatencyRecorder> result = settings.open
+                    ? driveOpen(httpClient, workload, load, settings)
+                    : driveClosed(httpClient, workload, load, settings);
+            long pinned;
+            try (Stream<String> lines = Files.lines(serverLog)) {
+                pinned = lines.filter(line -> line.contains("<== monitors")).count();
+            }
+            return new Run(mode, load, result, pinned);
+        } finally {
+            server.destroy();
+            server.waitFor(30, TimeUnit.SECONDS);
+        }
+    }
+
+    // Очередь соединений Tomcat поднята выше числа одновременных запросов во всех режимах, поэтому режимы
+    // отличаются только исполнителем запросов: 200 платформенных потоков против виртуального потока на запрос.
+    // Netty в режиме reactive очередь соединений не ограничивает, настройки Tomcat на него не действуют
+    private static Process start(String mode, int connections, Settings settings, int port, Path serverLog)
+            throws IOException {
+        List<String> command = new ArrayList<>(List.of(
+                Path.of(System.getProperty("java.home"), "bin", "java").toString(),
+                "-Xmx2g",
+                "-Djdk.tracePinnedThreads=short",
+                "-cp", System.getProperty("java.class.path"),
+                FilmorateApplication.class.getName(),
+                "--server.port=" + port,
+                "--spring.threads.virtual.enabled=" + "virtual".equals(mode),
+                "--spring.main.web-application-type=" + ("reactive".equals(mode) ? "reactive" : "servlet"),
+                "--server.tomcat.max-connections=" + (connections + 1000),
+                "--server.tomcat.accept-count=" + connections,
+                "--spring.datasource.url=jdbc:h2:mem:load;DB_CLOSE_DELAY=-1"));
+        if (!settings.logging) {
+            command.add("--logging.level.root=WARN");
+            command.add("--logging.level.org.zalando.logbook=OFF");
+        }
+        if ("jdbc".equals(settings.backend)) {
+            command.add("--spring.profiles.active=jdbc");
+        }
+        return new ProcessBuilder(command)
+                .redirectErrorStream(true)
+                .redirectOutput(serverLog.toFile())
+                .start();
+    }
+
+    private static void awaitStarted(HttpClient httpClient, String base, Process server) throws Exception {
+        HttpRequest health = HttpRequest.newBuilder(URI.create(base + "/actuator/health")).build();
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(2);
+        while (System.nanoTime() < deadline) {
+            if (!server.isAlive()) {
+                throw new IllegalStateException("Сервер завершился при запуске, код " + server.exitValue());
+            }
+            try {
+                if (httpClient.send(health, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                    return;
+                }
+            } catch (IOException e) {
+                // Сервер ещё не слушает порт
+            }
+            Thread.sleep(200);
+        }
+        throw new IllegalStateException("Сервер не запустился за две минуты");
+    }
+
+    // Данные заливаются через API пакетами: фильмы и пользователи загрузкой NDJSON, лайки пакетом,
+    // дружба - отдельными запросами, для неё пакетного API нет. Поштучно фильмы и пользователи создаются
+    // по одному запросу за раз, чтобы id совпали с номером строки, как при загрузке
+    private static void seed(HttpClient httpClient, String base, SocialGraph graph, boolean oneByOne)
+            throws Exception {
+        List<String> films = new ArrayList<>();
+        for (int i = 0; i < graph.films; i++) {
+            films.add("{\"name\": \"Film " + i + "\", \"releaseDate\": \"" + LocalDate.of(2000, 1, 1).plusDays(i)
+                    + "\", \"duration\": 90}");
+        }
+        List<String> users = new ArrayList<>();
+        for (int i = 0; i < graph.users; i++) {
+            users.add("{\"email\": \"user" + i + "@mail.ru\", \"login\": \"user" + i
+                    + "\", \"birthday\": \"1990-01-01\"}");
+        }
+        if (oneByOne) {
+            for (String film : films) {
+                post(httpClient, base + "/films", "application/json", film);
+            }
+            for (String user : users) {
+                post(httpClient, base + "/users", "application/json", user);
+            }
+        } else {
+            post(httpClient, base + "/films:import", "application/x-ndjson", String.join("\n", films));
+            post(httpClient, base + "/users:import", "application/x-ndjson", String.join("\n", users));
+        }
+
+        Random random = new Random(SEED);
+        StringJoiner likes = new StringJoiner(",", "[", "]");
+        for (long[] like : graph.likes(random, graph.users * LIKES_PER_USER)) {
+            likes.add("{\"filmId\": " + like[0] + ", \"userId\": " + like[1] + ", \"op\": \"add\"}");
+        }
+        post(httpClient, base + "/films/likes:batch", "application/json", likes.toString());
+
+        try (ExecutorService executor = Executors.newFixedThreadPool(SEED_CONCURRENCY)) {
+            for (long[] friendship : graph.friendships(random, FRIENDS_PER_USER)) {
+                HttpRequest request = HttpRequest.newBuilder(
+                                URI.create(base + "/users/" + friendship[0] + "/friends/" + friendship[1]))
+                        .PUT(HttpRequest.BodyPublishers.noBody())
+                        .build();
+                executor.execute(() -> {
+                    try {
+                        httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+                    } catch (IOException | InterruptedException e) {
+                        throw new IllegalStateException("Не удалось добавить друга", e);
+                    }
+                });
+            }
+        }
+    }
+
+    private static void post(HttpClient httpClient, String uri, String contentType, String body) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(uri))
+                .header("Content-Type", contentType)
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        HttpResponse<String> response = httpClient.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(uri + " ответил " + response.statusCode() + ": " + response.body());
+        }
+    }
+
+    // Каждый клиент пишет в свои записи по видам запросов, после прогона они сливаются
+    private static Map<Endpoint, LatencyRecorder> driveClosed(HttpClient httpClient, Workload workload, int clients,
+                                                              Settings settings) {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmup);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(settings.duration);
+        Endpoint[] endpoints = Endpoint.values();
+        LatencyRecorder[][] recorders = new LatencyRecorder[endpoints.length][clients];
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < clients; i++) {
+                LatencyRecorder[] own = new LatencyRecorder[endpoints.length];
+                for (int e = 0; e < endpoints.length; e++) {
+                    own[e] = new LatencyRecorder();
+                    recorders[e][i] = own[e];
+                }
+                executor.execute(() -> {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    while (true) {
+                        Endpoint endpoint = workload.pick(random);
+                        HttpRequest request = workload.request(endpoint, random);
+                        long sent = System.nanoTime();
+                        if (sent >= measureTo) {
+                            return;
+                        }
+                        String error = send(httpClient, request);
+                        if (sent >= measureFrom) {
+                            own[endpoint.ordinal()].record(System.nanoTime() - sent, error);
+                        }
+                    }
+                });
+            }
+        }
+        Map<Endpoint, LatencyRecorder> result = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : endpoints) {
+            result.put(endpoint, LatencyRecorder.merge(recorders[endpoint.ordinal()]));
+        }
+        return result;
+    }
+
+    // Планировщик в одном потоке заранее знает момент каждой отправки и ждёт его, запрос уходит в отдельном
+    // виртуальном потоке. Запрос i пишет результат только в ячейку i, поэтому записи не пересекаются,
+    // а закрытие исполнителя делает их видимыми планировщику
+    private static Map<Endpoint, LatencyRecorder> driveOpen(HttpClient httpClient, Workload workload, int rate,
+                                                            Settings settings) {
+        Random random = new Random(SEED);
+        int capacity = (int) (rate * (settings.warmup + settings.duration) * 1.1) + 1000;
+        long[] planned = new long[capacity];
+        long[] latencies = new long[capacity];
+        Endpoint[] endpoints = new Endpoint[capacity];
+        String[] errors = new String[capacity];
+        Semaphore inFlight = new Semaphore(settings.maxInFlight);
+
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(settings.warmup);
+        long measureTo = measureFrom + TimeUnit.SECONDS.toNanos(settings.duration);
+        int issued = 0;
+        long next = start;
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            while (issued < capacity) {
+                next += (long) (-Math.log(1 - random.nextDouble()) / rate * 1e9);
+                if (next >= measureTo) {
+                    break;
+                }
+                Endpoint endpoint = workload.pick(random);
+                HttpRequest request = workload.request(endpoint, random);
+                for (long delay = next - System.nanoTime(); delay > 0; delay = next - System.nanoTime()) {
+                    LockSupport.parkNanos(delay);
+                }
+                int slot = issued++;
+                long plannedAt = next;
+                planned[slot] = plannedAt;
+                endpoints[slot] = endpoint;
+                if (!inFlight.tryAcquire()) {
+                    errors[slot] = "в полёте больше " + settings.maxInFlight + " запросов";
+                    continue;
+                }
+                executor.execute(() -> {
+                    try {
+                        errors[slot] = send(httpClient, request);
+                        latencies[slot] = System.nanoTime() - plannedAt;
+                    } finally {
+                        inFlight.release();
+                    }
+                });
+            }
+        }
+        Map<Endpoint, LatencyRecorder> result = new EnumMap<>(Endpoint.class);
+        for (Endpoint endpoint : Endpoint.values()) {
+            result.put(endpoint, new LatencyRecorder());
+        }
+        for (int slot = 0; slot < issued; slot++) {
+            if (planned[slot] >= measureFrom) {
+                result.get(endpoints[slot]).record(latencies[slot], errors[slot]);
+            }
+        }
+        result.values().forEach(LatencyRecorder::sort);
+        return result;
+    }
+
+    private static String send(HttpClient httpClient, HttpRequest request) {
+        try {
+            int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            return status < 400 ? null : "HTTP " + status;
+        } catch (IOException | InterruptedException e) {
+            return e.toString();
+        }
+    }
+
+    private static void print(List<Run> runs, Settings settings) {
+        System.out.printf("%nbackend = %s, model = %s, logging = %s, warmup = %d s, duration = %d s%n",
+                settings.backend, settings.open ? "open" : "closed", settings.logging ? "on" : "off",
+                settings.warmup, settings.duration);
+        System.out.printf("%-9s %8s %10s %10s %9s %9s %9s %8s %7s%n", "mode", settings.open ? "rate" : "clients",
+                "requests", "req/s", "p50, ms", "p99, ms", "p999, ms", "errors", "pinned");
+        for (Run run : runs) {
+            LatencyRecorder total = LatencyRecorder.merge(run.endpoints.values().toArray(LatencyRecorder[]::new));
+            System.out.printf("%-9s %8d %10d %10.0f %9.1f %9.1f %9.1f %8d %7d%n", run.mode, run.load, total.count(),
+                    total.count() / (double) settings.duration, millis(total, 0.50), millis(total, 0.99),
+                    millis(total, 0.999), total.errors(), run.pinned);
+        }
+        for (Run run : runs) {
+            System.out.printf("%n%s, %s = %d%n", run.mode, settings.open ? "rate" : "clients", run.load);
+            System.out.printf("%-42s %10s %9s %9s %9s %8s%n", "endpoint", "requests", "p50, ms", "p99, ms",
+                    "p999, ms", "errors");
+            String firstError = null;
+            for (Map.Entry<Endpoint, LatencyRecorder> entry : run.endpoints.entrySet()) {
+                LatencyRecorder recorder = entry.getValue();
+                System.out.printf("%-42s %10d %9.1f %9.1f %9.1f %8d%n", entry.getKey().title, recorder.count(),
+                        millis(recorder, 0.50), millis(recorder, 0.99), millis(recorder, 0.999), recorder.errors());
+                firstError = firstError != null ? firstError : recorder.firstError();
+            }
+            if (firstError != null) {
+                System.out.println("Первая ошибка: " + firstError);
+            }
+        }
+    }
+
+    private static double millis(LatencyRecorder recorder, double quantile) {
+        return recorder.percentile(quantile) / 1e6;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int separator = arg.indexOf('=');
+            if (separator < 0) {
+                throw new IllegalArgumentException("Параметр должен иметь вид key=value: " + arg);
+            }
+            options.put(arg.substring(0, separator), arg.substring(separator + 1));
+        }
+        return options;
+    }
+
+    private record Settings(boolean open, int maxInFlight, int warmup, int duration, String backend, boolean logging,
+                            SocialGraph graph) {
+    }
+
+    private record Run(String mode, int load, Map<Endpoint, LatencyRecorder> endpoints, long pinned) {
+    }
+}
@@ -0,0 +1,86 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Синтетический каталог для нагрузочного прогона. Дружба строится моделью предпочтительного присоединения
+// (Барабаши - Альберт): каждый новый пользователь дружит с friendsPerUser уже существующими, выбранными
+// с вероятностью, пропорциональной числу их друзей, поэтому степени распределены по степенному закону.
+// Популярность фильмов и активность пользователей - по Ципфу, ранг совпадает с id: первые фильмы самые
+// популярные, первые пользователи - самые активные и одновременно центры графа дружбы.
+// Всё выводится из зерна, поэтому каталог и последовательность запросов воспроизводимы
+final class SocialGraph {
+
+    private static final double FILM_EXPONENT = 1.0;
+    private static final double USER_EXPONENT = 0.8;
+
+    final int films;
+    final int users;
+    private final Zipf filmPopularity;
+    private final Zipf userActivity;
+
+    SocialGraph(int films, int users) {
+        this.films = films;
+        this.users = users;
+        this.filmPopularity = new Zipf(films, FILM_EXPONENT);
+        this.userActivity = new Zipf(users, USER_EXPONENT);
+    }
+
+    // Пары (id, friendId), каждая дружба один раз
+    List<long[]> friendships(Random random, int friendsPerUser) {
+        List<long[]> edges = new ArrayList<>(users * friendsPerUser);
+        // Концы всех рёбер подряд: равномерный выбор из этого списка - выбор пользователя пропорционально степени
+        long[] endpoints = new long[2 * users * friendsPerUser + friendsPerUser * (friendsPerUser + 1)];
+        int size = 0;
+        int seed = Math.min(users, friendsPerUser + 1);
+        for (long id = 1; id <= seed; id++) {
+            for (long friendId = id + 1; friendId <= seed; friendId++) {
+                edges.add(new long[]{id, friendId});
+                endpoints[size++] = id;
+                endpoints[size++] = friendId;
+            }
+        }
+        long[] chosen = new long[friendsPerUser];
+        for (long id = seed + 1; id <= users; id++) {
+            int count = 0;
+            while (count < friendsPerUser) {
+                long candidate = endpoints[random.nextInt(size)];
+                boolean repeated = false;
+                for (int i = 0; i < count; i++) {
+                    repeated |= chosen[i] == candidate;
+                }
+                if (!repeated) {
+                    chosen[count++] = candidate;
+                }
+            }
+            for (long friendId : chosen) {
+                edges.add(new long[]{friendId, id});
+                endpoints[size++] = friendId;
+                endpoints[size++] = id;
+            }
+        }
+        return edges;
+    }
+
+    // Пары (filmId, userId): фильм по популярности, пользователь равномерно
+    List<long[]> likes(Random random, int count) {
+        List<long[]> likes = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            likes.add(new long[]{popularFilm(random), 1 + random.nextInt(users)});
+        }
+        return likes;
+    }
+
+    long popularFilm(Random random) {
+        return filmPopularity.sample(random);
+    }
+
+    long activeUser(Random random) {
+        return userActivity.sample(random);
+    }
+
+    long anyUser(Random random) {
+        return 1 + random.nextInt(users);
+    }
+}
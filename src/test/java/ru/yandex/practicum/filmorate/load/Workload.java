@@ -0,0 +1,71 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.util.Random;
+
+// Смесь запросов нагрузочного прогона: доля каждого вида - в Endpoint.weight (в процентах).
+// Друзей и общих друзей смотрят и данные обновляют активные пользователи, лайки получают популярные фильмы
+final class Workload {
+
+    enum Endpoint {
+        POPULAR("GET /films/popular", 40),
+        LIKE("PUT /films/{id}/like/{userId}", 20),
+        FRIENDS("GET /users/{id}/friends", 20),
+        COMMON("GET /users/{id}/friends/common/{otherId}", 10),
+        UPDATE("PUT /users", 10);
+
+        final String title;
+        final int weight;
+
+        Endpoint(String title, int weight) {
+            this.title = title;
+            this.weight = weight;
+        }
+    }
+
+    private static final Endpoint[] ENDPOINTS = Endpoint.values();
+
+    private final String base;
+    private final SocialGraph graph;
+
+    Workload(String base, SocialGraph graph) {
+        this.base = base;
+        this.graph = graph;
+    }
+
+    Endpoint pick(Random random) {
+        int roll = random.nextInt(100);
+        for (Endpoint endpoint : ENDPOINTS) {
+            roll -= endpoint.weight;
+            if (roll < 0) {
+                return endpoint;
+            }
+        }
+        return ENDPOINTS[ENDPOINTS.length - 1];
+    }
+
+    HttpRequest request(Endpoint endpoint, Random random) {
+        long userId = graph.activeUser(random);
+        HttpRequest.Builder builder = switch (endpoint) {
+            case POPULAR -> HttpRequest.newBuilder(URI.create(base + "/films/popular?count=10")).GET();
+            case LIKE -> HttpRequest.newBuilder(URI.create(base + "/films/" + graph.popularFilm(random) + "/like/"
+                    + graph.anyUser(random))).PUT(HttpRequest.BodyPublishers.noBody());
+            case FRIENDS -> HttpRequest.newBuilder(URI.create(base + "/users/" + userId + "/friends")).GET();
+            case COMMON -> HttpRequest.newBuilder(URI.create(base + "/users/" + userId + "/friends/common/"
+                    + graph.anyUser(random))).GET();
+            case UPDATE -> HttpRequest.newBuilder(URI.create(base + "/users"))
+                    .header("Content-Type", "application/json")
+                    .PUT(HttpRequest.BodyPublishers.ofString(user(userId, "Пользователь " + random.nextInt())));
+        };
+        return builder.timeout(Duration.ofSeconds(60)).build();
+    }
+
+    // Пользователь с id загружается из строки id - 1, поэтому имейл и логин восстанавливаются по id
+    static String user(long id, String name) {
+        long index = id - 1;
+        return "{\"id\": " + id + ", \"email\": \"user" + index + "@mail.ru\", \"login\": \"user" + index
+                + "\", \"name\": \"" + name + "\", \"birthday\": \"1990-01-01\"}";
+    }
+}
@@ -0,0 +1,29 @@
+package ru.yandex.practicum.filmorate.load;
+
+import java.util.Arrays;
+import java.util.Random;
+
+// Распределение Ципфа на рангах 1..n: вероятность ранга k пропорциональна 1 / k^exponent.
+// Функция распределения считается один раз, выборка - двоичный поиск по ней
+final class Zipf {
+
+    private final double[] cdf;
+
+    Zipf(int n, double exponent) {
+        cdf = new double[n];
+        double sum = 0;
+        for (int k = 1; k <= n; k++) {
+            sum += 1 / Math.pow(k, exponent);
+            cdf[k - 1] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cdf[i] /= sum;
+        }
+    }
+
+    int sample(Random random) {
+        int index = Arrays.binarySearch(cdf, random.nextDouble());
+        int position = index >= 0 ? index : -index - 1;
+        return Math.min(cdf.length, position + 1);
+    }
+}
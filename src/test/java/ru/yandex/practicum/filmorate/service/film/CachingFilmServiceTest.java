@@ -0,0 +1,169 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование CachingFilmService")
+class CachingFilmServiceTest {
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private CachingFilmService service;
+
+    @AfterEach
+    void stop() {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Повторный запрос берётся из кэша, лайк делает запись устаревшей, а повторный лайк - нет")
+    void likeInvalidatesCachedEntries() {
+        service = cachingService(8, false);
+        Film first = service.createFilm(film("Первый"));
+        Film second = service.createFilm(film("Второй"));
+        User user = userStorage.createUser(user());
+
+        assertEquals(List.of(first, second), service.getPopularFilms(10));
+        assertEquals(List.of(first, second), service.getPopularFilms(10));
+        assertEquals(1, requests("hit"), "Второй запрос не попал в кэш");
+
+        service.addLike(second.getId(), user.getId());
+
+        assertEquals(List.of(second, first), service.getPopularFilms(10), "Кэш не учёл новый лайк");
+        assertEquals(2, requests("miss"));
+
+        service.addLike(second.getId(), user.getId());
+        service.deleteLike(first.getId(), user.getId());
+
+        assertEquals(List.of(second, first), service.getPopularFilms(10));
+        assertEquals(2, requests("hit"), "Ничего не изменившие лайки сбросили кэш");
+    }
+
+    @Test
+    @DisplayName("Кэш хранит не больше max-entries выдач и вытесняет давно не запрошенные")
+    void boundedByMaxEntries() {
+        service = cachingService(2, false);
+        service.createFilm(film("Первый"));
+
+        service.getPopularFilms(1);
+        service.getPopularFilms(2);
+        service.getPopularFilms(1);
+        service.getPopularFilms(3);
+        service.getPopularFilms(1);
+        service.getPopularFilms(2);
+
+        assertEquals(2, meterRegistry.get("filmorate.cache.popular.size").gauge().value());
+        assertEquals(2, requests("hit"), "Недавно запрошенная выдача вытеснена");
+        assertEquals(4, requests("miss"), "Давно не запрошенная выдача не вытеснена");
+    }
+
+    @Test
+    @DisplayName("С stale-while-revalidate устаревшая выдача отдаётся сразу и обновляется в фоне")
+    void staleWhileRevalidate() throws InterruptedException {
+        service = cachingService(8, true);
+        Film first = service.createFilm(film("Первый"));
+        Film second = service.createFilm(film("Второй"));
+        User user = userStorage.createUser(user());
+        service.getPopularFilms(10);
+
+        service.addLike(second.getId(), user.getId());
+
+        assertEquals(List.of(first, second), service.getPopularFilms(10), "Не отдана устаревшая выдача");
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!service.getPopularFilms(10).equals(List.of(second, first)) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(List.of(second, first), service.getPopularFilms(10), "Выдача не обновилась в фоне");
+        assertEquals(1, requests("miss"));
+    }
+
+    @Test
+    @DisplayName("Много устаревших чтений ставят один фоновый пересчёт на версию")
+    void staleReadsRefreshOncePerVersion() throws InterruptedException {
+        AtomicInteger computations = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+        FilmService delegate = new FilmServiceImpl(filmStorage, userStorage, new TrendingFilms(Duration.ZERO)) {
+            @Override
+            public List<Film> getPopularFilms(int count) {
+                if (computations.incrementAndGet() == 2) {
+                    try {
+                        release.await();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                return super.getPopularFilms(count);
+            }
+        };
+        service = new CachingFilmService(delegate, meterRegistry, 8, true);
+        Film first = service.createFilm(film("Первый"));
+        Film second = service.createFilm(film("Второй"));
+        User user = userStorage.createUser(user());
+        service.getPopularFilms(10);
+
+        service.addLike(second.getId(), user.getId());
+        for (int i = 0; i < 1000; i++) {
+            service.getPopularFilms(10);
+        }
+        release.countDown();
+        awaitPopular(List.of(second, first));
+        assertEquals(2, computations.get(), "Устаревшие чтения поставили лишние пересчёты");
+
+        service.deleteLike(second.getId(), user.getId());
+        service.addLike(first.getId(), user.getId());
+        for (int i = 0; i < 1000; i++) {
+            service.getPopularFilms(10);
+        }
+        awaitPopular(List.of(first, second));
+        assertEquals(3, computations.get(), "Пересчёт на новую версию выполнен не один раз");
+    }
+
+    private void awaitPopular(List<Film> expected) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!service.getPopularFilms(10).equals(expected) && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        assertEquals(expected, service.getPopularFilms(10), "Выдача не обновилась в фоне");
+    }
+
+    private CachingFilmService cachingService(int maxEntries, boolean staleWhileRevalidate) {
+        return new CachingFilmService(new FilmServiceImpl(filmStorage, userStorage, new TrendingFilms(Duration.ZERO)),
+                meterRegistry, maxEntries, staleWhileRevalidate);
+    }
+
+    private double requests(String result) {
+        return meterRegistry.get("filmorate.cache.popular.requests").tag("result", result).counter().count();
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setEmail("user@mail.ru");
+        user.setLogin("user");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
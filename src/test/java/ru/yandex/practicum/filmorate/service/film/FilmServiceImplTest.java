@@ -0,0 +1,130 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.LikeResult;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование FilmServiceImpl")
+class FilmServiceImplTest {
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final FilmServiceImpl service = new FilmServiceImpl(filmStorage, userStorage,
+            new TrendingFilms(Duration.ZERO));
+
+    @Test
+    @DisplayName("Пакет лайков возвращает результат по каждой операции в порядке запроса")
+    void applyLikesReturnsResultPerOperation() {
+        Film film = filmStorage.createFilm(film());
+        User user = userStorage.createUser(user());
+
+        List<LikeResult> results = service.applyLikes(List.of(
+                new LikeOperation(film.getId(), user.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(-1L, user.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(film.getId(), -1L, LikeOperation.Op.ADD),
+                new LikeOperation(film.getId(), user.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(film.getId(), user.getId(), LikeOperation.Op.DELETE)));
+
+        assertEquals(List.of(
+                new LikeResult(film.getId(), user.getId(), LikeResult.Status.APPLIED),
+                new LikeResult(-1L, user.getId(), LikeResult.Status.FILM_NOT_FOUND),
+                new LikeResult(film.getId(), -1L, LikeResult.Status.USER_NOT_FOUND),
+                new LikeResult(film.getId(), user.getId(), LikeResult.Status.UNCHANGED),
+                new LikeResult(film.getId(), user.getId(), LikeResult.Status.APPLIED)), results);
+    }
+
+    @Test
+    @DisplayName("Операция без op отклоняет весь пакет")
+    void applyLikesRejectsIncompleteOperation() {
+        Film film = filmStorage.createFilm(film());
+        User user = userStorage.createUser(user());
+
+        assertThrows(ValidationException.class, () -> service.applyLikes(List.of(
+                new LikeOperation(film.getId(), user.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(film.getId(), user.getId(), null))));
+        assertEquals(List.of(new LikeResult(film.getId(), user.getId(), LikeResult.Status.APPLIED)),
+                service.applyLikes(List.of(new LikeOperation(film.getId(), user.getId(), LikeOperation.Op.ADD))),
+                "Отклонённый пакет применился частично");
+    }
+
+    @Test
+    @DisplayName("Лайкнутые фильмы пользователя отдаются по возрастанию id и исчезают после снятия всех лайков")
+    void getLikedFilmsFollowsUserLikes() {
+        Film first = filmStorage.createFilm(film());
+        Film second = film();
+        second.setName("Другой фильм");
+        filmStorage.createFilm(second);
+        User user = userStorage.createUser(user());
+        service.addLike(second.getId(), user.getId());
+        service.addLike(first.getId(), user.getId());
+
+        assertEquals(List.of(first, second), service.getLikedFilms(user.getId()));
+        assertEquals(2, service.deleteUserLikes(user.getId()));
+        assertEquals(List.of(), service.getLikedFilms(user.getId()));
+        assertThrows(NotFoundException.class, () -> service.getLikedFilms(-1L));
+    }
+
+    @Test
+    @DisplayName("В тренды попадают только изменившие что-то лайки и их снятие, неизвестное окно отклоняется")
+    void trendingCountsOnlyChangedLikes() {
+        TrendingFilms trending = new TrendingFilms(Duration.ZERO);
+        FilmServiceImpl trendingService = new FilmServiceImpl(filmStorage, userStorage, trending);
+        Film first = filmStorage.createFilm(film());
+        Film second = film();
+        second.setName("Другой фильм");
+        filmStorage.createFilm(second);
+        User user = userStorage.createUser(user());
+        User other = user();
+        other.setEmail("other@mail.ru");
+        userStorage.createUser(other);
+
+        trendingService.addLike(first.getId(), user.getId());
+        trendingService.addLike(first.getId(), user.getId());
+        trendingService.deleteLike(second.getId(), user.getId());
+        trendingService.applyLikes(List.of(
+                new LikeOperation(second.getId(), user.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(second.getId(), other.getId(), LikeOperation.Op.ADD)));
+        trending.rotate();
+
+        assertEquals(List.of(second, first), trendingService.getTrendingFilms("1h", 10));
+        assertEquals(List.of(second), trendingService.getTrendingFilms("7d", 1));
+
+        trendingService.deleteUserLikes(other.getId());
+        trending.rotate();
+        assertEquals(List.of(first, second), trendingService.getTrendingFilms("1h", 10),
+                "Снятие всех лайков пользователя не учтено в трендах");
+        assertThrows(ValidationException.class, () -> trendingService.getTrendingFilms("2h", 10));
+        assertThrows(ValidationException.class, () -> trendingService.getTrendingFilms("24h", 0));
+    }
+
+    private static Film film() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setEmail("user@mail.ru");
+        user.setLogin("user");
+        user.setName("Имя");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
@@ -0,0 +1,59 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование ReactiveFilmServiceImpl")
+class ReactiveFilmServiceImplTest {
+
+    private static final int FILMS = 5_500;
+
+    private final AtomicInteger pagesRead = new AtomicInteger();
+    private final FilmServiceImpl filmService = new FilmServiceImpl(new InMemoryFilmStorage(),
+            new InMemoryUserStorage(), new TrendingFilms(Duration.ZERO)) {
+        @Override
+        public Page<Film> getFilmsPage(long after, int limit) {
+            pagesRead.incrementAndGet();
+            return super.getFilmsPage(after, limit);
+        }
+    };
+    private final ReactiveFilmService reactiveService = new ReactiveFilmServiceImpl(filmService);
+
+    @Test
+    @DisplayName("Поток всех фильмов читает страницы хранилища по мере спроса")
+    void filmsListReadsPagesOnDemand() {
+        for (int i = 0; i < FILMS; i++) {
+            filmService.createFilm(film(i));
+        }
+
+        List<Film> firstFilms = reactiveService.getFilmsList().take(1500).collectList().block();
+
+        assertEquals(1500, firstFilms.size());
+        assertTrue(pagesRead.get() <= 3, "Прочитано страниц: " + pagesRead.get());
+
+        pagesRead.set(0);
+        List<Film> allFilms = reactiveService.getFilmsList().collectList().block();
+
+        assertEquals(filmService.getFilmsList(), allFilms, "Поток вернул не все фильмы или не по порядку");
+        assertEquals(6, pagesRead.get());
+    }
+
+    private static Film film(int i) {
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        return film;
+    }
+}
@@ -0,0 +1,100 @@
+package ru.yandex.practicum.filmorate.service.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование TrendingFilms")
+class TrendingFilmsTest {
+
+    private final MutableClock clock = new MutableClock();
+    private final TrendingFilms trending = new TrendingFilms(clock, Duration.ZERO);
+
+    @Test
+    @DisplayName("Лайки уходят из окна по мере того, как окно сдвигается")
+    void likesLeaveWindowOverTime() {
+        like(1, 3);
+        like(2, 1);
+        clock.advance(Duration.ofHours(2));
+        like(2, 3);
+        trending.rotate();
+
+        assertArrayEquals(new long[]{2}, trending.top(TrendingWindow.HOUR, 10));
+        assertArrayEquals(new long[]{2, 1}, trending.top(TrendingWindow.DAY, 10));
+        assertArrayEquals(new long[]{2}, trending.top(TrendingWindow.DAY, 1));
+
+        clock.advance(Duration.ofDays(2));
+        trending.rotate();
+        assertArrayEquals(new long[0], trending.top(TrendingWindow.DAY, 10));
+        assertArrayEquals(new long[]{2, 1}, trending.top(TrendingWindow.WEEK, 10));
+
+        clock.advance(Duration.ofDays(6));
+        trending.rotate();
+        assertArrayEquals(new long[0], trending.top(TrendingWindow.WEEK, 10));
+    }
+
+    @Test
+    @DisplayName("Снятый лайк вычитается, фильм без лайков за окно не попадает в тренды, при равенстве выше меньший id")
+    void unlikesAreSubtracted() {
+        like(3, 2);
+        like(2, 2);
+        like(1, 1);
+        trending.record(1, -1);
+        trending.rotate();
+
+        assertArrayEquals(new long[]{2, 3}, trending.top(TrendingWindow.HOUR, 10));
+    }
+
+    @Test
+    @DisplayName("Корзины, пропущенные ротацией, обнуляются, а лайки текущей корзины сохраняются")
+    void rotationCatchesUpAfterPause() {
+        like(1, 5);
+        trending.rotate();
+        clock.advance(Duration.ofMinutes(17));
+        like(2, 1);
+        trending.rotate();
+        clock.advance(Duration.ofMinutes(50));
+        like(3, 1);
+        trending.rotate();
+
+        assertArrayEquals(new long[]{2, 3}, trending.top(TrendingWindow.HOUR, 10));
+        assertArrayEquals(new long[]{1, 2, 3}, trending.top(TrendingWindow.DAY, 10));
+    }
+
+    private void like(long filmId, int times) {
+        for (int i = 0; i < times; i++) {
+            trending.record(filmId, 1);
+        }
+    }
+
+    private static final class MutableClock extends Clock {
+
+        private Instant now = Instant.parse("2024-05-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
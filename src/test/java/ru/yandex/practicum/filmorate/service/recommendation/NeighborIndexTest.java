@@ -0,0 +1,84 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование таблицы соседей NeighborIndex")
+class NeighborIndexTest {
+
+    private static final int USERS = 20_000;
+    private static final int GROUPS = 200;
+    private static final int FILMS_PER_GROUP = 30;
+
+    @Test
+    @DisplayName("Соседи по LSH почти так же похожи, как точные лучшие соседи, и их сходство посчитано точно")
+    void neighborsCloseToExact() {
+        Random random = new Random(17);
+        long[] userIds = new long[USERS];
+        long[][] likes = new long[USERS][];
+        for (int i = 0; i < USERS; i++) {
+            userIds[i] = i + 1;
+            likes[i] = tasteOf(i % GROUPS, random);
+        }
+        NeighborIndex index = NeighborIndex.build(userIds, likes, new ForkJoinPool(2));
+
+        double found = 0;
+        double exact = 0;
+        for (int i = 0; i < USERS; i += 97) {
+            NeighborIndex.Neighbors neighbors = index.neighbors(userIds[i], likes[i]);
+            for (int j = 0; j < neighbors.userIds().length; j++) {
+                long neighbor = neighbors.userIds()[j];
+                assertNotEquals(userIds[i], neighbor, "Пользователь попал в собственные соседи");
+                assertEquals(NeighborIndex.jaccard(likes[i], likes[(int) neighbor - 1]), neighbors.similarities()[j]);
+                assertTrue(j == 0 || neighbors.similarities()[j - 1] >= neighbors.similarities()[j],
+                        "Соседи не упорядочены по сходству");
+                found += neighbors.similarities()[j];
+            }
+            exact += exactTopSimilarity(i, likes);
+        }
+        assertTrue(found >= 0.9 * exact, "Сходство найденных соседей " + found + " против точного " + exact);
+    }
+
+    @Test
+    @DisplayName("Пользователь не из снимка получает соседей по текущим лайкам")
+    void neighborsForUnknownUser() {
+        long[][] likes = {{1, 2, 3}, {1, 2, 3, 4}, {7, 8}};
+        NeighborIndex index = NeighborIndex.build(new long[]{1, 2, 3}, likes, new ForkJoinPool(1));
+
+        NeighborIndex.Neighbors neighbors = index.neighbors(10, new long[]{1, 2, 3});
+
+        assertArrayEquals(new long[]{1, 2}, neighbors.userIds());
+        assertArrayEquals(new float[]{1f, 0.75f}, neighbors.similarities());
+        assertEquals(0, index.neighbors(11, new long[0]).userIds().length);
+        assertArrayEquals(new long[]{7, 8}, index.likes(3));
+    }
+
+    // Вкусы пользователя: 6 случайных фильмов своей группы и 1 фильм из общего каталога
+    private static long[] tasteOf(int group, Random random) {
+        long[] taste = new long[7];
+        for (int i = 0; i < 6; i++) {
+            taste[i] = (long) group * FILMS_PER_GROUP + random.nextInt(FILMS_PER_GROUP) + 1;
+        }
+        taste[6] = GROUPS * FILMS_PER_GROUP + random.nextInt(1_000) + 1;
+        return Arrays.stream(taste).distinct().sorted().toArray();
+    }
+
+    private static double exactTopSimilarity(int user, long[][] likes) {
+        float[] similarities = new float[likes.length];
+        for (int other = 0; other < likes.length; other++) {
+            similarities[other] = other == user ? 0 : NeighborIndex.jaccard(likes[user], likes[other]);
+        }
+        Arrays.sort(similarities);
+        double sum = 0;
+        for (int i = 0; i < NeighborIndex.NEIGHBORS; i++) {
+            sum += similarities[similarities.length - 1 - i];
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,154 @@
+package ru.yandex.practicum.filmorate.service.recommendation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование RecommendationServiceImpl")
+class RecommendationServiceImplTest {
+
+    private final InMemoryFilmStorage filmStorage = new InMemoryFilmStorage();
+    private final InMemoryUserStorage userStorage = new InMemoryUserStorage();
+    private final RecommendationServiceImpl service =
+            new RecommendationServiceImpl(filmStorage, userStorage, Duration.ZERO, 1);
+
+    @AfterEach
+    void stop() {
+        service.stop();
+    }
+
+    @Test
+    @DisplayName("Рекомендуются фильмы похожих пользователей, которые сам пользователь ещё не лайкал")
+    void recommendsFilmsOfSimilarUsers() {
+        List<Long> films = createFilms(6);
+        User alice = userStorage.createUser(user("alice@mail.ru"));
+        User bob = userStorage.createUser(user("bob@mail.ru"));
+        User carol = userStorage.createUser(user("carol@mail.ru"));
+        like(alice, films, 0, 1, 2);
+        like(bob, films, 0, 1, 2, 3);
+        like(carol, films, 4, 5);
+        service.rebuild();
+
+        assertEquals(List.of(films.get(3)), ids(service.getRecommendations(alice.getId(), 10)));
+        assertTrue(service.getRecommendations(bob.getId(), 10).isEmpty(), "Bob уже лайкнул всё, что лайкала Alice");
+        assertTrue(service.getRecommendations(carol.getId(), 10).isEmpty(), "У Carol нет похожих пользователей");
+    }
+
+    @Test
+    @DisplayName("Новый пользователь получает рекомендации до перестройки снимка")
+    void newLikesAreUsedBeforeRebuild() {
+        List<Long> films = createFilms(5);
+        User alice = userStorage.createUser(user("alice@mail.ru"));
+        User bob = userStorage.createUser(user("bob@mail.ru"));
+        like(alice, films, 0, 1, 2);
+        like(bob, films, 0, 1, 2, 3);
+        service.rebuild();
+
+        User dave = userStorage.createUser(user("dave@mail.ru"));
+        assertTrue(service.getRecommendations(dave.getId(), 10).isEmpty(), "Без лайков рекомендовать нечего");
+        like(dave, films, 0, 1);
+
+        assertEquals(List.of(films.get(2), films.get(3)), ids(service.getRecommendations(dave.getId(), 10)));
+        assertEquals(List.of(films.get(2)), ids(service.getRecommendations(dave.getId(), 1)));
+        like(dave, films, 2);
+        assertEquals(List.of(films.get(3)), ids(service.getRecommendations(dave.getId(), 10)),
+                "Только что лайкнутый фильм не должен рекомендоваться");
+    }
+
+    @Test
+    @DisplayName("Вызов, заставший идущую перестройку, дожидается её окончания и не запускает вторую")
+    void concurrentRebuildWaitsForRunning() throws Exception {
+        AtomicInteger passes = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        InMemoryFilmStorage blockingStorage = new InMemoryFilmStorage() {
+            @Override
+            public void forEachUserLikes(BiConsumer<Long, long[]> action) {
+                passes.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.forEachUserLikes(action);
+            }
+        };
+        RecommendationServiceImpl blockingService =
+                new RecommendationServiceImpl(blockingStorage, userStorage, Duration.ZERO, 1);
+        try {
+            CompletableFuture<Void> first = CompletableFuture.runAsync(blockingService::rebuild);
+            assertTrue(started.await(5, TimeUnit.SECONDS), "Перестройка не началась");
+            CompletableFuture<Void> second = CompletableFuture.runAsync(blockingService::rebuild);
+
+            TimeUnit.MILLISECONDS.sleep(100);
+            assertFalse(second.isDone(), "Вызов вернулся, не дождавшись идущей перестройки");
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+            assertEquals(1, passes.get(), "Вторая перестройка запущена одновременно с первой");
+        } finally {
+            release.countDown();
+            blockingService.stop();
+        }
+    }
+
+    @Test
+    @DisplayName("Неверный limit и несуществующий пользователь отклоняются")
+    void validatesRequest() {
+        User alice = userStorage.createUser(user("alice@mail.ru"));
+
+        assertThrows(ValidationException.class, () -> service.getRecommendations(alice.getId(), 0));
+        assertThrows(ValidationException.class, () -> service.getRecommendations(alice.getId(), 101));
+        assertThrows(NotFoundException.class, () -> service.getRecommendations(alice.getId() + 1, 10));
+    }
+
+    private List<Long> createFilms(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000 + i, 1, 1));
+            film.setDuration(100);
+            ids.add(filmStorage.createFilm(film).getId());
+        }
+        return ids;
+    }
+
+    private void like(User user, List<Long> films, int... positions) {
+        for (int position : positions) {
+            filmStorage.addLike(films.get(position), user.getId());
+        }
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(email.substring(0, email.indexOf('@')));
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+}
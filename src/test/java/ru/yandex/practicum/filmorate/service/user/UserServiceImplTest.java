@@ -0,0 +1,80 @@
+package ru.yandex.practicum.filmorate.service.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Page;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование UserServiceImpl")
+class UserServiceImplTest {
+
+    private UserService userService;
+
+    @BeforeEach
+    void init() {
+        userService = new UserServiceImpl(new InMemoryUserStorage());
+    }
+
+    @Test
+    @DisplayName("Пользователь может обновить данные, оставив свой имейл")
+    void updateUserKeepsOwnEmail() {
+        User user = userService.createUser(user("lubov@mail.ru", "lubov"));
+
+        User newUser = user("lubov@mail.ru", "lubov_new");
+        newUser.setId(user.getId());
+
+        assertEquals("lubov_new", userService.updateUser(newUser).getLogin());
+    }
+
+    @Test
+    @DisplayName("Должен выкинуть ошибку, если имейл занят другим пользователем")
+    void updateUserRejectsForeignEmail() {
+        userService.createUser(user("lubov@mail.ru", "lubov"));
+        User other = userService.createUser(user("other@mail.ru", "other"));
+
+        User newUser = user("lubov@mail.ru", "other");
+        newUser.setId(other.getId());
+
+        assertThrows(DuplicatedDataException.class, () -> userService.updateUser(newUser));
+    }
+
+    @Test
+    @DisplayName("Постраничная выдача по курсору проходит всех пользователей по порядку id ровно один раз")
+    void getUsersPageWalksAllUsers() {
+        for (int i = 0; i < 7; i++) {
+            userService.createUser(user("user" + i + "@mail.ru", "user" + i));
+        }
+
+        List<Long> ids = new ArrayList<>();
+        Long cursor = 0L;
+        int pages = 0;
+        while (cursor != null) {
+            Page<User> page = userService.getUsersPage(cursor, 3);
+            page.items().forEach(user -> ids.add(user.getId()));
+            cursor = page.nextCursor();
+            pages++;
+        }
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), ids);
+        assertEquals(3, pages, "Неправильное количество страниц");
+        assertThrows(ValidationException.class, () -> userService.getUsersPage(0, 0));
+    }
+
+    private static User user(String email, String login) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
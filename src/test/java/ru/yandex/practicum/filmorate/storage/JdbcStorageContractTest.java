@@ -0,0 +1,46 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.JdbcTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.jdbc.JdbcTestUtils;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.JdbcFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.JdbcUserStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+@JdbcTest
+@ActiveProfiles("jdbc")
+@Import({JdbcFilmStorage.class, JdbcUserStorage.class})
+@DisplayName("Общие проверки хранилищ в базе данных")
+class JdbcStorageContractTest extends StorageContractTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private JdbcFilmStorage filmStorage;
+
+    @Autowired
+    private JdbcUserStorage userStorage;
+
+    // Тесты объявлены в базовом классе, и транзакция @JdbcTest их не оборачивает - чистим таблицы сами
+    @BeforeEach
+    void cleanDatabase() {
+        JdbcTestUtils.deleteFromTables(jdbcTemplate, "likes", "friendships", "films", "users");
+    }
+
+    @Override
+    protected FilmStorage filmStorage() {
+        return filmStorage;
+    }
+
+    @Override
+    protected UserStorage userStorage() {
+        return userStorage;
+    }
+}
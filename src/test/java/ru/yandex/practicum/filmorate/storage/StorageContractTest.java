@@ -0,0 +1,352 @@
+package ru.yandex.practicum.filmorate.storage;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FriendSuggestion;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Общие проверки для всех реализаций хранилищ: в памяти и в базе данных должны вести себя одинаково
+public abstract class StorageContractTest {
+
+    protected abstract FilmStorage filmStorage();
+
+    protected abstract UserStorage userStorage();
+
+    @Test
+    @DisplayName("Созданный фильм получает id и находится по названию и дате выхода")
+    void createFilmAndFindByNaturalKey() {
+        Film film = filmStorage().createFilm(film("Солярис", 1972));
+
+        assertTrue(film.getId() > 0, "Фильму не присвоен id");
+        assertTrue(filmStorage().containsFilmById(film.getId()), "Фильм не найден по id");
+        assertTrue(filmStorage().existByNameAndReleaseDate(film("Солярис", 1972)), "Фильм не найден по ключу");
+        assertEquals(Optional.of(film.getId()),
+                filmStorage().findByNameAndReleaseDate(film("Солярис", 1972)).map(Film::getId));
+        assertThrows(DuplicatedDataException.class, () -> filmStorage().createFilm(film("Солярис", 1972)),
+                "Добавлен дубликат фильма");
+    }
+
+    @Test
+    @DisplayName("Обновлённый фильм находится по новому ключу")
+    void updateFilmChangesNaturalKey() {
+        Film film = filmStorage().createFilm(film("Сталкер", 1979));
+        Film newFilm = film("Зеркало", 1975);
+        newFilm.setId(film.getId());
+
+        Film updated = filmStorage().updateFilm(newFilm);
+
+        assertEquals("Зеркало", updated.getName(), "Название не обновилось");
+        assertFalse(filmStorage().existByNameAndReleaseDate(film("Сталкер", 1979)), "Остался старый ключ");
+        assertTrue(filmStorage().existByNameAndReleaseDate(film("Зеркало", 1975)), "Не найден новый ключ");
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы упорядочены по убыванию лайков, при равенстве - по id")
+    void popularFilmsOrderedByLikes() {
+        Film first = filmStorage().createFilm(film("Первый", 2001));
+        Film second = filmStorage().createFilm(film("Второй", 2002));
+        Film third = filmStorage().createFilm(film("Третий", 2003));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+
+        filmStorage().addLike(second.getId(), alice.getId());
+        filmStorage().addLike(second.getId(), bob.getId());
+        filmStorage().addLike(second.getId(), bob.getId());
+        filmStorage().addLike(third.getId(), alice.getId());
+        filmStorage().addLike(first.getId(), bob.getId());
+        filmStorage().deleteLike(first.getId(), bob.getId());
+
+        assertEquals(List.of(second.getId(), third.getId(), first.getId()),
+                ids(filmStorage().getPopularFilms(10)), "Неправильный порядок фильмов");
+        assertEquals(List.of(second.getId()), ids(filmStorage().getPopularFilms(1)));
+    }
+
+    @Test
+    @DisplayName("Пакет лайков применяется по порядку внутри фильма и сообщает, что изменилось")
+    void applyLikesInOrder() {
+        Film first = filmStorage().createFilm(film("Первый", 2001));
+        Film second = filmStorage().createFilm(film("Второй", 2002));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        filmStorage().addLike(first.getId(), bob.getId());
+
+        boolean[] changed = filmStorage().applyLikes(List.of(
+                new LikeOperation(second.getId(), alice.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(first.getId(), alice.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(second.getId(), alice.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(first.getId(), bob.getId(), LikeOperation.Op.DELETE),
+                new LikeOperation(second.getId(), bob.getId(), LikeOperation.Op.DELETE),
+                new LikeOperation(second.getId(), bob.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(first.getId(), alice.getId(), LikeOperation.Op.DELETE)));
+
+        assertArrayEquals(new boolean[]{true, true, false, true, false, true, true}, changed);
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmStorage().getPopularFilms(10)),
+                "Индекс популярности не учёл пакет");
+        assertEquals(Set.of(first.getId()), filmStorage().findExistingIds(List.of(first.getId(), -1L)));
+        assertEquals(Set.of(alice.getId(), bob.getId()),
+                userStorage().findExistingIds(List.of(alice.getId(), bob.getId(), 100_000L)));
+    }
+
+    @Test
+    @DisplayName("Пакетное добавление пропускает занятые ключи и присваивает id только добавленным")
+    void createInBatches() {
+        Film existing = filmStorage().createFilm(film("Солярис", 1972));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+
+        List<Film> films = List.of(film("Сталкер", 1979), film("Солярис", 1972), film("Зеркало", 1975),
+                film("Сталкер", 1979));
+        boolean[] filmsCreated = filmStorage().createFilms(films);
+        List<User> users = List.of(user("bob@mail.ru"), user(" ALICE@mail.ru"), user("Bob@Mail.ru"));
+        boolean[] usersCreated = userStorage().createUsers(users);
+
+        assertArrayEquals(new boolean[]{true, false, true, false}, filmsCreated);
+        assertEquals(List.of(existing.getId(), films.get(0).getId(), films.get(2).getId()),
+                ids(filmStorage().getFilmsList()), "Добавлены не те фильмы");
+        assertTrue(films.get(0).getId() > existing.getId() && films.get(2).getId() > films.get(0).getId());
+        assertEquals(Optional.of(films.get(2).getId()),
+                filmStorage().findByNameAndReleaseDate(film("Зеркало", 1975)).map(Film::getId));
+        assertArrayEquals(new boolean[]{true, false, false}, usersCreated);
+        assertEquals(List.of(alice.getId(), users.get(0).getId()), userIds(userStorage().getUserList()));
+    }
+
+    @Test
+    @DisplayName("Страницы фильмов идут по возрастанию id, обход возвращает все фильмы")
+    void filmsPageAndForEach() {
+        List<Long> created = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            created.add(filmStorage().createFilm(film("Фильм " + i, 2000 + i)).getId());
+        }
+
+        assertEquals(created.subList(0, 2), ids(filmStorage().getFilmsPage(0, 2)));
+        assertEquals(created.subList(2, 4), ids(filmStorage().getFilmsPage(created.get(1), 2)));
+        List<Long> visited = new ArrayList<>();
+        filmStorage().forEachFilm(film -> visited.add(film.getId()));
+        assertEquals(created, visited, "Обход вернул не все фильмы");
+        assertEquals(created, ids(filmStorage().getFilmsList()));
+    }
+
+    @Test
+    @DisplayName("Лайки пользователя читаются по обратному индексу и меняются вместе с лайками фильма")
+    void likesByUser() {
+        Film first = filmStorage().createFilm(film("Первый", 2001));
+        Film second = filmStorage().createFilm(film("Второй", 2002));
+        Film third = filmStorage().createFilm(film("Третий", 2003));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        User carol = userStorage().createUser(user("carol@mail.ru"));
+
+        filmStorage().addLike(third.getId(), alice.getId());
+        filmStorage().addLike(first.getId(), alice.getId());
+        filmStorage().applyLikes(List.of(
+                new LikeOperation(second.getId(), alice.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(second.getId(), bob.getId(), LikeOperation.Op.ADD),
+                new LikeOperation(third.getId(), alice.getId(), LikeOperation.Op.DELETE)));
+        filmStorage().addLike(first.getId(), carol.getId());
+        filmStorage().deleteLike(first.getId(), carol.getId());
+
+        assertArrayEquals(new long[]{first.getId(), second.getId()}, filmStorage().getLikedFilmIds(alice.getId()));
+        assertArrayEquals(new long[0], filmStorage().getLikedFilmIds(carol.getId()));
+        List<Long> visited = new ArrayList<>();
+        filmStorage().forEachUserLikes((userId, filmIds) -> {
+            visited.add(userId);
+            assertArrayEquals(filmStorage().getLikedFilmIds(userId), filmIds);
+        });
+        assertEquals(List.of(alice.getId(), bob.getId()), visited, "Обход должен пропустить пользователя без лайков");
+        assertEquals(List.of(third.getId(), first.getId()),
+                ids(filmStorage().findFilmsByIds(List.of(third.getId(), -1L, first.getId()))));
+    }
+
+    @Test
+    @DisplayName("Все лайки пользователя снимаются разом, лайки других пользователей и популярность сохраняются")
+    void deleteUserLikes() {
+        Film first = filmStorage().createFilm(film("Первый", 2001));
+        Film second = filmStorage().createFilm(film("Второй", 2002));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        filmStorage().addLike(first.getId(), alice.getId());
+        filmStorage().addLike(second.getId(), alice.getId());
+        filmStorage().addLike(second.getId(), bob.getId());
+
+        assertArrayEquals(new long[]{first.getId(), second.getId()}, filmStorage().deleteUserLikes(alice.getId()));
+        assertArrayEquals(new long[0], filmStorage().deleteUserLikes(alice.getId()));
+
+        assertArrayEquals(new long[0], filmStorage().getLikedFilmIds(alice.getId()));
+        assertArrayEquals(new long[]{second.getId()}, filmStorage().getLikedFilmIds(bob.getId()));
+        assertEquals(1, filmStorage().countLikes());
+        assertEquals(List.of(second.getId(), first.getId()), ids(filmStorage().getPopularFilms(2)));
+    }
+
+    @Test
+    @DisplayName("Поиск находит фильмы со всеми словами запроса, последнее - и по началу слова, и видит изменения")
+    void searchFilms() {
+        Film matrix = filmStorage().createFilm(film("Матрица", 1999, "Хакер узнаёт правду о реальности"));
+        Film reloaded = filmStorage().createFilm(film("Матрица: Перезагрузка", 2003, "Хакер возвращается"));
+        Film trees = filmStorage().createFilm(film("Ёлки", 2010, "Новогодняя комедия"));
+
+        assertEquals(Set.of(matrix.getId(), reloaded.getId()),
+                Set.copyOf(ids(filmStorage().searchFilms("матр", 10, false))));
+        assertEquals(List.of(reloaded.getId()), ids(filmStorage().searchFilms("матрица перезаг", 10, false)));
+        assertEquals(List.of(trees.getId()), ids(filmStorage().searchFilms("ЕЛКИ", 10, false)));
+        assertEquals(List.of(), filmStorage().searchFilms("матрица комедия", 10, false));
+        assertEquals(1, filmStorage().searchFilms("хакер", 1, false).size());
+
+        Film update = film("Ёлки", 2010, "Новогодняя комедия про хакеров");
+        update.setId(trees.getId());
+        filmStorage().updateFilm(update);
+        assertEquals(Set.of(matrix.getId(), reloaded.getId(), trees.getId()),
+                Set.copyOf(ids(filmStorage().searchFilms("хакер", 10, false))));
+        assertEquals(List.of(), filmStorage().searchFilms("комедия новогодняя ёлки матрица", 10, false));
+
+        User user = userStorage().createUser(user("alice@mail.ru"));
+        filmStorage().addLike(reloaded.getId(), user.getId());
+        assertEquals(List.of(reloaded.getId(), matrix.getId()),
+                ids(filmStorage().searchFilms("матрица", 10, true)));
+    }
+
+    @Test
+    @DisplayName("Имейл ищется без учёта регистра и пробелов, занятый имейл отклоняется")
+    void emailLookupIgnoresCase() {
+        User user = userStorage().createUser(user("Lubov@Mail.ru"));
+
+        assertTrue(userStorage().containsUserById(user.getId()), "Пользователь не найден по id");
+        assertTrue(userStorage().existByEmail(" lubov@mail.RU "), "Имейл не найден");
+        assertEquals(Optional.of(user.getId()), userStorage().findIdByEmail("LUBOV@MAIL.RU"));
+        assertThrows(DuplicatedDataException.class, () -> userStorage().createUser(user("lubov@mail.ru")),
+                "Создан пользователь с занятым имейлом");
+    }
+
+    @Test
+    @DisplayName("Дружба взаимна, общие друзья возвращаются по возрастанию id")
+    void friendsAndCommonFriends() {
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        User carol = userStorage().createUser(user("carol@mail.ru"));
+        User dave = userStorage().createUser(user("dave@mail.ru"));
+
+        userStorage().addFriend(alice.getId(), carol.getId());
+        userStorage().addFriend(alice.getId(), dave.getId());
+        userStorage().addFriend(bob.getId(), dave.getId());
+        userStorage().addFriend(bob.getId(), carol.getId());
+        userStorage().addFriend(bob.getId(), carol.getId());
+
+        assertEquals(List.of(carol.getId(), dave.getId()), userIds(userStorage().getFriendsList(alice.getId())));
+        assertEquals(List.of(alice.getId(), bob.getId()), userIds(userStorage().getFriendsList(carol.getId())));
+        assertEquals(List.of(carol.getId(), dave.getId()),
+                userIds(userStorage().getCommonFriendsList(alice.getId(), bob.getId())));
+
+        userStorage().deleteFriend(carol.getId(), alice.getId());
+
+        assertEquals(List.of(dave.getId()), userIds(userStorage().getFriendsList(alice.getId())));
+        assertEquals(List.of(bob.getId()), userIds(userStorage().getFriendsList(carol.getId())));
+    }
+
+    @Test
+    @DisplayName("Повторное, встречное добавление и дружба с собой не создают лишних строк")
+    void addFriendIsIdempotent() {
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+
+        userStorage().addFriend(alice.getId(), bob.getId());
+        userStorage().addFriend(bob.getId(), alice.getId());
+        userStorage().addFriend(alice.getId(), alice.getId());
+        userStorage().addFriend(alice.getId(), alice.getId());
+
+        assertEquals(List.of(alice.getId(), bob.getId()), userIds(userStorage().getFriendsList(alice.getId())));
+        assertEquals(List.of(alice.getId()), userIds(userStorage().getFriendsList(bob.getId())));
+    }
+
+    @Test
+    @DisplayName("Рекомендации упорядочены по числу общих друзей и не содержат самого пользователя и его друзей")
+    void friendSuggestionsRankedByMutualFriends() {
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        User carol = userStorage().createUser(user("carol@mail.ru"));
+        User dave = userStorage().createUser(user("dave@mail.ru"));
+        User erin = userStorage().createUser(user("erin@mail.ru"));
+        User frank = userStorage().createUser(user("frank@mail.ru"));
+
+        userStorage().addFriend(alice.getId(), bob.getId());
+        userStorage().addFriend(alice.getId(), carol.getId());
+        userStorage().addFriend(bob.getId(), carol.getId());
+        userStorage().addFriend(bob.getId(), dave.getId());
+        userStorage().addFriend(carol.getId(), dave.getId());
+        userStorage().addFriend(carol.getId(), frank.getId());
+        userStorage().addFriend(bob.getId(), erin.getId());
+
+        List<FriendSuggestion> suggestions = userStorage().getFriendSuggestions(alice.getId(), 10);
+
+        assertEquals(List.of(dave.getId(), erin.getId(), frank.getId()),
+                suggestions.stream().map(suggestion -> suggestion.user().getId()).toList());
+        assertEquals(List.of(2, 1, 1), suggestions.stream().map(FriendSuggestion::mutualFriends).toList());
+        assertTrue(suggestions.stream().noneMatch(FriendSuggestion::approximate), "Точный счёт помечен приблизительным");
+        assertEquals("dave", suggestions.get(0).user().getLogin());
+        assertEquals(1, userStorage().getFriendSuggestions(alice.getId(), 1).size());
+        assertTrue(userStorage().getFriendSuggestions(frank.getId() + 100, 10).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Размеры хранилищ считают сущности, лайки, пары друзей и самое большое множество связей")
+    void countsForMetrics() {
+        Film first = filmStorage().createFilm(film("Первый", 2001));
+        Film second = filmStorage().createFilm(film("Второй", 2002));
+        User alice = userStorage().createUser(user("alice@mail.ru"));
+        User bob = userStorage().createUser(user("bob@mail.ru"));
+        User carol = userStorage().createUser(user("carol@mail.ru"));
+
+        filmStorage().addLike(first.getId(), alice.getId());
+        filmStorage().addLike(first.getId(), bob.getId());
+        filmStorage().addLike(second.getId(), carol.getId());
+        userStorage().addFriend(alice.getId(), bob.getId());
+        userStorage().addFriend(alice.getId(), carol.getId());
+
+        assertEquals(2, filmStorage().countFilms());
+        assertEquals(3, filmStorage().countLikes());
+        assertEquals(2, filmStorage().maxLikesPerFilm());
+        assertEquals(3, userStorage().countUsers());
+        assertEquals(2, userStorage().countFriendships(), "Дружба посчитана дважды");
+        assertEquals(2, userStorage().maxFriendsPerUser());
+    }
+
+    private static Film film(String name, int year) {
+        return film(name, year, "Описание");
+    }
+
+    private static Film film(String name, int year, String description) {
+        Film film = new Film();
+        film.setName(name);
+        film.setDescription(description);
+        film.setReleaseDate(LocalDate.of(year, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin(email.substring(0, email.indexOf('@')));
+        user.setName("Имя");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    private static List<Long> ids(List<Film> films) {
+        return films.stream().map(Film::getId).toList();
+    }
+
+    private static List<Long> userIds(List<User> users) {
+        return users.stream().map(User::getId).toList();
+    }
+}
@@ -0,0 +1,60 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование счётчика IdCounter")
+class IdCounterTest {
+
+    @Test
+    @DisplayName("Счёт и лучшие id совпадают с подсчётом через HashMap, исключённые id пропускаются")
+    void matchesHashMap() {
+        Random random = new Random(3);
+        IdCounter counter = new IdCounter(4);
+        IdCounter other = new IdCounter(4);
+        Map<Long, Integer> expected = new HashMap<>();
+
+        for (int i = 0; i < 50_000; i++) {
+            long id = 1 + random.nextInt(5_000);
+            (i % 2 == 0 ? counter : other).increment(id);
+            expected.merge(id, 1, Integer::sum);
+        }
+        counter.addAll(other);
+
+        assertEquals(expected.size(), counter.size(), "Неправильное число ключей");
+        for (long id = 1; id <= 5_000; id++) {
+            assertEquals(expected.getOrDefault(id, 0), counter.get(id), "Неправильный счёт id = " + id);
+        }
+        long[] top = expected.entrySet().stream()
+                .filter(entry -> entry.getKey() % 7 != 0)
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()))
+                .limit(100)
+                .mapToLong(Map.Entry::getKey)
+                .toArray();
+        assertArrayEquals(top, counter.top(100, id -> id % 7 == 0));
+        assertEquals(0, counter.top(0, id -> false).length);
+        assertEquals(expected.size(), counter.top(10_000, id -> false).length);
+    }
+
+    @Test
+    @DisplayName("Выборка из множества берёт limit элементов через равные промежутки")
+    void forEachSampleStrides() {
+        for (IdSetType type : IdSetType.values()) {
+            IdSet ids = type.create();
+            for (long id = 1; id <= 1_000; id++) {
+                ids.add(id);
+            }
+            List<Long> sample = new ArrayList<>();
+            ids.forEachSample(10, 3, sample::add);
+            assertEquals(List.of(4L, 104L, 204L, 304L, 404L, 504L, 604L, 704L, 804L, 904L), sample, type.name());
+
+            List<Long> all = new ArrayList<>();
+            ids.forEachSample(5_000, 0, all::add);
+            assertEquals(1_000, all.size(), "Множество меньше limit обходится целиком");
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package ru.yandex.practicum.filmorate.storage.edge;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование представлений связей IdSet")
+class IdSetTest {
+
+    private static final int SETS = 1_000;
+    private static final int EDGES_PER_SET = 50;
+
+    @Test
+    @DisplayName("SortedArrayIdSet ведёт себя как HashSet на случайной последовательности операций")
+    void sortedArrayMatchesHashSet() {
+        Random random = new Random(7);
+        IdSet ids = new SortedArrayIdSet();
+        Set<Long> expected = new HashSet<>();
+
+        for (int i = 0; i < 100_000; i++) {
+            long id = random.nextInt(500);
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(id), ids.remove(id), "Неправильный результат remove");
+            } else {
+                assertEquals(expected.add(id), ids.add(id), "Неправильный результат add");
+            }
+            assertEquals(expected.size(), ids.size(), "Неправильный размер");
+        }
+
+        long[] sorted = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+        assertArrayEquals(sorted, ids.toArray(), "Элементы не совпадают или не упорядочены");
+        for (long id = 0; id < 500; id++) {
+            assertEquals(expected.contains(id), ids.contains(id), "Неправильный результат contains");
+        }
+    }
+
+    @Test
+    @DisplayName("Пересечение отсортированных массивов совпадает с retainAll при любом соотношении размеров")
+    void forEachCommonMatchesRetainAll() {
+        Random random = new Random(11);
+        int[][] sizes = {{0, 10}, {50, 50}, {50, 100_000}, {100_000, 50}, {3_000, 20_000}};
+        for (int[] pair : sizes) {
+            IdSet first = randomSet(IdSetType.SORTED_ARRAY, pair[0], random);
+            IdSet second = randomSet(IdSetType.SORTED_ARRAY, pair[1], random);
+            IdSet boxedSecond = IdSetType.BOXED.create();
+            second.forEach(boxedSecond::add);
+
+            Set<Long> expected = toSet(first);
+            expected.retainAll(toSet(second));
+
+            List<Long> common = new ArrayList<>();
+            first.forEachCommon(second, common::add);
+            assertEquals(expected, new HashSet<>(common), "Неправильное пересечение " + Arrays.toString(pair));
+            assertEquals(expected.size(), common.size(), "Повторы в пересечении " + Arrays.toString(pair));
+
+            List<Long> mixed = new ArrayList<>();
+            first.forEachCommon(boxedSecond, mixed::add);
+            assertEquals(expected, new HashSet<>(mixed), "Неправильное пересечение с BoxedIdSet");
+        }
+    }
+
+    @Test
+    @Tag("heavy")
+    @DisplayName("SortedArrayIdSet занимает на связь в несколько раз меньше памяти, чем HashSet<Long>")
+    void sortedArrayUsesLessMemoryPerEdge() {
+        double sortedArray = bytesPerEdge(IdSetType.SORTED_ARRAY);
+        double boxed = bytesPerEdge(IdSetType.BOXED);
+
+        assertTrue(sortedArray < 16, "Отсортированный массив тратит на связь " + sortedArray + " байт");
+        assertTrue(sortedArray * 3 < boxed, "Выигрыш по памяти меньше трёх раз: SORTED_ARRAY = " + sortedArray
+                + " байт, BOXED = " + boxed + " байт");
+    }
+
+    private static IdSet randomSet(IdSetType type, int size, Random random) {
+        IdSet ids = type.create();
+        while (ids.size() < size) {
+            ids.add(random.nextInt(200_000));
+        }
+        return ids;
+    }
+
+    private static Set<Long> toSet(IdSet ids) {
+        Set<Long> set = new HashSet<>();
+        ids.forEach(set::add);
+        return set;
+    }
+
+    private static double bytesPerEdge(IdSetType type) {
+        Random random = new Random(42);
+        List<IdSet> sets = new ArrayList<>(SETS);
+        for (int i = 0; i < SETS; i++) {
+            IdSet ids = type.create();
+            while (ids.size() < EDGES_PER_SET) {
+                ids.add(random.nextInt(1_000_000));
+            }
+            sets.add(ids);
+        }
+        return (double) GraphLayout.parseInstance(sets.toArray()).totalSize() / (SETS * EDGES_PER_SET);
+    }
+}
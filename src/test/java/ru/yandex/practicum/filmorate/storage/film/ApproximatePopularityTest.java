@@ -0,0 +1,114 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+// Каталог из 200 000 фильмов и 2 000 000 лайков строится долго, поэтому класс целиком в группе heavy.
+// В обычной сборке порядок приближённого индекса проверяет InMemoryFilmStorageTest
+@Tag("heavy")
+@DisplayName("Тестирование ApproximatePopularity")
+class ApproximatePopularityTest {
+
+    private static final int FILMS = 200_000;
+    private static final int LIKES = 2_000_000;
+    private static final int UNLIKES = 200_000;
+
+    private static ApproximatePopularity approximate;
+    private static int[] likes;
+    // id фильмов по убыванию истинного числа лайков, при равенстве - по возрастанию id
+    private static long[] exactOrder;
+
+    // Лайки по закону Ципфа с показателем 1, потом часть из них снимается
+    @BeforeAll
+    static void feedZipfianLikes() {
+        double[] cdf = new double[FILMS];
+        double sum = 0;
+        for (int k = 1; k <= FILMS; k++) {
+            sum += 1.0 / k;
+            cdf[k - 1] = sum;
+        }
+        Random random = new Random(42);
+        // Ранги перемешаны с id, чтобы популярные фильмы не шли подряд
+        int[] filmByRank = IntStream.rangeClosed(1, FILMS).toArray();
+        for (int i = FILMS - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = filmByRank[i];
+            filmByRank[i] = filmByRank[j];
+            filmByRank[j] = swap;
+        }
+        approximate = new ApproximatePopularity();
+        likes = new int[FILMS + 1];
+        for (int i = 0; i < LIKES + UNLIKES; i++) {
+            int index = Arrays.binarySearch(cdf, random.nextDouble() * sum);
+            int film = filmByRank[Math.min(FILMS - 1, index >= 0 ? index : -index - 1)];
+            if (i < LIKES) {
+                approximate.update(film, likes[film], ++likes[film]);
+            } else if (likes[film] > 0) {
+                approximate.update(film, likes[film], --likes[film]);
+            }
+        }
+        exactOrder = IntStream.rangeClosed(1, FILMS).boxed()
+                .sorted(Comparator.<Integer>comparingInt(film -> likes[film]).reversed()
+                        .thenComparingInt(film -> film))
+                .mapToLong(Integer::longValue)
+                .toArray();
+    }
+
+    @Test
+    @DisplayName("Оценка не меньше истины и превышает её больше чем на errorBound не чаще, чем в e^-DEPTH случаев")
+    void estimatesStayWithinErrorBound() {
+        long bound = approximate.errorBound();
+        int exceeded = 0;
+        for (int film = 1; film <= FILMS; film++) {
+            long estimate = approximate.estimate(film);
+            assertTrue(estimate >= likes[film], "Оценка меньше истины для фильма " + film);
+            if (estimate - likes[film] > bound) {
+                exceeded++;
+            }
+        }
+        assertTrue(exceeded <= FILMS * Math.exp(-ApproximatePopularity.DEPTH),
+                "Граница ошибки " + bound + " превышена у " + exceeded + " фильмов из " + FILMS);
+    }
+
+    @Test
+    @DisplayName("Первая десятка совпадает с точной, в первой сотне фильм отстаёт от своего места не больше чем на errorBound")
+    void topMatchesExactWithinErrorBound() {
+        long bound = approximate.errorBound();
+        List<Long> top = approximate.top(100);
+
+        assertEquals(100, top.size());
+        assertEquals(Arrays.stream(exactOrder, 0, 10).boxed().toList(), top.subList(0, 10));
+        for (int i = 0; i < top.size(); i++) {
+            int film = top.get(i).intValue();
+            long expected = likes[(int) exactOrder[i]];
+            assertTrue(likes[film] >= expected - bound, "На месте " + (i + 1) + " фильм с " + likes[film]
+                    + " лайками вместо " + expected);
+        }
+    }
+
+    @Test
+    @DisplayName("Приближённый индекс занимает фиксированную память, в разы меньше точного")
+    void usesLessMemoryThanExactIndex() {
+        PopularityIndex exact = new PopularityIndex();
+        for (int film = 1; film <= FILMS; film++) {
+            exact.add(film);
+            exact.update(film, 0, likes[film]);
+        }
+        long exactBytes = GraphLayout.parseInstance(exact).totalSize();
+        long approximateBytes = GraphLayout.parseInstance(approximate).totalSize();
+
+        assertTrue(approximateBytes * 3 < exactBytes, "Выигрыш по памяти меньше трёх раз: EXACT = " + exactBytes
+                + " байт, APPROXIMATE = " + approximateBytes + " байт");
+    }
+}
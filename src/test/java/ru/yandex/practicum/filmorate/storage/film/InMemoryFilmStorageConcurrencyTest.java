@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Нагрузочная проверка InMemoryFilmStorage из нескольких потоков")
+class InMemoryFilmStorageConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int FILMS_PER_THREAD = 500;
+    private static final int LIKED_FILMS = 20;
+    private static final int USERS_PER_THREAD = 200;
+
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+
+    @Test
+    @DisplayName("Параллельное добавление фильмов выдаёт уникальные id")
+    void createFilmAssignsUniqueIds() throws Exception {
+        List<Future<List<Long>>> results = runInThreads(thread -> {
+            List<Long> ids = new ArrayList<>();
+            for (int i = 0; i < FILMS_PER_THREAD; i++) {
+                ids.add(storage.createFilm(film("Фильм " + thread + "-" + i)).getId());
+            }
+            return ids;
+        });
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<List<Long>> result : results) {
+            ids.addAll(result.get());
+        }
+        assertEquals(THREADS * FILMS_PER_THREAD, ids.size(), "Есть повторяющиеся id");
+        assertEquals(THREADS * FILMS_PER_THREAD, storage.getFilmsList().size(), "Потеряны фильмы");
+    }
+
+    @Test
+    @DisplayName("Параллельные лайки и их удаление дают точное количество лайков")
+    void likesAreNotLost() throws Exception {
+        for (int i = 0; i < LIKED_FILMS; i++) {
+            storage.createFilm(film("Фильм " + i));
+        }
+
+        // Каждый поток ставит лайки от своих пользователей всем фильмам, потом снимает лайки у половины
+        // пользователей и повторно ставит часть уже поставленных лайков
+        List<Future<List<Long>>> results = runInThreads(thread -> {
+            long firstUser = (long) thread * USERS_PER_THREAD;
+            for (long userId = firstUser; userId < firstUser + USERS_PER_THREAD; userId++) {
+                for (long filmId = 1; filmId <= LIKED_FILMS; filmId++) {
+                    storage.addLike(filmId, userId);
+                }
+            }
+            for (long userId = firstUser; userId < firstUser + USERS_PER_THREAD; userId += 2) {
+                for (long filmId = 1; filmId <= LIKED_FILMS; filmId++) {
+                    storage.deleteLike(filmId, userId);
+                    storage.addLike(filmId, userId + 1);
+                }
+            }
+            return List.of();
+        });
+        for (Future<List<Long>> result : results) {
+            result.get();
+        }
+
+        int expectedLikes = THREADS * USERS_PER_THREAD / 2;
+        for (long filmId = 1; filmId <= LIKED_FILMS; filmId++) {
+            assertEquals(expectedLikes, storage.getLikesCount(filmId), "Неправильное количество лайков");
+        }
+        List<Film> popular = storage.getPopularFilms(LIKED_FILMS);
+        assertEquals(LIKED_FILMS, popular.size(), "Индекс популярности разошёлся с лайками");
+        assertEquals(LIKED_FILMS, new HashSet<>(popular).size(), "Фильм попал в индекс дважды");
+    }
+
+    private <T> List<Future<T>> runInThreads(ThreadTask<T> task) throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                int thread = i;
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return task.run(thread);
+                }));
+            }
+            start.countDown();
+            return futures;
+        } finally {
+            executor.shutdown();
+            assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Потоки не завершились");
+        }
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    private interface ThreadTask<T> {
+        T run(int thread) throws Exception;
+    }
+}
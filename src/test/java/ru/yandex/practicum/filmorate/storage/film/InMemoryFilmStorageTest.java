@@ -0,0 +1,151 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.openjdk.jol.info.GraphLayout;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.LikeOperation;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование InMemoryFilmStorage")
+class InMemoryFilmStorageTest {
+
+    private InMemoryFilmStorage storage;
+
+    @BeforeEach
+    void init() {
+        storage = new InMemoryFilmStorage();
+    }
+
+    @Test
+    @DisplayName("Популярные фильмы упорядочены по убыванию лайков, фильмы без лайков идут в конце")
+    void getPopularFilmsOrdersByLikes() {
+        Film first = storage.createFilm(film("Первый"));
+        Film second = storage.createFilm(film("Второй"));
+        Film third = storage.createFilm(film("Третий"));
+
+        storage.addLike(second.getId(), 1);
+        storage.addLike(second.getId(), 2);
+        storage.addLike(third.getId(), 1);
+
+        List<Film> popular = storage.getPopularFilms(10);
+        assertEquals(List.of(second, third, first), popular, "Неправильный порядок фильмов");
+    }
+
+    @Test
+    @DisplayName("В приближённом режиме порядок тот же, фильмы вне рейтинга добираются по возрастанию id")
+    void approximatePopularityKeepsOrder() {
+        InMemoryFilmStorage approximate = new InMemoryFilmStorage(IdSetType.SORTED_ARRAY, PopularityMode.APPROXIMATE);
+        Film first = approximate.createFilm(film("Первый"));
+        Film second = approximate.createFilm(film("Второй"));
+        Film third = approximate.createFilm(film("Третий"));
+
+        approximate.addLike(third.getId(), 1);
+        approximate.addLike(third.getId(), 2);
+        approximate.addLike(second.getId(), 1);
+        approximate.addLike(second.getId(), 2);
+        approximate.addLike(second.getId(), 3);
+        approximate.deleteLike(second.getId(), 3);
+        approximate.deleteLike(second.getId(), 2);
+
+        assertEquals(List.of(third, second, first), approximate.getPopularFilms(10));
+        assertEquals(List.of(third), approximate.getPopularFilms(1));
+        assertEquals(2, approximate.maxLikesPerFilm());
+    }
+
+    @Test
+    @DisplayName("Удаление и повторная постановка лайка меняет позицию фильма")
+    void getPopularFilmsReflectsDeletedLikes() {
+        Film first = storage.createFilm(film("Первый"));
+        Film second = storage.createFilm(film("Второй"));
+
+        storage.addLike(first.getId(), 1);
+        storage.addLike(first.getId(), 1);
+        storage.addLike(second.getId(), 1);
+        storage.addLike(second.getId(), 2);
+        storage.deleteLike(second.getId(), 1);
+        storage.deleteLike(second.getId(), 1);
+        storage.deleteLike(second.getId(), 2);
+
+        assertEquals(List.of(first), storage.getPopularFilms(1), "Неправильный самый популярный фильм");
+        assertEquals(2, storage.getPopularFilms(10).size(), "Неправильное количество фильмов");
+    }
+
+    @Test
+    @Tag("heavy")
+    @DisplayName("Лайк в обоих направлениях на отсортированных массивах занимает в разы меньше памяти, чем на HashSet")
+    void likeIndexMemoryPerLike() {
+        double sortedArray = bytesPerLike(IdSetType.SORTED_ARRAY);
+        double boxed = bytesPerLike(IdSetType.BOXED);
+
+        assertTrue(sortedArray < 40, "Оба направления тратят на лайк " + sortedArray + " байт");
+        assertTrue(sortedArray * 3 < boxed, "Выигрыш по памяти меньше трёх раз: SORTED_ARRAY = " + sortedArray
+                + " байт, BOXED = " + boxed + " байт");
+    }
+
+    @Test
+    @DisplayName("Фильм находится по названию и дате выхода, повторное добавление отклоняется")
+    void findByNameAndReleaseDate() {
+        Film film = storage.createFilm(film("Первый"));
+
+        assertTrue(storage.existByNameAndReleaseDate(film("Первый")), "Фильм не найден");
+        assertEquals(Optional.of(film), storage.findByNameAndReleaseDate(film("Первый")));
+        assertThrows(DuplicatedDataException.class, () -> storage.createFilm(film("Первый")),
+                "Добавлен дубликат фильма");
+    }
+
+    @Test
+    @DisplayName("При смене названия фильм ищется по новому ключу, старый ключ освобождается")
+    void updateFilmMovesNaturalKey() {
+        Film film = storage.createFilm(film("Первый"));
+        Film newFilm = film("Новый");
+        newFilm.setId(film.getId());
+
+        storage.updateFilm(newFilm);
+
+        assertFalse(storage.existByNameAndReleaseDate(film("Первый")), "Старый ключ остался занят");
+        assertEquals(film.getId(), storage.findByNameAndReleaseDate(film("Новый")).orElseThrow().getId());
+        assertEquals(2L, storage.createFilm(film("Первый")).getId(), "Старый ключ не освободился");
+    }
+
+    private static Film film(String name) {
+        Film film = new Film();
+        film.setName(name);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(100);
+        return film;
+    }
+
+    // Разница размера хранилища до и после лайков: обе стороны связи вместе с записями в картах
+    // и индексом популярности, но без самих фильмов
+    private static double bytesPerLike(IdSetType type) {
+        int films = 2_000;
+        int users = 20_000;
+        int likesPerUser = 10;
+        InMemoryFilmStorage storage = new InMemoryFilmStorage(type);
+        for (int i = 0; i < films; i++) {
+            storage.createFilm(film("Фильм " + i));
+        }
+        long before = GraphLayout.parseInstance(storage).totalSize();
+        Random random = new Random(42);
+        List<LikeOperation> operations = new ArrayList<>();
+        for (long userId = 1; userId <= users; userId++) {
+            for (int i = 0; i < likesPerUser; i++) {
+                operations.add(new LikeOperation(1L + random.nextInt(films), userId, LikeOperation.Op.ADD));
+            }
+        }
+        storage.applyLikes(operations);
+        return (double) (GraphLayout.parseInstance(storage).totalSize() - before) / storage.countLikes();
+    }
+}
@@ -0,0 +1,81 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование MeteredFilmStorage")
+class MeteredFilmStorageTest {
+
+    private static final int FILMS = 1_000;
+    private static final int CALLS = 2_000_000;
+    private static final int ROUNDS = 5;
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final InMemoryFilmStorage storage = new InMemoryFilmStorage();
+    private final FilmStorage metered = new MeteredFilmStorage(storage, registry);
+
+    @Test
+    @DisplayName("Вызовы замеряются таймером своего метода, размеры публикуются датчиками")
+    void recordsCallsAndSizes() {
+        Film film = metered.createFilm(film(0));
+        metered.containsFilmById(film.getId());
+        metered.containsFilmById(film.getId() + 1);
+
+        Timer contains = registry.get("filmorate.storage.calls")
+                .tags("storage", "film", "method", "containsFilmById").timer();
+        Timer create = registry.get("filmorate.storage.calls").tags("storage", "film", "method", "createFilm").timer();
+        assertEquals(2, contains.count());
+        assertEquals(1, create.count());
+        assertEquals(1.0, registry.get("filmorate.storage.films").gauge().value());
+        assertEquals(0.0, registry.get("filmorate.storage.adjacency.max").tag("relation", "likes").gauge().value());
+    }
+
+    // Сравниваются лучшие из нескольких прогонов, чтобы паузы сборщика и JIT не попали в разницу
+    @Test
+    @Tag("heavy")
+    @DisplayName("Замер добавляет к вызову хранилища меньше микросекунды")
+    void overheadBelowOneMicrosecond() {
+        for (int i = 0; i < FILMS; i++) {
+            storage.createFilm(film(i));
+        }
+        long direct = Long.MAX_VALUE;
+        long measured = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            direct = Math.min(direct, run(storage));
+            measured = Math.min(measured, run(metered));
+        }
+
+        double overheadNanos = (measured - direct) / (double) CALLS;
+        assertTrue(overheadNanos < 1_000, "Накладные расходы на вызов, нс: " + overheadNanos);
+    }
+
+    private static long run(FilmStorage filmStorage) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < CALLS; i++) {
+            if (filmStorage.containsFilmById(1 + i % (FILMS * 2))) {
+                found++;
+            }
+        }
+        long elapsed = System.nanoTime() - start;
+        assertEquals(CALLS / 2, found);
+        return elapsed;
+    }
+
+    private static Film film(int i) {
+        Film film = new Film();
+        film.setName("Фильм " + i);
+        film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+        film.setDuration(100);
+        return film;
+    }
+}
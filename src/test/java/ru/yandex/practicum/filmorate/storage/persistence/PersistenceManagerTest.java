@@ -0,0 +1,270 @@
+package ru.yandex.practicum.filmorate.storage.persistence;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.util.unit.DataSize;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.InMemoryFilmStorage;
+import ru.yandex.practicum.filmorate.storage.user.InMemoryUserStorage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Восстановление хранилищ из снимка и журнала")
+class PersistenceManagerTest {
+
+    private static final int FILMS = 50;
+    private static final int USERS = 50;
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    @DisplayName("После перезапуска состояние совпадает, даже если снимок писался во время изменений")
+    void recoversStateWrittenConcurrentlyWithSnapshot() throws Exception {
+        Storages before = new Storages();
+        PersistenceManager manager = before.start(Durability.GROUP, DataSize.ofMegabytes(1));
+        populate(before);
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            futures.add(executor.submit(() -> {
+                randomMutations(before, 2_000);
+                return null;
+            }));
+        }
+        manager.snapshot();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+        manager.stop();
+
+        Storages after = new Storages();
+        after.start(Durability.GROUP, DataSize.ofMegabytes(1)).stop();
+        assertEquals(before.state(), after.state(), "Восстановленное состояние отличается от сохранённого");
+    }
+
+    @Test
+    @DisplayName("Снимок позволяет удалить старые сегменты журнала без потери данных")
+    void snapshotTruncatesLog() throws Exception {
+        Storages before = new Storages();
+        PersistenceManager manager = before.start(Durability.SYNC, DataSize.ofKilobytes(1));
+        populate(before);
+        randomMutations(before, 500);
+        long segmentsBefore = countSegments();
+        manager.snapshot();
+        randomMutations(before, 100);
+        manager.stop();
+
+        assertTrue(countSegments() < segmentsBefore, "Старые сегменты журнала не удалены");
+        Storages after = new Storages();
+        after.start(Durability.SYNC, DataSize.ofKilobytes(1)).stop();
+        assertEquals(before.state(), after.state(), "Восстановленное состояние отличается от сохранённого");
+    }
+
+    @Test
+    @DisplayName("Недописанная последняя запись журнала отбрасывается, предыдущие восстанавливаются")
+    void ignoresTornTail() throws Exception {
+        Storages before = new Storages();
+        PersistenceManager manager = before.start(Durability.SYNC, DataSize.ofMegabytes(1));
+        populate(before);
+        Map<String, List<Long>> expected = before.state();
+        before.films.addLike(1, 2);
+        manager.stop();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("wal-")).max(Path::compareTo)
+                    .orElseThrow();
+        }
+        corruptLastRecord(segment);
+
+        Storages after = new Storages();
+        after.start(Durability.SYNC, DataSize.ofMegabytes(1)).stop();
+        assertEquals(expected, after.state(), "Повреждённая запись не отброшена");
+    }
+
+    @Test
+    @DisplayName("Если последний снимок повреждён, восстановление идёт от предыдущего и журнала после него")
+    void fallsBackToPreviousSnapshot() throws Exception {
+        Storages before = new Storages();
+        PersistenceManager manager = before.start(Durability.SYNC, DataSize.ofKilobytes(1));
+        populate(before);
+        randomMutations(before, 300);
+        manager.snapshot();
+        randomMutations(before, 300);
+        manager.snapshot();
+        randomMutations(before, 100);
+        manager.stop();
+
+        Path snapshot;
+        try (Stream<Path> files = Files.list(directory)) {
+            snapshot = files.filter(path -> path.getFileName().toString().startsWith("snapshot-"))
+                    .max(Path::compareTo).orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(snapshot, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            buffer.put(buffer.limit() / 2, (byte) (buffer.get(buffer.limit() / 2) ^ 0xFF));
+        }
+
+        Storages after = new Storages();
+        after.start(Durability.SYNC, DataSize.ofKilobytes(1)).stop();
+        assertEquals(before.state(), after.state(), "Восстановленное состояние отличается от сохранённого");
+    }
+
+    @Test
+    @DisplayName("Снимок сохраняет строки длиннее 64KB и дружбу пользователя с самим собой")
+    void snapshotKeepsLongStringsAndSelfFriendship() throws Exception {
+        Storages before = new Storages();
+        PersistenceManager manager = before.start(Durability.SYNC, DataSize.ofMegabytes(1));
+        populate(before);
+        Film film = new Film();
+        film.setId(1L);
+        film.setName("Фильм с длинным описанием");
+        film.setDescription("Ж".repeat(70_000));
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        before.films.updateFilm(film);
+        before.users.addFriend(3, 3);
+        manager.snapshot();
+        manager.stop();
+
+        Storages after = new Storages();
+        after.start(Durability.SYNC, DataSize.ofMegabytes(1)).stop();
+        assertEquals(before.state(), after.state(), "Восстановленное состояние отличается от сохранённого");
+    }
+
+    @Test
+    @DisplayName("Записи за разрывом журнала не возвращаются после следующего перезапуска")
+    void dropsRecordsAfterTornRecord() throws Exception {
+        Storages first = new Storages();
+        PersistenceManager firstManager = first.start(Durability.SYNC, DataSize.ofKilobytes(1));
+        populate(first);
+        firstManager.stop();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(path -> path.getFileName().toString().startsWith("wal-")).min(Path::compareTo)
+                    .orElseThrow();
+        }
+        corruptLastRecord(segment);
+
+        Storages second = new Storages();
+        PersistenceManager manager = second.start(Durability.SYNC, DataSize.ofKilobytes(1));
+        User user = new User();
+        user.setEmail("new@mail.ru");
+        user.setLogin("new");
+        user.setBirthday(LocalDate.of(2000, 1, 1));
+        second.users.createUser(user);
+        manager.stop();
+
+        Storages third = new Storages();
+        third.start(Durability.SYNC, DataSize.ofKilobytes(1)).stop();
+        assertEquals(second.state(), third.state(), "Восстановлены записи из-за разрыва журнала");
+    }
+
+    private static void populate(Storages storages) {
+        for (int i = 0; i < FILMS; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription(i % 2 == 0 ? null : "Описание " + i);
+            film.setReleaseDate(LocalDate.of(2000, 1, 1).plusDays(i));
+            film.setDuration(i % 3 == 0 ? null : 90 + i);
+            storages.films.createFilm(film);
+        }
+        for (int i = 0; i < USERS; i++) {
+            User user = new User();
+            user.setEmail("user" + i + "@mail.ru");
+            user.setLogin("user" + i);
+            user.setName("Пользователь " + i);
+            user.setBirthday(LocalDate.of(1990, 1, 1).plusDays(i));
+            storages.users.createUser(user);
+        }
+    }
+
+    private static void randomMutations(Storages storages, int operations) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < operations; i++) {
+            long id = 1 + random.nextInt(FILMS);
+            long otherId = 1 + random.nextInt(USERS);
+            switch (random.nextInt(5)) {
+                case 0 -> storages.films.addLike(id, otherId);
+                case 1 -> storages.films.deleteLike(id, otherId);
+                case 2 -> {
+                    if (id != otherId) {
+                        storages.users.addFriend(id, otherId);
+                    }
+                }
+                case 3 -> storages.users.deleteFriend(id, otherId);
+                default -> {
+                    User user = new User();
+                    user.setId(id);
+                    user.setEmail("user" + (id - 1) + "@mail.ru");
+                    user.setLogin("login" + random.nextInt(1000));
+                    user.setBirthday(LocalDate.of(1990, 1, 1));
+                    storages.users.updateUser(user);
+                }
+            }
+        }
+    }
+
+    private long countSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(path -> path.getFileName().toString().startsWith("wal-")).count();
+        }
+    }
+
+    // Портит байт в теле последней записи сегмента, как если бы процесс упал посреди её копирования
+    private static void corruptLastRecord(Path segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+            int offset = 0;
+            int last = -1;
+            while (offset + 4 <= buffer.limit() && buffer.getInt(offset) > 0) {
+                last = offset;
+                offset += 8 + buffer.getInt(offset);
+            }
+            assertTrue(last >= 0, "В сегменте нет записей");
+            int position = last + WriteAheadLog.HEADER_SIZE;
+            buffer.put(position, (byte) (buffer.get(position) ^ 0xFF));
+        }
+    }
+
+    private class Storages {
+        private final InMemoryFilmStorage films = new InMemoryFilmStorage();
+        private final InMemoryUserStorage users = new InMemoryUserStorage();
+
+        PersistenceManager start(Durability durability, DataSize segmentSize) throws IOException {
+            PersistenceManager manager = new PersistenceManager(films, users, directory, durability,
+                    Duration.ofMillis(1), segmentSize, Duration.ZERO);
+            manager.start();
+            return manager;
+        }
+
+        // Всё содержимое хранилищ в сравнимом виде: сущность целиком и отсортированные связи
+        Map<String, List<Long>> state() {
+            Map<String, List<Long>> state = new TreeMap<>();
+            films.forEachFilmWithLikes((film, likes) -> state.put(film.toString(), sorted(likes)));
+            users.forEachUserWithFriends((user, friends) -> state.put(user.toString(), sorted(friends)));
+            return state;
+        }
+
+        private List<Long> sorted(long[] ids) {
+            return Arrays.stream(ids).sorted().boxed().toList();
+        }
+    }
+}
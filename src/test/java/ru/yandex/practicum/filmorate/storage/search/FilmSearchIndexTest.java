@@ -0,0 +1,110 @@
+package ru.yandex.practicum.filmorate.storage.search;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование FilmSearchIndex")
+class FilmSearchIndexTest {
+
+    private final FilmSearchIndex index = new FilmSearchIndex();
+
+    @Test
+    @DisplayName("Слова разбиваются по любым разделителям, приводятся к нижнему регистру, ё заменяется на е")
+    void tokenizesRussianAndEnglish() {
+        assertEquals(List.of("человек", "паук", "через", "вселенные", "2018"),
+                Tokenizer.tokenize("Человек-паук: Через вселенные (2018)"));
+        assertEquals(List.of("ежик", "в", "тумане"), Tokenizer.tokenize("Ёжик в ТУМАНЕ"));
+        assertEquals(List.of("don", "t", "look", "up"), Tokenizer.tokenize("Don't Look Up!"));
+        assertEquals(List.of(), Tokenizer.tokenize("  ... "));
+    }
+
+    @Test
+    @DisplayName("Слово в названии весит больше, чем в описании, при равной частоте выше короткий фильм")
+    void ranksByBm25() {
+        index.index(film(1, "Сталкер", "Фильм о зоне"));
+        index.index(film(2, "Зеркало", "Фильм о детстве, не сталкер"));
+        index.index(film(3, "Солярис", "Фильм о космосе"));
+        index.index(film(4, "Солярис", "Фильм о зоне контакта"));
+
+        assertEquals(List.of(1L, 2L), index.search("сталкер", 10));
+        assertEquals(List.of(1L, 4L), index.search("фильм зоне", 10));
+        assertEquals(List.of(3L, 4L), index.search("солярис фильм", 10));
+        assertEquals(List.of(1L), index.search("сталкер", 1));
+    }
+
+    @Test
+    @DisplayName("Последнее слово запроса ищется и как префикс, но не короче MIN_PREFIX_LENGTH")
+    void completesLastWordByPrefix() {
+        index.index(film(1, "Матрица", "Хакер Нео"));
+        index.index(film(2, "Матрёшка", "Мультфильм"));
+        index.index(film(3, "Мастер и Маргарита", "Экранизация романа"));
+        index.index(film(4, "М", "Фильм Фрица Ланга"));
+
+        assertEquals(Set.of(1L, 2L), Set.copyOf(index.search("матр", 10)));
+        assertEquals(List.of(2L), index.search("матре", 10));
+        assertEquals(List.of(3L), index.search("мастер маргар", 10));
+        assertEquals(List.of(), index.search("маргар мастер", 10), "Префиксом считается только последнее слово");
+        assertEquals(List.of(4L), index.search("м", 10));
+    }
+
+    @Test
+    @DisplayName("Префикс с множеством продолжений разворачивается не больше чем в MAX_PREFIX_TERMS слов")
+    void limitsPrefixExpansion() {
+        for (int i = 0; i < FilmSearchIndex.MAX_PREFIX_TERMS * 2; i++) {
+            index.index(film(i + 1, "серия" + i, "Описание"));
+        }
+        index.index(film(1000, "Серия серия", "Описание"));
+
+        List<Long> found = index.search("серия", 1000);
+        assertEquals(FilmSearchIndex.MAX_PREFIX_TERMS, found.size());
+        assertEquals(1000L, found.get(0), "Точное совпадение не попало в развёрнутые слова");
+    }
+
+    @Test
+    @DisplayName("Изменённый фильм ищется только по новому тексту, удалённые версии сжимаются")
+    void reindexesUpdatedFilms() {
+        for (int id = 1; id <= 100; id++) {
+            index.index(film(id, "Фильм " + id, "Черновик"));
+        }
+        for (int version = 1; version <= 30; version++) {
+            for (int id = 1; id <= 100; id++) {
+                index.index(film(id, "Фильм " + id, "Версия v" + version + "f" + id));
+            }
+        }
+
+        assertEquals(100, index.size());
+        assertEquals(List.of(), index.search("черновик", 10));
+        assertEquals(List.of(), index.search("v29f42", 10));
+        assertEquals(List.of(42L), index.search("v30f42", 10));
+        assertEquals(100, index.search("версия", 100).size());
+        assertEquals(List.of(42L), index.search("фильм 42 версия", 10));
+        // Без сжатия в словаре осталось бы по слову на каждую из 3000 версий
+        assertTrue(index.termCount() < 1500, "Слова удалённых версий остались в словаре: " + index.termCount());
+    }
+
+    @Test
+    @DisplayName("Лайки поднимают фильм с той же оценкой и не возвращают неподходящие фильмы")
+    void boostsByLikes() {
+        index.index(film(1, "Дюна", "Пустыня"));
+        index.index(film(2, "Дюна", "Пустыня"));
+        index.index(film(3, "Интерстеллар", "Космос"));
+
+        assertEquals(List.of(1L, 2L), index.search("дюна", 10));
+        assertEquals(List.of(2L, 1L), index.search("дюна", 10, id -> id == 2 ? 5 : 0));
+        assertEquals(List.of(1L, 2L), index.search("дюна", 10, id -> id == 3 ? 1000 : 0));
+    }
+
+    private static Film film(long id, String name, String description) {
+        Film film = new Film();
+        film.setId(id);
+        film.setName(name);
+        film.setDescription(description);
+        return film;
+    }
+}
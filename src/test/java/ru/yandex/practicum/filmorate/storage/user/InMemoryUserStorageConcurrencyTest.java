@@ -0,0 +1,96 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Нагрузочная проверка InMemoryUserStorage из нескольких потоков")
+class InMemoryUserStorageConcurrencyTest {
+
+    private static final int THREADS = 16;
+    private static final int USERS = 100;
+    private static final int OPERATIONS_PER_THREAD = 5_000;
+
+    private final InMemoryUserStorage storage = new InMemoryUserStorage();
+
+    @Test
+    @DisplayName("Параллельное добавление и удаление друзей оставляет дружбу симметричной")
+    void friendshipStaysSymmetric() throws Exception {
+        for (int i = 0; i < USERS; i++) {
+            storage.createUser(user(i));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int thread = 0; thread < THREADS; thread++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < OPERATIONS_PER_THREAD; i++) {
+                    long id = 1 + random.nextInt(USERS);
+                    long friendId = 1 + random.nextInt(USERS);
+                    if (id == friendId) {
+                        continue;
+                    }
+                    if (random.nextBoolean()) {
+                        storage.addFriend(id, friendId);
+                    } else {
+                        storage.deleteFriend(id, friendId);
+                    }
+                }
+                return null;
+            }));
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Потоки не завершились");
+        for (Future<?> future : futures) {
+            future.get();
+        }
+
+        for (long id = 1; id <= USERS; id++) {
+            for (User friend : storage.getFriendsList(id)) {
+                List<User> friendsOfFriend = storage.getFriendsList(friend.getId());
+                long userId = id;
+                assertTrue(friendsOfFriend.stream().anyMatch(user -> user.getId() == userId),
+                        "Дружба пользователей " + id + " и " + friend.getId() + " несимметрична");
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Параллельное добавление пользователей выдаёт уникальные id")
+    void createUserAssignsUniqueIds() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Long>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS * 1_000; i++) {
+            int number = i;
+            futures.add(executor.submit(() -> storage.createUser(user(number)).getId()));
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(1, TimeUnit.MINUTES), "Потоки не завершились");
+
+        Set<Long> ids = new HashSet<>();
+        for (Future<Long> future : futures) {
+            ids.add(future.get());
+        }
+        assertEquals(THREADS * 1_000, ids.size(), "Есть повторяющиеся id");
+        assertEquals(THREADS * 1_000, storage.getUserList().size(), "Потеряны пользователи");
+    }
+
+    private static User user(int number) {
+        User user = new User();
+        user.setEmail("user" + number + "@mail.ru");
+        user.setLogin("user" + number);
+        user.setName("Пользователь " + number);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}
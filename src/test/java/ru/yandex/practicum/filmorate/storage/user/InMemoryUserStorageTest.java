@@ -0,0 +1,108 @@
+package ru.yandex.practicum.filmorate.storage.user;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import ru.yandex.practicum.filmorate.exception.DuplicatedDataException;
+import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.edge.IdSetType;
+
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@DisplayName("Тестирование InMemoryUserStorage")
+class InMemoryUserStorageTest {
+
+    private InMemoryUserStorage storage;
+
+    @BeforeEach
+    void init() {
+        storage = new InMemoryUserStorage();
+    }
+
+    @Test
+    @DisplayName("Имейл ищется без учёта регистра и пробелов по краям")
+    void existByEmailIgnoresCase() {
+        User user = storage.createUser(user("Lubov@Mail.ru"));
+
+        assertTrue(storage.existByEmail(" lubov@mail.RU "), "Имейл не найден");
+        assertEquals(Optional.of(user.getId()), storage.findIdByEmail("LUBOV@MAIL.RU"));
+        assertThrows(DuplicatedDataException.class, () -> storage.createUser(user("lubov@mail.ru")),
+                "Создан пользователь с занятым имейлом");
+    }
+
+    @Test
+    @DisplayName("При смене имейла индекс переходит на новый адрес")
+    void updateUserMovesEmailIndex() {
+        User user = storage.createUser(user("old@mail.ru"));
+        User other = storage.createUser(user("other@mail.ru"));
+
+        User newUser = user("new@mail.ru");
+        newUser.setId(user.getId());
+        storage.updateUser(newUser);
+
+        assertFalse(storage.existByEmail("old@mail.ru"), "Старый имейл остался занят");
+        assertEquals(Optional.of(user.getId()), storage.findIdByEmail("new@mail.ru"));
+
+        User conflicting = user("new@mail.ru");
+        conflicting.setId(other.getId());
+        assertThrows(DuplicatedDataException.class, () -> storage.updateUser(conflicting),
+                "Имейл передан другому пользователю");
+        assertEquals(Optional.of(other.getId()), storage.findIdByEmail("other@mail.ru"));
+    }
+
+    @Test
+    @DisplayName("Счёт общих друзей по выборке друзей помечается приблизительным")
+    void sampledSuggestionsAreApproximate() {
+        for (int i = 0; i < 700; i++) {
+            storage.createUser(user("user" + i + "@mail.ru"));
+        }
+        storage.addFriend(2, 3);
+        storage.addFriend(3, 4);
+        assertFalse(storage.getFriendSuggestions(2, 10).getFirst().approximate());
+
+        for (long friendId = 5; friendId <= 700; friendId++) {
+            storage.addFriend(3, friendId);
+        }
+        assertTrue(storage.getFriendSuggestions(2, 10).getFirst().approximate(), "Друзья друга обойдены выборкой");
+
+        for (long friendId = 4; friendId <= 700; friendId++) {
+            storage.addFriend(1, friendId);
+        }
+        storage.addFriend(4, 2);
+        assertTrue(storage.getFriendSuggestions(1, 10).getFirst().approximate(), "Друзья пользователя обойдены выборкой");
+    }
+
+    @Test
+    @DisplayName("Параллельный обход для рекомендаций друзей даёт тот же результат, что и последовательный")
+    void parallelSuggestionsMatchSequential() {
+        InMemoryUserStorage parallel = new InMemoryUserStorage(IdSetType.SORTED_ARRAY, true);
+        for (int i = 0; i < 2_000; i++) {
+            storage.createUser(user("user" + i + "@mail.ru"));
+            parallel.createUser(user("user" + i + "@mail.ru"));
+        }
+        Random random = new Random(5);
+        for (long friendId = 2; friendId <= 301; friendId++) {
+            storage.addFriend(1, friendId);
+            parallel.addFriend(1, friendId);
+            for (int i = 0; i < 20; i++) {
+                long other = 2 + random.nextInt(1_999);
+                storage.addFriend(friendId, other);
+                parallel.addFriend(friendId, other);
+            }
+        }
+
+        assertEquals(storage.getFriendSuggestions(1, 50), parallel.getFriendSuggestions(1, 50));
+    }
+
+    private static User user(String email) {
+        User user = new User();
+        user.setEmail(email);
+        user.setLogin("lubov");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+}